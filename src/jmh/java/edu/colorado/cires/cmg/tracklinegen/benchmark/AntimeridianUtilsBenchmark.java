@@ -0,0 +1,186 @@
+package edu.colorado.cires.cmg.tracklinegen.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometryFactoryFactory;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.ValidationException;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GeoDataRow;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reference costs of the {@link AntimeridianUtils} primitives used by both phases, per coordinate pair.
+ *
+ * <p>{@code splitCase} selects the {@link AntimeridianUtils#splitAm} branch: same sign, a sign change at the prime
+ * meridian, an antimeridian crossing, and a pair touching &plusmn;180. {@link #signCorrection} drives rows through
+ * {@link BaseRowListener}, where every simplified segment is sign corrected; compare {@code rows=ON_180} against
+ * {@code rows=OFF_180} to isolate the &plusmn;180 handling. Scores are per pair or per row.</p>
+ *
+ * <p>The expected results of these primitives are pinned by {@code AntimeridianUtilsTest}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AntimeridianUtilsBenchmark {
+
+  public enum SplitCase {
+    SAME_SIGN,
+    SIGN_CHANGE,
+    CROSS,
+    ON_180
+  }
+
+  public enum Rows {
+    ON_180,
+    OFF_180
+  }
+
+  private static final int PAIRS = 1024;
+  private static final int ROWS = 100000;
+  private static final long START_MILLIS = 1577836800000L;
+
+  private static final GeometryFactory GEOMETRY_FACTORY = GeometryFactoryFactory.create();
+
+  @State(Scope.Thread)
+  public static class Pairs {
+
+    @Param({"SAME_SIGN", "SIGN_CHANGE", "CROSS", "ON_180"})
+    public SplitCase splitCase;
+
+    private final Coordinate[] first = new Coordinate[PAIRS];
+    private final Coordinate[] second = new Coordinate[PAIRS];
+    private final double[] meters = new double[PAIRS];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random random = new Random(42L);
+      for (int i = 0; i < PAIRS; i++) {
+        double lat = -60D + random.nextDouble() * 120D;
+        double lon = 0.001 + random.nextDouble() * 0.009;
+        double dLon = 0.001 + random.nextDouble() * 0.009;
+        long millis = START_MILLIS + i * 1000L;
+        switch (splitCase) {
+          case SAME_SIGN:
+            first[i] = new Coordinate(-150D + lon, lat, millis);
+            second[i] = new Coordinate(-150D + lon + dLon, lat + 0.001, millis + 1000L);
+            break;
+          case SIGN_CHANGE:
+            first[i] = new Coordinate(-lon, lat, millis);
+            second[i] = new Coordinate(dLon, lat + 0.001, millis + 1000L);
+            break;
+          case CROSS:
+            first[i] = new Coordinate(180D - lon, lat, millis);
+            second[i] = new Coordinate(-180D + dLon, lat + 0.001, millis + 1000L);
+            break;
+          case ON_180:
+            first[i] = new Coordinate(180D, lat, millis);
+            second[i] = new Coordinate(-180D + dLon, lat + 0.001, millis + 1000L);
+            break;
+          default:
+            throw new IllegalStateException("Unsupported case: " + splitCase);
+        }
+        meters[i] = AntimeridianUtils.getDistance(first[i], second[i]);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Track {
+
+    @Param({"ON_180", "OFF_180"})
+    public Rows rows;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<DataRow> trackRows = new ArrayList<>(ROWS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      // a track along 10N sweeping back and forth over 180 (or -150), one row in seven exactly on the meridian
+      double center = rows == Rows.ON_180 ? 180D : -150D;
+      for (int i = 0; i < ROWS; i++) {
+        double lon = center - 0.003 + (i % 7) * 0.001;
+        if (lon > 180D) {
+          lon -= 360D;
+        }
+        trackRows.add(new GeoDataRow(Instant.ofEpochMilli(START_MILLIS + i * 1000L), lon, 10D + (i % 100) * 0.0001));
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAIRS)
+  public void getDistance(Pairs pairs, Blackhole blackhole) {
+    for (int i = 0; i < PAIRS; i++) {
+      blackhole.consume(AntimeridianUtils.getDistance(pairs.first[i], pairs.second[i]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAIRS)
+  public void getSpeed(Pairs pairs, Blackhole blackhole) throws ValidationException {
+    for (int i = 0; i < PAIRS; i++) {
+      blackhole.consume(AntimeridianUtils.getSpeed(0D, pairs.first[i], pairs.second[i], pairs.meters[i]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAIRS)
+  public void splitAm(Pairs pairs, Blackhole blackhole) {
+    for (int i = 0; i < PAIRS; i++) {
+      blackhole.consume(AntimeridianUtils.splitAm(pairs.first[i], pairs.second[i]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void signCorrection(Track track) throws IOException {
+    try (JsonGenerator jsonGenerator = track.objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+      BaseRowListener<DataRow> listener = new BaseRowListener<>(BaseRowListenerConfiguration.<DataRow>configure()
+          .withNmSplit(0L)
+          .withMsSplit(0L)
+          .withGeometrySimplifier(new GeometrySimplifier(0.0001))
+          .withLineWriter(new GeoJsonMultiLineWriter(jsonGenerator, 5))
+          .withBatchSize(10000)
+          .withFilterRow(row -> true)
+          .withMaxAllowedSimplifiedPoints(0L)
+          .withGeometryFactory(GEOMETRY_FACTORY)
+          .withGeoJsonPrecision(5)
+          .withMaxAllowedSpeedKnts(0D)
+          .build());
+      listener.start();
+      for (DataRow row : track.trackRows) {
+        listener.processRow(row);
+      }
+      listener.finish();
+    }
+  }
+}
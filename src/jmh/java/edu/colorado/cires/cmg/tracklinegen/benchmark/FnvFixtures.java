@@ -0,0 +1,62 @@
+package edu.colorado.cires.cmg.tracklinegen.benchmark;
+
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GeoDataRow;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads the FNV files under src/test/resources into memory so benchmarks measure processing rather than file reads.
+ */
+final class FnvFixtures {
+
+  static final String FNV = "fnv";
+  static final String FNV_AM = "fnv_am";
+
+  private static final Path RESOURCES = Paths.get("src/test/resources");
+
+  static List<DataRow> load(String fixture) {
+    List<Path> files;
+    try (Stream<Path> stream = Files.walk(RESOURCES.resolve(fixture))) {
+      files = stream
+          .filter(f -> f.getFileName().toString().endsWith(".fnv"))
+          .filter(f -> !f.toString().contains("_BAD"))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to list " + fixture, e);
+    }
+    List<DataRow> rows = new ArrayList<>();
+    Instant last = null;
+    for (Path file : files) {
+      try (BufferedReader reader = Files.newBufferedReader(file)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] tokens = line.split("\\t");
+          Instant timestamp = Instant.ofEpochMilli((long) (Double.parseDouble(tokens[1]) * 1000D));
+          // same ordering rule as the FNV test readers: drop rows that go back in time
+          if (last == null || !timestamp.isBefore(last)) {
+            rows.add(new GeoDataRow(timestamp, Double.parseDouble(tokens[2]), Double.parseDouble(tokens[3])));
+            last = timestamp;
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to read " + file, e);
+      }
+    }
+    return rows;
+  }
+
+  private FnvFixtures() {
+
+  }
+}
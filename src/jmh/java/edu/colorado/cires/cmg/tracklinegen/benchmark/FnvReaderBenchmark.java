@@ -0,0 +1,79 @@
+package edu.colorado.cires.cmg.tracklinegen.benchmark;
+
+import edu.colorado.cires.cmg.tracklinegen.FnvRowReader;
+import edu.colorado.cires.cmg.tracklinegen.PrimitiveDataRow;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FNV read cost: {@link FnvRowReader} against the {@code String.split} and {@code Double.parseDouble} reader used by the
+ * tests. The {@code points} secondary result is ns/row; run with {@code -prof gc} for bytes per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FnvReaderBenchmark {
+
+  @Param({FnvFixtures.FNV, FnvFixtures.FNV_AM})
+  public String fixture;
+
+  @Param({"split", "mapped", "mappedReused"})
+  public String reader;
+
+  private List<Path> files;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    try (Stream<Path> stream = Files.walk(Paths.get("src/test/resources").resolve(fixture))) {
+      files = stream.filter(f -> f.getFileName().toString().endsWith(".fnv")).sorted().collect(Collectors.toList());
+    }
+  }
+
+  @Benchmark
+  public double read(PointCounter counter) throws IOException {
+    double sum = 0D;
+    for (Path file : files) {
+      if ("split".equals(reader)) {
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+          String line;
+          while ((line = in.readLine()) != null) {
+            String[] tokens = line.split("\\t");
+            sum += (long) (Double.parseDouble(tokens[1]) * 1000D) + Double.parseDouble(tokens[2]) + Double.parseDouble(tokens[3]);
+            counter.points++;
+          }
+        }
+      } else {
+        try (FnvRowReader rows = FnvRowReader.configure().withFile(file).withSkipOutOfOrder(false).withReuseRow("mappedReused".equals(reader)).build()) {
+          while (rows.hasNext()) {
+            PrimitiveDataRow row = rows.next();
+            sum += row.epochMillis() + row.lon() + row.lat();
+            counter.points++;
+          }
+        }
+      }
+    }
+    return sum;
+  }
+}
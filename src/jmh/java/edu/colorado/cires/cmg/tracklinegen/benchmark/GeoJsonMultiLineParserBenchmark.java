@@ -0,0 +1,181 @@
+package edu.colorado.cires.cmg.tracklinegen.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineParser;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometryEncoder;
+import edu.colorado.cires.cmg.tracklinegen.GeometryProperties;
+import edu.colorado.cires.cmg.tracklinegen.ValidationException;
+import edu.colorado.cires.cmg.tracklinegen.WkbGeometryEncoder;
+import edu.colorado.cires.cmg.tracklinegen.WktGeometryEncoder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Phase 2 cost: {@link GeoJsonMultiLineParser#parse} over phase 1 output of increasing size.
+ *
+ * <p>{@link #geoJsonAndWkt} encodes both outputs, {@link #geoJsonAndWkb} writes WKB instead of WKT.
+ * {@link #geoJsonOnly} hands the parser {@link GeometryEncoder#none()}, so the difference between it and the others is
+ * the WKT or WKB share. The {@code points} secondary result is ns/coordinate; run with {@code -prof gc} and divide
+ * {@code gc.alloc.rate.norm} by {@code coordinates} for bytes per coordinate.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class GeoJsonMultiLineParserBenchmark {
+
+  public enum Shape {
+    MULTI_LINE_STRING,
+    GEOMETRY_COLLECTION,
+    MULTI_POINT
+  }
+
+  private static final int PRECISION = 5;
+  private static final int COORDINATES_PER_LINE = 10000;
+  private static final long START_MILLIS = 1577836800000L;
+
+  @Param({"MULTI_LINE_STRING", "GEOMETRY_COLLECTION", "MULTI_POINT"})
+  public Shape shape;
+
+  @Param({"1000", "100000", "1000000"})
+  public int coordinates;
+
+  @Param({"false", "true"})
+  public boolean antimeridian;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private byte[] phase1;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out)) {
+      GeoJsonMultiLineWriter lineWriter = new GeoJsonMultiLineWriter(jsonGenerator, PRECISION);
+      switch (shape) {
+        case MULTI_LINE_STRING:
+          lineWriter.start();
+          writeLines(lineWriter, 0, coordinates);
+          break;
+        case GEOMETRY_COLLECTION:
+          // retainPoints output: the lines followed by the retained singleton points
+          int points = Math.max(1, coordinates / 10);
+          lineWriter.startCollection();
+          lineWriter.startMultiLineString();
+          writeLines(lineWriter, 0, coordinates - points);
+          lineWriter.endGeometry();
+          lineWriter.startMultiPoint();
+          writePoints(lineWriter, coordinates - points, coordinates);
+          lineWriter.endGeometry();
+          break;
+        case MULTI_POINT:
+          jsonGenerator.writeStartObject();
+          jsonGenerator.writeStringField("type", "Feature");
+          jsonGenerator.writeFieldName("geometry");
+          jsonGenerator.writeStartObject();
+          jsonGenerator.writeStringField("type", "MultiPoint");
+          jsonGenerator.writeFieldName("coordinates");
+          jsonGenerator.writeStartArray();
+          writePoints(lineWriter, 0, coordinates);
+          break;
+        default:
+          throw new IllegalStateException("Unsupported shape: " + shape);
+      }
+      lineWriter.finish(GeometryProperties.Builder.configure()
+          .withSimplifiedPointCount((long) coordinates)
+          .withUnsimplifiedPointCount((long) coordinates)
+          .withTargetPointCount((long) coordinates)
+          .build());
+    }
+    phase1 = out.toByteArray();
+  }
+
+  private void writeLines(GeoJsonMultiLineWriter lineWriter, int from, int to) {
+    for (int start = from; start < to; start += COORDINATES_PER_LINE) {
+      lineWriter.startLine();
+      for (int i = start; i < Math.min(to, start + COORDINATES_PER_LINE); i++) {
+        writeCoordinate(lineWriter, lineLon(i), i);
+      }
+      lineWriter.endLine();
+    }
+  }
+
+  private void writePoints(GeoJsonMultiLineWriter lineWriter, int from, int to) {
+    for (int i = from; i < to; i++) {
+      writeCoordinate(lineWriter, pointLon(i), i);
+    }
+  }
+
+  private static void writeCoordinate(GeoJsonMultiLineWriter lineWriter, double lon, int i) {
+    lineWriter.writeCoordinate(Arrays.asList(lon, 10D + (i % 1000) * 0.0001, (double) (START_MILLIS + i * 60000L)));
+  }
+
+  private double lineLon(int i) {
+    if (antimeridian) {
+      // sweep 179.9 -> -179.9 and back, crossing the antimeridian every 20 coordinates
+      double offset = -0.1 + (i % 20) * 0.01;
+      double x = 180D + ((i / 20) % 2 == 0 ? offset : -offset);
+      return x > 180D ? x - 360D : x;
+    }
+    return -150D + (i % 20000) * 0.001;
+  }
+
+  private double pointLon(int i) {
+    // the parser runs consecutive MultiPoint members through the antimeridian splitter like a line,
+    // so points stay on the eastern side of the antimeridian rather than alternating across it
+    return antimeridian ? 179.9D + (i % 20) * 0.005 : -150D + (i % 20000) * 0.001;
+  }
+
+  @Benchmark
+  public void geoJsonAndWkt(PointCounter counter) throws IOException, ValidationException {
+    parse(new WktGeometryEncoder(OutputStream.nullOutputStream()));
+    counter.points += coordinates;
+  }
+
+  @Benchmark
+  public void geoJsonAndWkb(PointCounter counter) throws IOException, ValidationException {
+    parse(new WkbGeometryEncoder(OutputStream.nullOutputStream(), PRECISION));
+    counter.points += coordinates;
+  }
+
+  /**
+   * No WKT work at all: nothing is formatted, buffered or written for it. Parsing into {@code Writer.nullWriter()}
+   * instead only drops the writes, the WKT text is still built, so results taken that way overstate the GeoJSON share.
+   */
+  @Benchmark
+  public void geoJsonOnly(PointCounter counter) throws IOException, ValidationException {
+    parse(GeometryEncoder.none());
+    counter.points += coordinates;
+  }
+
+  private void parse(GeometryEncoder geometryEncoder) throws IOException, ValidationException {
+    try (
+        JsonParser jsonParser = objectMapper.getFactory().createParser(phase1);
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())
+    ) {
+      new GeoJsonMultiLineParser(objectMapper, PRECISION, 0D).parse(jsonParser, jsonGenerator, geometryEncoder, null);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package edu.colorado.cires.cmg.tracklinegen.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the points handled by a benchmark invocation so JMH reports a per-point rate next to the per-invocation score.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class PointCounter {
+
+  public long points;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    points = 0;
+  }
+}
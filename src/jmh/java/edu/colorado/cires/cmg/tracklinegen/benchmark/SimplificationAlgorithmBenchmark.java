@@ -0,0 +1,76 @@
+package edu.colorado.cires.cmg.tracklinegen.benchmark;
+
+import edu.colorado.cires.cmg.tracklinegen.DouglasPeuckerAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.HullDouglasPeuckerAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.ParallelDouglasPeuckerAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.VisvalingamWhyattAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticLines;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticLines.Shape;
+import java.util.concurrent.TimeUnit;
+import org.locationtech.jts.geom.Coordinate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One {@link SimplificationAlgorithm} call on a whole line, as {@code BaseRowListener} makes for each batch.
+ *
+ * <p>{@code shape} selects a {@link SyntheticLines} shape. {@code SPIRAL} and {@code LAWNMOWER} are the slow cases for
+ * Douglas-Peucker, and comparing {@code points=10000} against {@code points=100000} shows how each algorithm scales.
+ * Scores are per line.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SimplificationAlgorithmBenchmark {
+
+  public enum Algorithm {
+    DOUGLAS_PEUCKER(new DouglasPeuckerAlgorithm()),
+    PARALLEL_DOUGLAS_PEUCKER(new ParallelDouglasPeuckerAlgorithm(10000)),
+    HULL_DOUGLAS_PEUCKER(new HullDouglasPeuckerAlgorithm()),
+    VISVALINGAM_WHYATT(new VisvalingamWhyattAlgorithm());
+
+    private final SimplificationAlgorithm algorithm;
+
+    Algorithm(SimplificationAlgorithm algorithm) {
+      this.algorithm = algorithm;
+    }
+  }
+
+  @Param({"RANDOM_WALK", "LAWNMOWER", "SPIRAL", "STATION"})
+  public Shape shape;
+
+  @Param({"DOUGLAS_PEUCKER", "PARALLEL_DOUGLAS_PEUCKER", "HULL_DOUGLAS_PEUCKER", "VISVALINGAM_WHYATT"})
+  public Algorithm algorithm;
+
+  @Param({"10000", "100000"})
+  public int points;
+
+  @Param({"0.0001"})
+  public double tolerance;
+
+  private Coordinate[] coordinates;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    coordinates = SyntheticLines.create(shape, points, 42L);
+  }
+
+  @Benchmark
+  public Coordinate[] simplify() {
+    return algorithm.algorithm.simplify(coordinates, tolerance);
+  }
+}
@@ -0,0 +1,224 @@
+package edu.colorado.cires.cmg.tracklinegen.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometryFactoryFactory;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationMode;
+import edu.colorado.cires.cmg.tracklinegen.SplittingGeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.TracklineProcessor;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticTrackline;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end phase 1 throughput: rows are driven through {@link TracklineProcessor}, {@link BaseRowListener} and
+ * {@link GeoJsonMultiLineWriter} into a discarding stream.
+ *
+ * <p>The {@code points} secondary result of {@link #throughput} is points/s and that of {@link #timePerPoint} is
+ * ns/point. Run with {@code -prof gc} and divide {@code gc.alloc.rate.norm} by the point count for bytes per point.</p>
+ *
+ * <p>{@code source} selects the FNV fixtures or a {@link SyntheticTrackline#productionMix} cruise of
+ * {@code syntheticPoints} rows, e.g.
+ * {@code -p source=synthetic -p syntheticPoints=100000000}.</p>
+ *
+ * <p>{@code -p pipelined=true} reads the rows on a separate thread with
+ * {@link TracklineProcessor#processPipelined()}.</p>
+ *
+ * <p>{@code -p fused=true} writes the final GeoJSON and WKT with a {@link SplittingGeoJsonMultiLineWriter}; compare it
+ * with this benchmark plus {@link GeoJsonMultiLineParserBenchmark} for the cost of the two phases.</p>
+ *
+ * <p>{@code -p mode=BUDGET -p maxAllowedSimplifiedPoints=100000} keeps the points until the end within a point budget;
+ * the ns/point should stay flat as {@code syntheticPoints} grows.</p>
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TracklineProcessorBenchmark {
+
+  private static final long SEED = 42L;
+
+  @Param({FnvFixtures.FNV, FnvFixtures.FNV_AM, "synthetic"})
+  public String source;
+
+  @Param({"1000000"})
+  public long syntheticPoints;
+
+  @Param({"1000", "10000"})
+  public int batchSize;
+
+  @Param({"0", "5"})
+  public long nmSplit;
+
+  @Param({"0", "900000"})
+  public long msSplit;
+
+  @Param({"false", "true"})
+  public boolean retainPoints;
+
+  @Param({"0.0001", "0.001"})
+  public double tolerance;
+
+  @Param({"false"})
+  public boolean pipelined;
+
+  @Param({"false"})
+  public boolean fused;
+
+  @Param({"BATCH"})
+  public SimplificationMode mode;
+
+  @Param({"0"})
+  public long maxAllowedSimplifiedPoints;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private List<DataRow> fixtureRows;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    fixtureRows = "synthetic".equals(source) ? null : FnvFixtures.load(source);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public long throughput(PointCounter counter) throws IOException {
+    return process(counter);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public long timePerPoint(PointCounter counter) throws IOException {
+    return process(counter);
+  }
+
+  private long process(PointCounter counter) throws IOException {
+    CountingIterator rows = new CountingIterator(fixtureRows == null
+        ? SyntheticTrackline.productionMix(SEED, syntheticPoints).build().iterator()
+        : fixtureRows.iterator());
+    Phase1 phase1 = new Phase1(rows);
+    if (pipelined) {
+      phase1.processPipelined();
+    } else {
+      phase1.process();
+    }
+    counter.points += rows.count;
+    return rows.count;
+  }
+
+  private static final class CountingIterator implements Iterator<DataRow> {
+
+    private final Iterator<DataRow> delegate;
+    private long count;
+
+    private CountingIterator(Iterator<DataRow> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override
+    public DataRow next() {
+      count++;
+      return delegate.next();
+    }
+  }
+
+  private static final class Phase1Context implements Closeable {
+
+    private final JsonGenerator jsonGenerator;
+    private final Writer wktWriter = new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+
+    private Phase1Context(JsonGenerator jsonGenerator) {
+      this.jsonGenerator = jsonGenerator;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        jsonGenerator.close();
+      } finally {
+        wktWriter.close();
+      }
+    }
+  }
+
+  private final class Phase1 extends TracklineProcessor<Phase1Context, DataRow, BaseRowListener<DataRow>> {
+
+    private final Iterator<DataRow> rows;
+
+    private Phase1(Iterator<DataRow> rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    protected Iterator<DataRow> getRows(Phase1Context context) {
+      return rows;
+    }
+
+    @Override
+    protected int getRowBatchSize() {
+      // the synthetic rows are new objects
+      return BATCHED_ROW_BATCH_SIZE;
+    }
+
+    @Override
+    protected List<BaseRowListener<DataRow>> createRowListeners(Phase1Context context) {
+      return Collections.singletonList(new BaseRowListener<>(BaseRowListenerConfiguration.<DataRow>configure()
+          .withNmSplit(nmSplit)
+          .withMsSplit(msSplit)
+          .withGeometrySimplifier(new GeometrySimplifier(tolerance))
+          .withLineWriter(fused
+              ? new SplittingGeoJsonMultiLineWriter(context.jsonGenerator, context.wktWriter, 5, 0D)
+              : new GeoJsonMultiLineWriter(context.jsonGenerator, 5))
+          .withBatchSize(batchSize)
+          .withFilterRow(row -> true)
+          .withMaxAllowedSimplifiedPoints(maxAllowedSimplifiedPoints)
+          .withSimplificationMode(mode)
+          .withGeometryFactory(GeometryFactoryFactory.create())
+          .withGeoJsonPrecision(5)
+          .withMaxAllowedSpeedKnts(0D)
+          .withRetainPoints(retainPoints)
+          .build()));
+    }
+
+    @Override
+    protected Phase1Context createProcessingContext() {
+      try {
+        return new Phase1Context(objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream()));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to create JSON generator", e);
+      }
+    }
+  }
+}
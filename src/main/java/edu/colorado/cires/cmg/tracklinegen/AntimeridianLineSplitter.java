@@ -0,0 +1,216 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import static edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils.getSpeed;
+import static edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils.splitAm;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * The phase 2 handling of coordinates, shared by {@link GeoJsonMultiLineParser} and
+ * {@link SplittingGeoJsonMultiLineWriter}: splits lines at the antimeridian while writing them as GeoJSON and to a
+ * {@link GeometryEncoder}, and keeps the distance, average speed and bounding box.
+ * <p>
+ * Coordinates are kept as primitives. JTS coordinates are only created for the steps on or across the antimeridian,
+ * and each value is formatted once for both outputs.
+ */
+final class AntimeridianLineSplitter {
+
+  private final FixedPrecision precision;
+  private final DecimalFormat format;
+  private char[] numberBuffer = new char[2 * FixedPrecision.MAX_FORMATTED_LENGTH];
+  private final double maxAllowedSpeedKnts;
+  private final DistanceCalculator distanceCalculator;
+
+  private final Envelope westBoundingBox = new Envelope();
+  private final Envelope eastBoundingBox = new Envelope();
+  private boolean crossedAntimeridian = false;
+  private double distanceM = 0;
+  private long count = 0;
+  private double avgSpeedM = 0.0;
+  private boolean hasLast = false;
+  private double lastX;
+  private double lastY;
+  private double lastZ;
+
+  AntimeridianLineSplitter(int precision, double maxAllowedSpeedKnts, DistanceCalculator distanceCalculator) {
+    this.precision = new FixedPrecision(precision);
+    this.format = this.precision.createDecimalFormat();
+    this.maxAllowedSpeedKnts = maxAllowedSpeedKnts;
+    this.distanceCalculator = distanceCalculator;
+  }
+
+  double getDistanceM() {
+    return distanceM;
+  }
+
+  double getAvgSpeedM() {
+    return avgSpeedM;
+  }
+
+  /**
+   * The next coordinate starts a new line, or is a point of its own.
+   */
+  void startLine() {
+    hasLast = false;
+  }
+
+  private void writeArray(JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder, Coordinate coordinate) throws IOException {
+    writeArray(jsonGenerator, geometryEncoder, coordinate.getX(), coordinate.getY());
+  }
+
+  private void writeArray(JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder, double x, double y) throws IOException {
+    int xLength = formatValue(x, 0);
+    int yLength = formatValue(y, xLength);
+    jsonGenerator.writeStartArray();
+    jsonGenerator.writeNumber(numberBuffer, 0, xLength);
+    jsonGenerator.writeNumber(numberBuffer, xLength, yLength);
+    jsonGenerator.writeEndArray();
+    geometryEncoder.writeCoordinate(x, y, numberBuffer, xLength, yLength);
+  }
+
+  private int formatValue(double value, int offset) {
+    if (numberBuffer.length - offset < FixedPrecision.MAX_FORMATTED_LENGTH) {
+      numberBuffer = Arrays.copyOf(numberBuffer, offset + FixedPrecision.MAX_FORMATTED_LENGTH);
+    }
+    int length = precision.format(value, numberBuffer, offset);
+    if (length < 0) {
+      // huge values can be longer than MAX_FORMATTED_LENGTH
+      String formatted = format.format(value);
+      length = formatted.length();
+      if (numberBuffer.length - offset < length) {
+        numberBuffer = Arrays.copyOf(numberBuffer, offset + length);
+      }
+      formatted.getChars(0, length, numberBuffer, offset);
+    }
+    return length;
+  }
+
+  private void updateStats(double m, double v) {
+    distanceM += m;
+    count++;
+    avgSpeedM = avgSpeedM + (v - avgSpeedM) / count;
+  }
+
+  private void processBoundingBox(double x, double y) {
+    Envelope bbox = x < 0 ? westBoundingBox : eastBoundingBox;
+    bbox.expandToInclude(x, y);
+  }
+
+  /**
+   * The bounding box of the coordinates so far, or null if there were none.
+   */
+  List<Double> getBBox() {
+
+    double minY;
+    double maxY;
+    double minX;
+    double maxX;
+
+    Envelope boundingBox = new Envelope(westBoundingBox);
+    boundingBox.expandToInclude(eastBoundingBox);
+    if(boundingBox.getWidth() > 180D) {
+      crossedAntimeridian = true;
+    }
+
+    if (!crossedAntimeridian) {
+      minY = boundingBox.getMinY();
+      maxY = boundingBox.getMaxY();
+      minX = boundingBox.getMinX();
+      maxX = boundingBox.getMaxX();
+    } else {
+      minY = Math.min(westBoundingBox.getMinY(), eastBoundingBox.getMinY());
+      maxY = Math.max(westBoundingBox.getMaxY(), eastBoundingBox.getMaxY());
+      minX = eastBoundingBox.getMinX();
+      maxX = westBoundingBox.getMaxX();
+    }
+
+    // https://tools.ietf.org/html/rfc7946#section-5.3
+    if (count == 0 && minX == 0.0 && minY == 0.0 && maxX == -1.0 && maxY == -1.0) { // "bbox":[0.0,0.0,-1.0,-1.0]}
+      return null; // don't write bbox if no coordinates were specified
+    }
+    //FIXME
+//    else if (boundingBox.contains(new Coordinate(0, 90))) { // north pole
+//      doubleArray[0] = -180.0;
+//      doubleArray[1] = boundingBox.getMinY();
+//      doubleArray[2] = 180.0;
+//      doubleArray[3] = 90.0;
+
+    // typical bounding box
+    List<Double> bbox = new ArrayList<>(4);
+    bbox.add(minX);
+    bbox.add(minY);
+    bbox.add(maxX);
+    bbox.add(maxY);
+    return bbox;
+  }
+
+  private double getDistance(Coordinate c1, Coordinate c2) {
+    return distanceCalculator.getDistance(c1.getX(), c1.getY(), c2.getX(), c2.getY());
+  }
+
+  /**
+   * Writes a coordinate and splits the line if the step from the previous coordinate crosses the antimeridian.
+   * {@code z} is the time in epoch milliseconds, or NaN.
+   */
+  void processCoordinate(double x, double y, double z, JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder)
+      throws IOException, ValidationException {
+    if (!hasLast) {
+      writeArray(jsonGenerator, geometryEncoder, x, y);
+    } else if (!AntimeridianUtils.mayNeedSplit(lastX, x)) {
+      writeArray(jsonGenerator, geometryEncoder, x, y);
+      double m = distanceCalculator.getDistance(lastX, lastY, x, y);
+      double v = getSpeed(maxAllowedSpeedKnts, lastX, lastY, lastZ, x, y, z, m);
+      updateStats(m, v);
+    } else {
+      Coordinate lastCoordinate = new Coordinate(lastX, lastY, lastZ);
+      Coordinate coordinate = new Coordinate(x, y, z);
+      List<Coordinate> split = splitAm(lastCoordinate, coordinate);
+
+      if (split.size() == 1) {
+        coordinate = split.get(0);
+        writeArray(jsonGenerator, geometryEncoder, coordinate);
+        double m = getDistance(lastCoordinate, coordinate);
+        double v = getSpeed(maxAllowedSpeedKnts, lastCoordinate, coordinate, m);
+        updateStats(m, v);
+      } else if(split.size() == 3) {
+        coordinate = split.get(0);
+        crossedAntimeridian = true;
+        jsonGenerator.writeEndArray();
+        jsonGenerator.writeStartArray();
+        geometryEncoder.breakLine();
+        writeArray(jsonGenerator, geometryEncoder, split.get(2));
+        writeArray(jsonGenerator, geometryEncoder, coordinate);
+        double m = getDistance(split.get(2), coordinate);
+        double v = getSpeed(maxAllowedSpeedKnts, lastCoordinate, coordinate, m);
+        updateStats(m, v);
+      } else if(split.size() == 4) {
+        coordinate = split.get(3);
+        crossedAntimeridian = true;
+        writeArray(jsonGenerator, geometryEncoder, split.get(1));
+        jsonGenerator.writeEndArray();
+        jsonGenerator.writeStartArray();
+        geometryEncoder.breakLine();
+        writeArray(jsonGenerator, geometryEncoder, split.get(2));
+        writeArray(jsonGenerator, geometryEncoder, coordinate);
+        double m = getDistance(lastCoordinate, split.get(1)) + getDistance(split.get(2), split.get(3));
+        double v = getSpeed(maxAllowedSpeedKnts, lastCoordinate, split.get(3), m);
+        updateStats(m, v);
+      }
+      x = coordinate.getX();
+      y = coordinate.getY();
+      z = coordinate.getZ();
+    }
+    processBoundingBox(x, y);
+    hasLast = true;
+    lastX = x;
+    lastY = y;
+    lastZ = z;
+  }
+}
@@ -1,20 +1,12 @@
 package edu.colorado.cires.cmg.tracklinegen;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import org.geotools.referencing.GeodeticCalculator;
-import org.geotools.referencing.datum.DefaultEllipsoid;
+import org.locationtech.jts.algorithm.CGAlgorithmsDD;
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryCollection;
 import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.LineString;
-import org.locationtech.jts.geom.Point;
-import org.locationtech.spatial4j.context.jts.JtsSpatialContext;
-import org.locationtech.spatial4j.shape.jts.JtsGeometry;
 
 public final class AntimeridianUtils {
 
@@ -22,6 +14,9 @@ public final class AntimeridianUtils {
   private static final double METERS_PER_NMILE = 1852D;
   private static final double SECONDS_PER_HOUR = 3600D;
   private static final double KN_PER_MPS = SECONDS_PER_HOUR / METERS_PER_NMILE;
+  private static final DistanceCalculator GEODETIC = new GeodeticDistanceCalculator();
+  private static final Coordinate ANTIMERIDIAN_NORTH = new Coordinate(180D, 90D);
+  private static final Coordinate ANTIMERIDIAN_SOUTH = new Coordinate(180D, -90D);
 
   private AntimeridianUtils(){
 
@@ -40,7 +35,16 @@ public final class AntimeridianUtils {
   }
 
   public static double getSpeed(double maxAllowedSpeedKnts, Coordinate c1, Coordinate c2, double m) throws ValidationException {
-    double s = (c2.getZ() - c1.getZ()) / 1000D;
+    return getSpeed(maxAllowedSpeedKnts, c1.getX(), c1.getY(), c1.getZ(), c2.getX(), c2.getY(), c2.getZ(), m);
+  }
+
+  /**
+   * The speed in m/s from (x1, y1) at z1 to (x2, y2) at z2, with z in epoch milliseconds and the distance {@code m} in
+   * meters.
+   */
+  public static double getSpeed(double maxAllowedSpeedKnts, double x1, double y1, double z1, double x2, double y2, double z2, double m)
+      throws ValidationException {
+    double s = (z2 - z1) / 1000D;
     if (doubleEquals(s, 0D) && doubleEquals(m, 0D)) {
         return 0D;  //allow duplicate points
     }
@@ -50,8 +54,8 @@ public final class AntimeridianUtils {
     if (maxAllowedSpeedKnts > 0 && knots > maxAllowedSpeedKnts) {
       throw new ValidationException(
           String.format("Speed from (%f, %f, %s) to (%f, %f, %s) was %f knots, which exceeded allowed maximum of %f knots",
-              c1.getX(), c1.getY(), Instant.ofEpochMilli((long) c1.getZ()),
-              c2.getX(), c2.getY(), Instant.ofEpochMilli((long) c2.getZ()),
+              x1, y1, Instant.ofEpochMilli((long) z1),
+              x2, y2, Instant.ofEpochMilli((long) z2),
               knots,
               maxAllowedSpeedKnts
           ));
@@ -63,7 +67,25 @@ public final class AntimeridianUtils {
     return doubleEquals(coordinate.getX(), 180D) || doubleEquals(coordinate.getX(), -180D);
   }
 
+  /**
+   * Whether {@link #splitAm} could return anything but the current coordinate as it is, which is when either longitude
+   * is on the antimeridian or the step between them crosses it.
+   */
+  static boolean mayNeedSplit(double lastX, double currentX) {
+    return doubleEquals(lastX, 180D) || doubleEquals(lastX, -180D) || doubleEquals(currentX, 180D) || doubleEquals(currentX, -180D)
+        || (currentX < 0 && lastX > 0 && lastX - currentX > 180D)
+        || (currentX > 0 && lastX < 0 && currentX - lastX > 180D);
+  }
+
+  /**
+   * @deprecated The geometry factory is not used, use {@link #splitAm(Coordinate, Coordinate)}
+   */
+  @Deprecated
   public static List<Coordinate> splitAm(Coordinate last,  Coordinate current, GeometryFactory geometryFactory) {
+    return splitAm(last, current);
+  }
+
+  public static List<Coordinate> splitAm(Coordinate last,  Coordinate current) {
 
     double lastSign = Math.signum(last.getX());
     double currentSign = Math.signum(current.getX());
@@ -85,76 +107,76 @@ public final class AntimeridianUtils {
       return Collections.singletonList(new Coordinate(180D * lastSign, current.getY(), current.getZ()));
     }
 
-    List<Coordinate> split;
-    if ((current.getX() < 0 && last.getX() > 0) || (current.getX() > 0 && last.getX() < 0)) {
-      LineString lineString = geometryFactory.createLineString(new Coordinate[]{last, current});
-      Geometry geometry = new JtsGeometry(lineString, JtsSpatialContext.GEO, true, true).getGeom();
-      if (geometry instanceof LineString) {
-        return Collections.singletonList(current);
-      } else if (geometry instanceof GeometryCollection) {
-        split = geometryParse(current, last, (GeometryCollection) geometry);
-      } else {
-        throw new IllegalStateException(
-            String.format("An error occurred splitting AM, type: %s from coordinates (%f, %f, %s) to (%f, %f, %s)",
-                geometry.toString(),
-                current.getX(), current.getY(), Instant.ofEpochMilli((long) current.getZ()),
-                last.getX(), last.getY(), Instant.ofEpochMilli((long) last.getZ())
-            ));
-      }
-    } else {
-      split = Collections.singletonList(current);
+    if (current.getX() < 0 && last.getX() > 0 && last.getX() - current.getX() > 180D) {
+      // eastward over 180, the current point is unwrapped to the east of it
+      double currentX = current.getX() + 360D;
+      Coordinate crossing = getCrossing(last.getX(), last.getY(), last.getZ(), currentX, current.getY(), current.getZ());
+      return Arrays.asList(
+          new Coordinate(last.getX(), last.getY(), last.getZ()),
+          new Coordinate(crossing.getX(), crossing.getY(), crossing.getZ()),
+          new Coordinate(crossing.getX() - 360D, crossing.getY(), crossing.getZ()),
+          new Coordinate(currentX - 360D, current.getY(), current.getZ())
+      );
     }
-    return split;
-  }
-  private static Coordinate resolveCoordinate(LineString lineString, Coordinate last) {
-    if (lineString.getCoordinateN(0).equals(last)) {
-      return lineString.getCoordinateN(1);
+    if (current.getX() > 0 && last.getX() < 0 && current.getX() - last.getX() > 180D) {
+      // westward over -180, both points are unwrapped to the east of 180
+      double lastX = last.getX() + 360D;
+      double currentX = (current.getX() - 360D) + 360D;
+      Coordinate crossing = getCrossing(lastX, last.getY(), last.getZ(), currentX, current.getY(), current.getZ());
+      return Arrays.asList(
+          new Coordinate(lastX - 360D, last.getY(), last.getZ()),
+          new Coordinate(crossing.getX() - 360D, crossing.getY(), crossing.getZ()),
+          new Coordinate(crossing.getX(), crossing.getY(), crossing.getZ()),
+          new Coordinate(currentX, current.getY(), current.getZ())
+      );
     }
-    return lineString.getCoordinateN(0);
+    return Collections.singletonList(current);
   }
-  private static List<Coordinate> geometryParse(Coordinate coordinate, Coordinate last, GeometryCollection geometry) {
-    Geometry l1 = geometry.getGeometryN(0);
-    Geometry l2 = geometry.getGeometryN(1);
-
-    if (l1 instanceof LineString && l2 instanceof LineString) {
-      return geometryParse(coordinate, last, (LineString) l1, (LineString) l2, geometry);
-    } else if (l1 instanceof LineString && l2 instanceof Point) {
-      return Collections.singletonList(resolveCoordinate((LineString) l1, last));
-    } else if (l2 instanceof LineString && l1 instanceof Point) {
-      return Collections.singletonList(resolveCoordinate((LineString) l2, last));
-    } else {
-      throw new IllegalStateException(
-          String.format("An error occurred splitting AM, type: %s from coordinates (%f, %f, %s) to (%f, %f, %s)",
-              geometry.toString(),
-              coordinate.getX(), coordinate.getY(), Instant.ofEpochMilli((long) coordinate.getZ()),
-              last.getX(), last.getY(), Instant.ofEpochMilli((long) last.getZ())
-          ));
-    }
+
+  /**
+   * Where the segment from (x1, y1) to (x2, y2), with x1 and x2 on opposite sides of 180, meets 180. This repeats the
+   * arithmetic spatial4j used to cut the unwrapped segment at 180 (a JTS segment intersection, with Z interpolated
+   * by distance along the segment), so the split points are the same as before.
+   */
+  private static Coordinate getCrossing(double x1, double y1, double z1, double x2, double y2, double z2) {
+    Coordinate p1 = new Coordinate(x1, y1, z1);
+    Coordinate p2 = new Coordinate(x2, y2, z2);
+    Coordinate crossing = CGAlgorithmsDD.intersection(p1, p2, ANTIMERIDIAN_NORTH, ANTIMERIDIAN_SOUTH);
+    crossing.setZ(interpolateZ(crossing, p1, p2));
+    return crossing;
   }
 
-  private static List<Coordinate> geometryParse(Coordinate coordinate, Coordinate last, LineString l1, LineString l2, Geometry geometry) {
-    List<Coordinate> split = new ArrayList<>(4);
-    if (l1.getCoordinateN(0).equals(last) || l2.getCoordinateN(1).equals(coordinate)) {
-      split.add(l1.getCoordinateN(0));
-      split.add(l1.getCoordinateN(1));
-      split.add(l2.getCoordinateN(0));
-      split.add(l2.getCoordinateN(1));
-    } else if (l2.getCoordinateN(0).equals(last) || l1.getCoordinateN(1).equals(coordinate)) {
-      split.add(l2.getCoordinateN(0));
-      split.add(l2.getCoordinateN(1));
-      split.add(l1.getCoordinateN(0));
-      split.add(l1.getCoordinateN(1));
-    } else {
-      throw new IllegalStateException("Unable to determine AM split order: " + geometry +
-          " coordinate: " + coordinate + " last: " + last + " L1: " + l1 + " l2: " + l2);
+  private static double interpolateZ(Coordinate p, Coordinate p1, Coordinate p2) {
+    double p1z = p1.getZ();
+    double p2z = p2.getZ();
+    if (Double.isNaN(p1z)) {
+      return p2z;
+    }
+    if (Double.isNaN(p2z)) {
+      return p1z;
     }
-    return split;
+    if (p.equals2D(p1)) {
+      return p1z;
+    }
+    if (p.equals2D(p2)) {
+      return p2z;
+    }
+    double dz = p2z - p1z;
+    if (Double.compare(dz, 0D) == 0) {
+      return p1z;
+    }
+    double dx = p2.x - p1.x;
+    double dy = p2.y - p1.y;
+    double xoff = p.x - p1.x;
+    double yoff = p.y - p1.y;
+    return p1z + dz * Math.sqrt((xoff * xoff + yoff * yoff) / (dx * dx + dy * dy));
   }
 
   public static double getDistance(Coordinate c1, Coordinate c2) {
-    GeodeticCalculator calc = new GeodeticCalculator(DefaultEllipsoid.WGS84);
-    calc.setStartingGeographicPoint(c1.getX(), c1.getY());
-    calc.setDestinationGeographicPoint(c2.getX(), c2.getY());
-    return calc.getOrthodromicDistance();
+    return getDistance(c1.getX(), c1.getY(), c2.getX(), c2.getY());
+  }
+
+  public static double getDistance(double lon1, double lat1, double lon2, double lat2) {
+    return GEODETIC.getDistance(lon1, lat1, lon2, lat2);
   }
 }
@@ -1,21 +1,10 @@
 package edu.colorado.cires.cmg.tracklinegen;
 
-import static edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils.getDistance;
 import static edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils.getSpeed;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.ListIterator;
-import java.util.Locale;
+import java.time.Instant;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.LineString;
-import org.locationtech.jts.geom.Point;
 
 public class BaseRowListener<T extends DataRow> implements RowListener<T> {
 
@@ -30,14 +19,34 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
   private long unsimplifiedPointCount;
   private long simplifiedPointCount;
   private long targetPointCount;
-  private final GeometryFactory geometryFactory;
   private final double minDistance;
-  private final DecimalFormat format;
+  private final FixedPrecision precision;
+  private final DistanceCalculator distanceCalculator;
   private final boolean retainPoints;
+  private final SimplificationMode simplificationMode;
+  private final boolean budget;
+  // the tolerance in effect, which a budget may raise
+  private double tolerance;
+  // the buffer size that triggers simplification
+  private int bufferLimit;
 
   private boolean started;
-  private List<PointState> pointBuffer;
-  private List<PointState> points;
+  private PointBuffer pointBuffer;
+  private PointBuffer simplifiedBuffer;
+  private PointBuffer points;
+  private int[] retainFrom = new int[0];
+  private int[] retainTo = new int[0];
+  // sign corrected copy of the segment being simplified, and the kept indices into it
+  private double[] segmentX = new double[0];
+  private double[] segmentY = new double[0];
+  private double[] segmentZ = new double[0];
+  private int[] segmentIndices = new int[0];
+  private int[] keptIndices = new int[2];
+  // rounded rows of the batch being processed
+  private double[] rowX = new double[0];
+  private double[] rowY = new double[0];
+  private double[] rowZ = new double[0];
+  private boolean[] rowTarget = new boolean[0];
 
   /**
    *
@@ -103,47 +112,36 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
     this.filterRow = config.getFilterRow();
     this.batchSize = config.getBatchSize();
     this.maxAllowedSimplifiedPoints = config.getMaxAllowedSimplifiedPoints();
-    this.geometryFactory = config.getGeometryFactory();
     this.minDistance = 1d / Math.pow(10d, config.getGeoJsonPrecision());
     this.retainPoints = config.isRetainPoints();
-    StringBuilder sb = new StringBuilder("0.");
-    for (int i = 1; i <= config.getGeoJsonPrecision(); i++) {
-      sb.append("#");
-    }
-    format = new DecimalFormat(sb.toString(), DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+    this.precision = new FixedPrecision(config.getGeoJsonPrecision());
     this.maxAllowedSpeedKnts = config.getMaxAllowedSpeedKnts();
+    this.distanceCalculator = config.getDistanceCalculator();
+    this.simplificationMode = config.getSimplificationMode();
+    this.budget = simplificationMode == SimplificationMode.BUDGET && maxAllowedSimplifiedPoints > 0;
+    this.tolerance = geometrySimplifier.getSimplificationTolerance();
+    this.bufferLimit = batchSize;
   }
 
   @Override
   public void start() {
-    pointBuffer = new ArrayList<>();
-    points = new ArrayList<>(0);
+    pointBuffer = new PointBuffer();
+    simplifiedBuffer = new PointBuffer();
+    points = new PointBuffer();
   }
 
-  private List<List<PointState>> splitBufferSegments() {
-    final List<List<PointState>> segments = new ArrayList<>();
+  private void splitBufferSegments() {
+    pointBuffer.clearSegments();
     for (int i = 0; i < pointBuffer.size(); i++) {
-      PointState thisPoint = pointBuffer.get(i);
       if (i == 0) {
-        List<PointState> segment = new ArrayList<>();
-        segments.add(segment);
-        segment.add(thisPoint);
+        pointBuffer.startSegment(i);
+      } else if (shouldSplit(i - 1, i)) {
+        pointBuffer.setIndex(i, 0);
+        pointBuffer.startSegment(i);
       } else {
-        List<PointState> lastSegment = segments.get(segments.size() - 1);
-        PointState lastPoint = lastSegment.get(lastSegment.size() - 1);
-        if (shouldSplit(lastPoint, thisPoint)) {
-          List<PointState> segment = new ArrayList<>();
-          thisPoint.setIndex(0);
-          segment.add(thisPoint);
-          segments.add(segment);
-        } else {
-          thisPoint.setIndex(lastPoint.getIndex() + 1);
-          lastSegment.add(thisPoint);
-        }
+        pointBuffer.setIndex(i, pointBuffer.getIndex(i - 1) + 1);
       }
     }
-
-    return segments;
   }
 
   private enum Sign {
@@ -151,139 +149,134 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
     NEGATIVE
   }
 
-  private static Sign findPreviousSign(List<Coordinate> coordinates, int index) {
-    Sign sign = null;
+  private static Sign findPreviousSign(double[] x, int[] indices, int index) {
     for (int i = index - 1; i >= 0; i--) {
-      Coordinate coordinate = coordinates.get(i);
-      if(!is180(coordinate)) {
-        sign = coordinate.getX() < 0D ? Sign.NEGATIVE : Sign.POSITIVE;
-        break;
+      double lon = x[indices[i]];
+      if (!is180(lon)) {
+        return lon < 0D ? Sign.NEGATIVE : Sign.POSITIVE;
       }
     }
-    return sign;
+    return null;
   }
 
-  private static Sign findNextSign(List<Coordinate> coordinates, int index) {
-    Sign sign = null;
-    for (int i = index + 1; i < coordinates.size(); i++) {
-      Coordinate coordinate = coordinates.get(i);
-      if(!is180(coordinate)) {
-        sign = coordinate.getX() < 0D ? Sign.NEGATIVE : Sign.POSITIVE;
-        break;
+  private static Sign findNextSign(double[] x, int[] indices, int count, int index) {
+    for (int i = index + 1; i < count; i++) {
+      double lon = x[indices[i]];
+      if (!is180(lon)) {
+        return lon < 0D ? Sign.NEGATIVE : Sign.POSITIVE;
       }
     }
-    return sign;
+    return null;
   }
 
-  private static boolean is180(Coordinate coordinate) {
-    return AntimeridianUtils.doubleEquals(Math.abs(coordinate.getX()) - 180D, 0D);
+  private static boolean is180(double lon) {
+    return AntimeridianUtils.doubleEquals(Math.abs(lon) - 180D, 0D);
   }
 
-  private List<Coordinate> correctSigns(List<Coordinate> coordinates) {
-    List<Coordinate> corrected = new ArrayList<>(coordinates.size());
-    for (int i = 0; i < coordinates.size(); i++) {
-      Coordinate coordinate = coordinates.get(i);
-
-      if(is180(coordinate)) {
-        Sign sign = findPreviousSign(coordinates, i);
-        if(sign == null) {
-          sign = findNextSign(coordinates, i);
-        } if (sign == null) {
-          sign = Sign.POSITIVE;
-        }
-        double correctedX;
-        switch (sign) {
-          case NEGATIVE:
-            correctedX = -180D;
-            break;
-          case POSITIVE:
-            correctedX = 180D;
-            break;
-          default:
-            throw new IllegalStateException("This will never happen");
-        }
-        double y = coordinate.getY();
-        double time = coordinate.getZ();
-
-        Coordinate c2 = new Coordinate(correctedX, y, time);
-
-        if(i > 0) {
-          Coordinate c1 = corrected.get(i - 1);
-          double m = getDistance(c1, c2);
-          try {
-            getSpeed(maxAllowedSpeedKnts, c1, c2, m);
-          } catch (ValidationException e) {
-            throw new IllegalStateException("Invalid speed", e);
-          }
-        }
-
-
-        corrected.add(c2);
-
-
+  private void validateSpeed(int i1, int i2) {
+    // without a maximum speed the distance is not needed
+    if (maxAllowedSpeedKnts > 0) {
+      double m = distanceCalculator.getDistance(segmentX[i1], segmentY[i1], segmentX[i2], segmentY[i2]);
+      try {
+        getSpeed(maxAllowedSpeedKnts, segmentX[i1], segmentY[i1], segmentZ[i1],
+            segmentX[i2], segmentY[i2], segmentZ[i2], m);
+      } catch (ValidationException e) {
+        throw new IllegalStateException("Invalid speed", e);
+      }
+    }
+  }
 
-      } else {
-        if(i > 0) {
-          Coordinate c1 = corrected.get(i - 1);
-          double m = getDistance(c1, coordinate);
-          try {
-            getSpeed(maxAllowedSpeedKnts, c1, coordinate, m);
-          } catch (ValidationException e) {
-            throw new IllegalStateException("Invalid speed", e);
-          }
+  /**
+   * Gives points on &plusmn;180 the sign of their neighbors among {@code indices} and validates the speed between them.
+   */
+  private void correctSigns(int[] indices, int count) {
+    for (int i = 0; i < count; i++) {
+      int index = indices[i];
+      if (is180(segmentX[index])) {
+        Sign sign = findPreviousSign(segmentX, indices, i);
+        if (sign == null) {
+          sign = findNextSign(segmentX, indices, count, i);
         }
-
-        corrected.add(coordinate);
+        segmentX[index] = sign == Sign.NEGATIVE ? -180D : 180D;
+      }
+      if (i > 0) {
+        validateSpeed(indices[i - 1], index);
       }
-
     }
-    return corrected;
   }
 
-  private LineString correctSigns(LineString lineString) {
-    List<Coordinate> corrected = correctSigns(Arrays.asList(lineString.getCoordinates()));
-    return geometryFactory.createLineString(corrected.toArray(new Coordinate[0]));
+  private void ensureSegmentCapacity(int size) {
+    if (segmentX.length < size) {
+      int capacity = Math.max(size, segmentX.length * 2);
+      segmentX = new double[capacity];
+      segmentY = new double[capacity];
+      segmentZ = new double[capacity];
+      segmentIndices = new int[capacity];
+      keptIndices = new int[Math.max(capacity, 2)];
+      for (int i = 0; i < capacity; i++) {
+        segmentIndices[i] = i;
+      }
+    }
   }
 
-  private List<PointState> simplifySegment(List<PointState> segment) {
-    List<PointState> simplifiedSegment;
-    if (segment.size() > 1) {
-      int startIndex = segment.get(0).getIndex();
-      LineString simplified = simplify(
-          correctSigns(segment.stream().map(PointState::getPoint).map(Point::getCoordinate).collect(Collectors.toList())));
-      simplified = correctSigns(simplified);
-      Coordinate[] coordinates = simplified.getCoordinateSequence().toCoordinateArray();
-      simplifiedSegment = new ArrayList<>();
-      for (int i = 0; i < coordinates.length; i++) {
-        if (i == 0 || coordinates.length > 2 || distance(coordinates[0], coordinates[1]) > minDistance) {
-          Coordinate coordinate = coordinates[i];
-          PointState pointState = new PointState(geometryFactory.createPoint(coordinate), true);
-          pointState.setSimplified(true);
-          pointState.setIndex(i + startIndex);
-          simplifiedSegment.add(pointState);
+  /**
+   * Simplifies a segment into {@code simplifiedSegments}. Unless {@code whole} is set, points that were already
+   * simplified are copied as they are and only the rest of the segment is simplified, starting from the last of them.
+   */
+  private void simplifySegment(int segment, PointBuffer simplifiedSegments, boolean whole) {
+    int start = pointBuffer.getSegmentStart(segment);
+    int end = pointBuffer.getSegmentEnd(segment);
+    simplifiedSegments.startSegment();
+    int from = start;
+    if (!whole) {
+      while (from < end && pointBuffer.isSimplified(from)) {
+        from++;
+      }
+      from = Math.max(start, from - 1);
+      for (int i = start; i < from; i++) {
+        simplifiedSegments.add(pointBuffer, i);
+      }
+    }
+    if (end - from > 1) {
+      int startIndex = pointBuffer.getIndex(from);
+      int size = end - from;
+      ensureSegmentCapacity(size);
+      for (int i = 0; i < size; i++) {
+        segmentX[i] = pointBuffer.getX(from + i);
+        segmentY[i] = pointBuffer.getY(from + i);
+        segmentZ[i] = pointBuffer.getZ(from + i);
+      }
+      correctSigns(segmentIndices, size);
+      int count = simplify(size);
+      // the kept points may have different neighbors now
+      correctSigns(keptIndices, count);
+      for (int i = 0; i < count; i++) {
+        int index = keptIndices[i];
+        if (i == 0 || count > 2 || from > start
+            || Math.hypot(segmentX[index] - segmentX[keptIndices[0]], segmentY[index] - segmentY[keptIndices[0]]) > minDistance) {
+          simplifiedSegments.add(segmentX[index], segmentY[index], segmentZ[index], true, true, i + startIndex);
         }
       }
     } else {
-      simplifiedSegment = segment;
+      for (int i = from; i < end; i++) {
+        simplifiedSegments.add(pointBuffer, i);
+      }
     }
-    return simplifiedSegment;
   }
 
-
-  private List<List<PointState>> writeSegments(List<List<PointState>> segments) {
-    List<List<PointState>> nextBuffer = new ArrayList<>();
-    for (int segmentIndex = 0; segmentIndex < segments.size(); segmentIndex++) {
-      boolean lastSegment = segmentIndex == segments.size() - 1;
-      List<PointState> segment = segments.get(segmentIndex);
+  private void writeSegments() {
+    int segmentCount = pointBuffer.getSegmentCount();
+    for (int segment = 0; segment < segmentCount; segment++) {
+      boolean lastSegment = segment == segmentCount - 1;
+      int start = pointBuffer.getSegmentStart(segment);
+      int end = pointBuffer.getSegmentEnd(segment);
 
       if (lastSegment) {
-        List<PointState> nextSegment = new ArrayList<>();
-        nextSegment.add(segment.get(segment.size() - 1));
-        nextBuffer.add(nextSegment);
-        segment = segment.subList(0, segment.size() - 1);
+        // the last point stays in the buffer to continue the line in the next batch
+        end--;
       }
 
-      if (!segment.isEmpty() && segment.get(0).getIndex() == 0) {
+      if (end > start && pointBuffer.getIndex(start) == 0) {
         if (!started) {
           startGeometry();
           if (retainPoints) {
@@ -294,124 +287,228 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
         lineWriter.startLine();
       }
 
-      int maxIndex = segment.size() - 1;
-
-      for (int coordinateIndex = 0; coordinateIndex <= maxIndex; coordinateIndex++) {
-        PointState pointState = segment.get(coordinateIndex);
+      for (int i = start; i < end; i++) {
         incrementSimplifiedPointCount();
-        writeCoordinate(pointState.getPoint().getCoordinate());
-        if (coordinateIndex == maxIndex && !lastSegment) {
+        writeCoordinate(pointBuffer, i);
+        if (i == end - 1 && !lastSegment) {
           lineWriter.endLine();
         }
       }
+    }
+    if (!pointBuffer.isEmpty()) {
+      pointBuffer.retainLast();
+    }
+  }
 
+  private void simplifyBuffer(boolean whole) {
+    simplifiedBuffer.clear();
+    for (int segment = 0; segment < pointBuffer.getSegmentCount(); segment++) {
+      simplifySegment(segment, simplifiedBuffer, whole);
     }
-    return nextBuffer;
+    removeSingletons(simplifiedBuffer, started);
+
+    PointBuffer swap = pointBuffer;
+    pointBuffer = simplifiedBuffer;
+    simplifiedBuffer = swap;
   }
 
-  private List<List<PointState>> simplifySegments(List<List<PointState>> segments) {
-    List<List<PointState>> simplified = removeSingletons(segments.stream().map(this::simplifySegment).collect(Collectors.toList()), started);
+  private void simplifySegments(boolean flush) {
+    // a budget keeps the points until the end, so they are only simplified again when the tolerance is raised
+    simplifyBuffer(!budget);
+
+    if (budget) {
+      fitBudget();
+      // keep everything until the end, simplifying again once there are as many new points as the batch size or the
+      // kept points, whichever is more: each pass goes over the whole buffer, so a fixed step would be quadratic
+      bufferLimit = pointBuffer.size() + Math.max(batchSize, pointBuffer.size());
+    } else if (flush || pointBuffer.size() >= batchSize) {
+      writeSegments();
+    }
+  }
 
-    int count = simplified.stream().map(List::size).reduce(0, Integer::sum);
-    if (count < batchSize) {
-      return simplified;
+  private void fitBudget() {
+    while (pointBuffer.size() > maxAllowedSimplifiedPoints) {
+      if (isFullySimplified()) {
+        throw new SimplifiedPointCountExceededException(
+            "Simplified point count exceeded: allowed = " + maxAllowedSimplifiedPoints + " segment end points = " + pointBuffer.size()
+        );
+      }
+      // the error of the passes at lower tolerances adds up to less than the new tolerance
+      tolerance = tolerance > 0D ? tolerance * 2D : minDistance;
+      splitBufferSegments();
+      simplifyBuffer(true);
     }
+  }
 
-    return writeSegments(simplified);
+  private boolean isFullySimplified() {
+    for (int segment = 0; segment < pointBuffer.getSegmentCount(); segment++) {
+      if (pointBuffer.getSegmentSize(segment) > 2) {
+        return false;
+      }
+    }
+    return true;
   }
 
-  private static List<List<PointState>> removeNonTarget(List<List<PointState>> segments) {
-    for (List<PointState> segment : segments) {
-      ListIterator<PointState> it = segment.listIterator();
-      int removedCount = 0;
-      boolean foundTarget = false;
-      while (it.hasNext()) {
-        PointState pointState = it.next();
-        if (!foundTarget && !pointState.isTarget()) {
-          removedCount++;
-          it.remove();
-        } else {
-          foundTarget = true;
-          pointState.setIndex(pointState.getIndex() - removedCount);
-        }
+  private void ensureRetainCapacity(int segmentCount) {
+    if (retainFrom.length < segmentCount) {
+      retainFrom = new int[segmentCount];
+      retainTo = new int[segmentCount];
+    }
+  }
+
+  private void removeNonTarget() {
+    int segmentCount = pointBuffer.getSegmentCount();
+    ensureRetainCapacity(segmentCount);
+    for (int segment = 0; segment < segmentCount; segment++) {
+      int start = pointBuffer.getSegmentStart(segment);
+      int end = pointBuffer.getSegmentEnd(segment);
+      int first = start;
+      while (first < end && !pointBuffer.isTarget(first)) {
+        first++;
       }
-      if (!segment.isEmpty()) {
-        it = segment.listIterator(segment.size());
-        while (it.hasPrevious()) {
-          PointState pointState = it.previous();
-          if (!pointState.isTarget()) {
-            it.remove();
-          } else {
-            break;
-          }
+      int last = end;
+      while (last > first && !pointBuffer.isTarget(last - 1)) {
+        last--;
+      }
+      int removedCount = first - start;
+      if (removedCount > 0) {
+        for (int i = first; i < last; i++) {
+          pointBuffer.setIndex(i, pointBuffer.getIndex(i) - removedCount);
         }
       }
+      retainFrom[segment] = first;
+      retainTo[segment] = last;
     }
-    return segments;
+    pointBuffer.retainRanges(retainFrom, retainTo, true);
   }
 
-  private List<List<PointState>> removeSingletons(List<List<PointState>> segments, boolean started) {
-
-    List<List<PointState>> filtered = new ArrayList<>();
-
-    for (int i = 0; i < segments.size(); i++) {
-      List<PointState> segment = segments.get(i);
-      if (segment.isEmpty()) {
+  private void removeSingletons(PointBuffer segments, boolean started) {
+    int segmentCount = segments.getSegmentCount();
+    ensureRetainCapacity(segmentCount);
+    int firstKept = -1;
+    int keptCount = 0;
+    for (int segment = 0; segment < segmentCount; segment++) {
+      int start = segments.getSegmentStart(segment);
+      int end = segments.getSegmentEnd(segment);
+      retainFrom[segment] = start;
+      retainTo[segment] = start;
+      if (end == start) {
         continue;
       }
-      int lastIndex = segment.get(segment.size() - 1).getIndex();
-      if (lastIndex > 0 || (i == 0 && !started) || i == segments.size() - 1) {
-        filtered.add(segment);
-      } else if (retainPoints)  {
-        points.add(segment.get(0));
+      int lastIndex = segments.getIndex(end - 1);
+      if (lastIndex > 0 || (segment == 0 && !started) || segment == segmentCount - 1) {
+        retainTo[segment] = end;
+        if (firstKept < 0) {
+          firstKept = segment;
+        }
+        keptCount++;
+      } else if (retainPoints) {
+        points.add(segments, start);
       }
     }
 
     // remove the first segment if it is a singleton and there are other non-singletons
-    if (filtered.size() > 1 && filtered.get(0).size() == 1 && filtered.get(0).get(0).getIndex() == 0) {
+    if (keptCount > 1 && segments.getSegmentSize(firstKept) == 1 && segments.getIndex(retainFrom[firstKept]) == 0) {
       if (retainPoints) {
-        points.add(filtered.get(0).get(0));
+        points.add(segments, retainFrom[firstKept]);
       }
-      filtered = filtered.subList(1, filtered.size());
+      retainTo[firstKept] = retainFrom[firstKept];
     }
 
-    return filtered;
+    segments.retainRanges(retainFrom, retainTo, false);
   }
 
   private void writeSimplified() {
-    List<List<PointState>> segments = removeSingletons(removeNonTarget(splitBufferSegments()), started);
-
-    int count = segments.stream().map(List::size).reduce(0, Integer::sum);
-    if (count <= batchSize) {
-      pointBuffer = segments.stream().flatMap(List::stream).collect(Collectors.toCollection(ArrayList::new));
-    } else {
-      pointBuffer = simplifySegments(segments).stream().flatMap(List::stream).collect(Collectors.toCollection(ArrayList::new));
+    splitBufferSegments();
+    removeNonTarget();
+    removeSingletons(pointBuffer, started);
+
+    // segments are recomputed from the points on the next batch
+    if (pointBuffer.size() > bufferLimit) {
+      // online simplified points are final, batch simplified points are simplified again with the next batch
+      simplifySegments(simplificationMode == SimplificationMode.ONLINE);
     }
   }
 
-  private double distance(Coordinate coordinate1, Coordinate coordinate2) {
-    return geometryFactory.createPoint(coordinate1).distance(geometryFactory.createPoint(coordinate2));
-  }
-
   @Override
   public void processRow(T row) {
     unsimplifiedPointCount++;
-    PointState pointState = new PointState(geometryFactory.createPoint(toCoordinate(row)), isDesiredRowType(row));
-    if (pointState.isTarget()) {
+    double lon;
+    double lat;
+    double time;
+    if (row instanceof PrimitiveDataRow) {
+      PrimitiveDataRow primitiveRow = (PrimitiveDataRow) row;
+      lon = round(primitiveRow.lon());
+      lat = round(primitiveRow.lat());
+      time = primitiveRow.hasTimestamp() ? primitiveRow.epochMillis() : Double.NaN;
+    } else {
+      lon = round(row.getLon());
+      lat = round(row.getLat());
+      time = row.getTimestamp() == null ? Double.NaN : row.getTimestamp().toEpochMilli();
+    }
+    boolean target = isDesiredRowType(row);
+    if (target) {
       targetPointCount++;
     }
 
-    pointBuffer.add(pointState);
-    if (pointBuffer.size() > batchSize) {
+    pointBuffer.add(lon, lat, time, target, false, 0);
+    if (pointBuffer.size() > bufferLimit) {
       writeSimplified();
     }
   }
 
-  private void writeFinalSegments(List<List<PointState>> segments) {
-    List<List<PointState>> lastSingleton = writeSegments(segments);
-    if (lastSingleton.get(0).get(0).getIndex() > 0) {
+  @Override
+  public void processRows(RowBatch<? extends T> rows) {
+    int size = rows.size();
+    ensureRowCapacity(size);
+    for (int i = 0; i < size; i++) {
+      T row = rows.get(i);
+      if (row instanceof PrimitiveDataRow) {
+        PrimitiveDataRow primitiveRow = (PrimitiveDataRow) row;
+        rowX[i] = round(primitiveRow.lon());
+        rowY[i] = round(primitiveRow.lat());
+        rowZ[i] = primitiveRow.hasTimestamp() ? primitiveRow.epochMillis() : Double.NaN;
+      } else {
+        Instant timestamp = row.getTimestamp();
+        rowX[i] = round(row.getLon());
+        rowY[i] = round(row.getLat());
+        rowZ[i] = timestamp == null ? Double.NaN : timestamp.toEpochMilli();
+      }
+      rowTarget[i] = isDesiredRowType(row);
+    }
+    unsimplifiedPointCount += size;
+    for (int i = 0; i < size; i++) {
+      if (rowTarget[i]) {
+        targetPointCount++;
+      }
+    }
+
+    // the same as adding the rows one at a time, simplifying as soon as the buffer is over its limit
+    int from = 0;
+    while (from < size) {
+      int count = Math.min(size - from, Math.max(bufferLimit + 1 - pointBuffer.size(), 1));
+      pointBuffer.addAll(rowX, rowY, rowZ, rowTarget, from, count);
+      from += count;
+      if (pointBuffer.size() > bufferLimit) {
+        writeSimplified();
+      }
+    }
+  }
+
+  private void ensureRowCapacity(int size) {
+    if (rowX.length < size) {
+      rowX = new double[size];
+      rowY = new double[size];
+      rowZ = new double[size];
+      rowTarget = new boolean[size];
+    }
+  }
+
+  private void writeFinalSegments() {
+    writeSegments();
+    if (!pointBuffer.isEmpty() && pointBuffer.getIndex(0) > 0) {
       incrementSimplifiedPointCount();
-      writeCoordinate(lastSingleton.get(0).get(0).getPoint().getCoordinate());
+      writeCoordinate(pointBuffer, 0);
       lineWriter.endLine();
       if (retainPoints) {
         lineWriter.endGeometry();
@@ -421,24 +518,25 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
 
   @Override
   public void finish() {
-    List<List<PointState>> segments = simplifySegments(removeNonTarget(splitBufferSegments()));
+    splitBufferSegments();
+    removeNonTarget();
+    simplifySegments(false);
 
     boolean isArray = false;
 
     if (started) {
-      writeFinalSegments(segments);
+      writeFinalSegments();
       isArray = true;
     } else {
-      int count = segments.stream().map(List::size).reduce(0, Integer::sum);
+      int count = pointBuffer.size();
       if (count > 1) {
-        writeFinalSegments(segments);
+        writeFinalSegments();
         isArray = true;
       } else if (count == 1) {
         lineWriter.startPoint();
         started = true;
         incrementSimplifiedPointCount();
-        PointState pointState = segments.get(0).get(0);
-        writeCoordinate(pointState.getPoint().getCoordinate());
+        writeCoordinate(pointBuffer, 0);
       } else {
         startGeometry();
         isArray = true;
@@ -447,7 +545,9 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
 
     if (!points.isEmpty()) {
       lineWriter.startMultiPoint();
-      points.forEach(pointState -> writeCoordinate(pointState.getPoint().getCoordinate()));
+      for (int i = 0; i < points.size(); i++) {
+        writeCoordinate(points, i);
+      }
       lineWriter.endGeometry();
     }
 
@@ -455,6 +555,7 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
         .withSimplifiedPointCount(simplifiedPointCount)
         .withUnsimplifiedPointCount(unsimplifiedPointCount)
         .withTargetPointCount(targetPointCount)
+        .withSimplificationTolerance(simplificationMode == SimplificationMode.BUDGET ? tolerance : null)
         .build();
 
     lineWriter.finish(properties, isArray);
@@ -472,21 +573,21 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
     return filterRow.test(row);
   }
 
-  private boolean shouldSplit(PointState point1, PointState point2) {
-    if (point2.isSimplified()) {
-      return point2.getIndex() == 0;
+  private boolean shouldSplit(int point1, int point2) {
+    if (pointBuffer.isSimplified(point2)) {
+      return pointBuffer.getIndex(point2) == 0;
 
     }
     if (isSplittingByMsEnabled()) {
-      double difference = point2.getPoint().getCoordinate().getZ() - point1.getPoint().getCoordinate().getZ();
+      double difference = pointBuffer.getZ(point2) - pointBuffer.getZ(point1);
       if (difference > msSplit) {
         return true;
       }
     }
     if (isSplittingByNmEnabled()) {
-      // Calculate distance between two points by retrieving distance in meters and converting to nautical miles
-      double distance = (getDistance(point1.getPoint().getCoordinate(), point2.getPoint().getCoordinate()) / 1852);
-      return distance > nmSplit;
+      // Compare the distance in meters against the split distance converted from nautical miles
+      return distanceCalculator.isFartherThan(
+          pointBuffer.getX(point1), pointBuffer.getY(point1), pointBuffer.getX(point2), pointBuffer.getY(point2), nmSplit * 1852D);
     }
     return false;
   }
@@ -500,18 +601,12 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
   }
 
 
-  private void writeCoordinate(Coordinate coordinate) {
-    List<Double> args = new ArrayList<>(4);
-    args.add(coordinate.getX());
-    args.add(coordinate.getY());
-
-    if (!Double.isNaN(coordinate.getZ())) {
-      args.add(coordinate.getZ());
-      if (!Double.isNaN(coordinate.getM())) {
-        args.add(coordinate.getM());
-      }
+  private void writeCoordinate(PointBuffer buffer, int i) {
+    if (Double.isNaN(buffer.getZ(i))) {
+      lineWriter.writeCoordinate(buffer.getX(i), buffer.getY(i));
+    } else {
+      lineWriter.writeCoordinate(buffer.getX(i), buffer.getY(i), buffer.getZ(i));
     }
-    lineWriter.writeCoordinate(args);
   }
 
   private void incrementSimplifiedPointCount() {
@@ -524,21 +619,17 @@ public class BaseRowListener<T extends DataRow> implements RowListener<T> {
   }
 
   private double round(double value) {
-    return Double.parseDouble(format.format(value));
+    return precision.round(value);
   }
 
-  private Coordinate toCoordinate(T row) {
-    if (row.getTimestamp() == null) {
-      return new Coordinate(round(row.getLon()), round(row.getLat()));
+  private int simplify(int size) {
+    if (simplificationMode == SimplificationMode.ONLINE) {
+      return SleeveSimplifier.simplify(segmentX, segmentY, size, tolerance, keptIndices);
     }
-
-    else {
-      return new Coordinate(round(row.getLon()), round(row.getLat()), row.getTimestamp().toEpochMilli());
+    if (budget) {
+      return geometrySimplifier.getSimplificationAlgorithm().simplify(segmentX, segmentY, size, tolerance, keptIndices);
     }
-  }
-
-  private LineString simplify(List<Coordinate> coordinates) {
-    return geometrySimplifier.simplifyGeometry(coordinates);
+    return geometrySimplifier.simplify(segmentX, segmentY, size, keptIndices);
   }
 
 }
@@ -16,6 +16,8 @@ public class BaseRowListenerConfiguration<T extends DataRow> {
   private final GeometryFactory geometryFactory;
   private final int geoJsonPrecision;
   private final boolean retainPoints;
+  private final DistanceCalculator distanceCalculator;
+  private final SimplificationMode simplificationMode;
 
   private BaseRowListenerConfiguration(Builder<T> builder) {
 
@@ -30,6 +32,8 @@ public class BaseRowListenerConfiguration<T extends DataRow> {
     geometryFactory = builder.geometryFactory;
     geoJsonPrecision = builder.geoJsonPrecision;
     retainPoints = builder.retainPoints;
+    distanceCalculator = builder.distanceCalculator;
+    simplificationMode = builder.simplificationMode;
   }
 
   public long getNmSplit() {
@@ -76,6 +80,14 @@ public class BaseRowListenerConfiguration<T extends DataRow> {
     return retainPoints;
   }
 
+  public DistanceCalculator getDistanceCalculator() {
+    return distanceCalculator;
+  }
+
+  public SimplificationMode getSimplificationMode() {
+    return simplificationMode;
+  }
+
   public static <T extends DataRow> Builder<T> configure() {
     return new Builder<>();
   }
@@ -97,6 +109,8 @@ public class BaseRowListenerConfiguration<T extends DataRow> {
     private GeometryFactory geometryFactory;
     private int geoJsonPrecision;
     private boolean retainPoints = false;
+    private DistanceCalculator distanceCalculator = new BoundedDistanceCalculator(new GeodeticDistanceCalculator());
+    private SimplificationMode simplificationMode = SimplificationMode.BATCH;
 
     private Builder() {
 
@@ -114,6 +128,8 @@ public class BaseRowListenerConfiguration<T extends DataRow> {
       geometryFactory = properties.geometryFactory;
       geoJsonPrecision = properties.geoJsonPrecision;
       retainPoints = properties.retainPoints;
+      distanceCalculator = properties.distanceCalculator;
+      simplificationMode = properties.simplificationMode;
     }
 
     public Builder<T> withNmSplit(Long nmSplit) {
@@ -173,6 +189,16 @@ public class BaseRowListenerConfiguration<T extends DataRow> {
       return this;
     }
 
+    public Builder<T> withDistanceCalculator(DistanceCalculator distanceCalculator) {
+      this.distanceCalculator = distanceCalculator;
+      return this;
+    }
+
+    public Builder<T> withSimplificationMode(SimplificationMode simplificationMode) {
+      this.simplificationMode = simplificationMode;
+      return this;
+    }
+
     public BaseRowListenerConfiguration<T> build() {
       return new BaseRowListenerConfiguration<>(this);
     }
@@ -0,0 +1,17 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+/**
+ * Distance in meters between two lon/lat points in degrees. Implementations must be safe to share between threads.
+ */
+public interface DistanceCalculator {
+
+  double getDistance(double lon1, double lat1, double lon2, double lat2);
+
+  /**
+   * Same as {@code getDistance(lon1, lat1, lon2, lat2) > meters}, but implementations may answer without computing
+   * the exact distance.
+   */
+  default boolean isFartherThan(double lon1, double lat1, double lon2, double lat2, double meters) {
+    return getDistance(lon1, lat1, lon2, lat2) > meters;
+  }
+}
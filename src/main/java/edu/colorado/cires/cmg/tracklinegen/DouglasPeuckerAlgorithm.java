@@ -0,0 +1,132 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.Arrays;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+
+/**
+ * The JTS {@link DouglasPeuckerSimplifier}. This is the default algorithm.
+ * <p>
+ * The primitive entry points give the same result as JTS with the same arithmetic, but use an explicit stack instead
+ * of recursion and mark kept points in a bitmap. The stack and bitmap are kept per thread, so apart from growing them
+ * a call allocates nothing.
+ */
+public class DouglasPeuckerAlgorithm implements SimplificationAlgorithm {
+
+  private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+  private final GeometryFactory geometryFactory = GeometryFactoryFactory.create();
+
+  @Override
+  public Coordinate[] simplify(Coordinate[] coordinates, double tolerance) {
+    Geometry geometry = geometryFactory.createLineString(coordinates);
+    return DouglasPeuckerSimplifier.simplify(geometry, tolerance).getCoordinates();
+  }
+
+  @Override
+  public int simplify(double[] x, double[] y, int size, double tolerance, int[] kept) {
+    return WORKSPACE.get().simplify(x, 0, y, 0, 1, size, tolerance, kept);
+  }
+
+  /**
+   * {@link #simplify(double[], double[], int, double, int[])} for points packed as {@code x0, y0, x1, y1, ...}.
+   */
+  public int simplifyPacked(double[] xy, int size, double tolerance, int[] kept) {
+    return WORKSPACE.get().simplify(xy, 0, xy, 1, 2, size, tolerance, kept);
+  }
+
+  private static final class Workspace {
+
+    private int[] stack = new int[64];
+    private long[] keep = new long[16];
+
+    private int simplify(double[] xs, int xOffset, double[] ys, int yOffset, int stride, int size, double tolerance, int[] kept) {
+      if (size == 0) {
+        return 0;
+      }
+      int words = (size + 63) >>> 6;
+      if (keep.length < words) {
+        keep = new long[Math.max(words, keep.length * 2)];
+      } else {
+        Arrays.fill(keep, 0, words, 0L);
+      }
+      mark(0);
+      mark(size - 1);
+
+      int stackSize = 0;
+      stack[stackSize++] = 0;
+      stack[stackSize++] = size - 1;
+      while (stackSize > 0) {
+        int j = stack[--stackSize];
+        int i = stack[--stackSize];
+        if (i + 1 >= j) {
+          continue;
+        }
+        double ax = xs[xOffset + i * stride];
+        double ay = ys[yOffset + i * stride];
+        double bx = xs[xOffset + j * stride];
+        double by = ys[yOffset + j * stride];
+        double maxDistance = -1.0;
+        int maxIndex = i;
+        for (int k = i + 1; k < j; k++) {
+          double distance = pointToSegment(xs[xOffset + k * stride], ys[yOffset + k * stride], ax, ay, bx, by);
+          if (distance > maxDistance) {
+            maxDistance = distance;
+            maxIndex = k;
+          }
+        }
+        if (!(maxDistance > tolerance)) {
+          continue;
+        }
+        mark(maxIndex);
+        if (stackSize + 4 > stack.length) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[stackSize++] = maxIndex;
+        stack[stackSize++] = j;
+        stack[stackSize++] = i;
+        stack[stackSize++] = maxIndex;
+      }
+
+      int count = 0;
+      for (int word = 0; word < words; word++) {
+        long bits = keep[word];
+        while (bits != 0L) {
+          kept[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1L;
+        }
+      }
+      return count;
+    }
+
+    private void mark(int index) {
+      keep[index >>> 6] |= 1L << index;
+    }
+  }
+
+  /**
+   * JTS Distance.pointToSegment.
+   */
+  static double pointToSegment(double px, double py, double ax, double ay, double bx, double by) {
+    if (equal(ax, bx) && equal(ay, by)) {
+      return Math.hypot(px - ax, py - ay);
+    }
+    double len2 = (bx - ax) * (bx - ax) + (by - ay) * (by - ay);
+    double r = ((px - ax) * (bx - ax) + (py - ay) * (by - ay)) / len2;
+    if (r <= 0.0) {
+      return Math.hypot(px - ax, py - ay);
+    }
+    if (r >= 1.0) {
+      return Math.hypot(px - bx, py - by);
+    }
+    double s = ((ay - py) * (bx - ax) - (ax - px) * (by - ay)) / len2;
+    return Math.abs(s) * Math.sqrt(len2);
+  }
+
+  private static boolean equal(double a, double b) {
+    // a == b, including -0.0 == 0.0 and NaN != NaN
+    return !(a < b || a > b || Double.isNaN(a) || Double.isNaN(b));
+  }
+}
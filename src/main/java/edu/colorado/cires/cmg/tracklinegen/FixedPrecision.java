@@ -0,0 +1,159 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Rounds and formats doubles to a fixed number of fraction digits with the same result as a {@code "0.###"}
+ * {@link DecimalFormat} (HALF_EVEN on the exact binary value), without creating any objects. Values that cannot be
+ * handled arithmetically (non-finite, very large and inexact ties) fall back to the DecimalFormat.
+ */
+public final class FixedPrecision {
+
+  /**
+   * Buffer size that fits anything {@link #format(double, char[], int)} writes.
+   */
+  public static final int MAX_FORMATTED_LENGTH = 32;
+
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final long[] LONG_POWERS_OF_TEN = {
+      1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L, 10000000000L,
+      100000000000L, 1000000000000L, 10000000000000L, 100000000000000L, 1000000000000000L, 10000000000000000L
+  };
+
+  // below 2^52 the fraction of a scaled value is exact and 0.5 is a multiple of its ulp
+  private static final double MAX_SCALED = 0x1p52;
+
+  // below 2^53 every integer is a double and prints as itself
+  private static final double MAX_INTEGER = 0x1p53;
+
+  private static final long FALLBACK = -1L;
+
+  private final int precision;
+  private final double scale;
+  private final String pattern;
+
+  public FixedPrecision(int precision) {
+    this.precision = Math.max(precision, 0);
+    scale = this.precision < POWERS_OF_TEN.length ? POWERS_OF_TEN[this.precision] : Double.NaN;
+    StringBuilder sb = new StringBuilder("0.");
+    for (int i = 1; i <= precision; i++) {
+      sb.append("#");
+    }
+    pattern = sb.toString();
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * A new DecimalFormat equivalent to this instance. DecimalFormat is not thread safe, so it is never shared.
+   */
+  public DecimalFormat createDecimalFormat() {
+    return new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+  }
+
+  public double round(double value) {
+    double abs = Math.abs(value);
+    if (isInteger(abs)) {
+      return value;
+    }
+    long n = roundScaled(abs);
+    if (n == FALLBACK) {
+      return Double.parseDouble(createDecimalFormat().format(value));
+    }
+    // DecimalFormat keeps the sign of negative values that round to zero ("-0")
+    return Math.copySign(n / scale, value);
+  }
+
+  /**
+   * Writes the text DecimalFormat would produce for {@code value} to {@code buffer}, which needs
+   * {@link #MAX_FORMATTED_LENGTH} free chars from {@code offset}.
+   *
+   * @return the number of chars written, or -1 if the value must be formatted with {@link #createDecimalFormat()}
+   */
+  public int format(double value, char[] buffer, int offset) {
+    double abs = Math.abs(value);
+    int pos = offset;
+    if (isInteger(abs)) {
+      if (Math.copySign(1D, value) < 0D) {
+        buffer[pos++] = '-';
+      }
+      return writeSeparator(writeDigits((long) abs, buffer, pos, 0), buffer) - offset;
+    }
+    long n = roundScaled(abs);
+    if (n == FALLBACK || precision >= LONG_POWERS_OF_TEN.length) {
+      return -1;
+    }
+    if (Math.copySign(1D, value) < 0D) {
+      buffer[pos++] = '-';
+    }
+    long unit = LONG_POWERS_OF_TEN[precision];
+    pos = writeDigits(n / unit, buffer, pos, 0);
+    long fraction = n % unit;
+    if (fraction == 0L) {
+      pos = writeSeparator(pos, buffer);
+    } else {
+      int digits = precision;
+      while (fraction % 10L == 0L) {
+        fraction /= 10L;
+        digits--;
+      }
+      buffer[pos++] = '.';
+      pos = writeDigits(fraction, buffer, pos, digits);
+    }
+    return pos - offset;
+  }
+
+  private static boolean isInteger(double abs) {
+    return abs < MAX_INTEGER && Double.compare(abs, Math.rint(abs)) == 0;
+  }
+
+  private long roundScaled(double abs) {
+    double scaled = abs * scale;
+    if (!(scaled < MAX_SCALED)) {
+      // NaN, infinite, too large or too many digits
+      return FALLBACK;
+    }
+    double n = Math.floor(scaled);
+    int tie = Double.compare(scaled - n, 0.5);
+    if (tie == 0 && Double.compare(Math.fma(abs, scale, -scaled), 0D) != 0) {
+      // the value is within an ulp of a tie, so its shortest decimal form is usually the tie itself and DecimalFormat
+      // decides from how that form was rounded rather than from the binary value
+      return FALLBACK;
+    }
+    long rounded = (long) n;
+    if (tie > 0 || (tie == 0 && (rounded & 1L) != 0L)) {
+      rounded++;
+    }
+    return rounded;
+  }
+
+  private int writeSeparator(int pos, char[] buffer) {
+    // the "0." pattern of precision 0 always shows the decimal separator
+    if (precision == 0) {
+      buffer[pos++] = '.';
+    }
+    return pos;
+  }
+
+  private static int writeDigits(long value, char[] buffer, int pos, int minDigits) {
+    int digits = 1;
+    for (long v = value / 10L; v != 0L; v /= 10L) {
+      digits++;
+    }
+    digits = Math.max(digits, minDigits);
+    int end = pos + digits;
+    for (int i = end - 1; i >= pos; i--) {
+      buffer[i] = (char) ('0' + value % 10L);
+      value /= 10L;
+    }
+    return end;
+  }
+}
@@ -0,0 +1,396 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the rows of a cruise made of many FNV files, one file after the other, with a {@link FnvRowReader} per file.
+ * While a file is read, the next {@code prefetch} files are opened and their first mapped region read on background
+ * threads, so that opening a file on slow storage does not hold up processing.
+ * <p>
+ * The files are either given in order, or discovered in a directory and ordered by name, as FNV file names follow time.
+ * Discovery opens no file; instead a discovered file whose first row is earlier than the first row of the file before it
+ * fails with an {@link IllegalStateException} when it is reached. Rows that go back in time are skipped across file
+ * boundaries, as within a file. A {@link FileListener} learns when a file
+ * starts and ends, with the position of its rows among all rows returned.
+ */
+public final class FnvCruiseReader implements Iterator<PrimitiveDataRow>, Closeable {
+
+  public static final int DEFAULT_PREFETCH = 2;
+
+  private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+  /**
+   * Called on the reading thread as the reader moves from one file to the next. Rows are processed after they are read,
+   * so use the row positions rather than the time of the call to tell which file a processed row came from.
+   */
+  public interface FileListener {
+
+    /**
+     * @param file the file
+     * @param firstRow the position of the first row of the file among all rows returned
+     */
+    void fileStarted(Path file, long firstRow);
+
+    /**
+     * @param file the file
+     * @param rows the number of rows returned from the file
+     */
+    default void fileFinished(Path file, long rows) {
+
+    }
+  }
+
+  private final List<Path> files;
+  private final Function<Path, FnvRowReader> opener;
+  private final boolean skipOutOfOrder;
+  private final boolean checkFileOrder;
+  private final FileListener fileListener;
+  private final ExecutorService executor;
+  private final Deque<Prefetch> prefetched = new ArrayDeque<>();
+  private final int prefetch;
+
+  private int nextFile;
+  private Path currentFile;
+  private FnvRowReader current;
+  private long rowCount;
+  private long fileRowCount;
+  private long lastMillis = Long.MIN_VALUE;
+  private PrimitiveDataRow next;
+  private boolean closed;
+  private boolean fileStarting;
+  private Path previousFile;
+  private long previousFirstMillis = Long.MIN_VALUE;
+
+  private FnvCruiseReader(List<Path> files, Function<Path, FnvRowReader> opener, boolean skipOutOfOrder, boolean checkFileOrder,
+      FileListener fileListener, int prefetch) {
+    this.files = files;
+    this.opener = opener;
+    this.skipOutOfOrder = skipOutOfOrder;
+    this.checkFileOrder = checkFileOrder;
+    this.fileListener = fileListener;
+    this.prefetch = prefetch;
+    int poolNumber = POOL_NUMBER.incrementAndGet();
+    AtomicInteger threadNumber = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(Math.max(prefetch, 1), runnable -> {
+      Thread thread = new Thread(runnable, "trackline-prefetch-" + poolNumber + "-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public List<Path> getFiles() {
+    return files;
+  }
+
+  /**
+   * @return false once there are no more rows, or the reader is closed
+   */
+  @Override
+  public boolean hasNext() {
+    if (closed) {
+      return false;
+    }
+    while (next == null) {
+      if (current == null || !current.hasNext()) {
+        if (!nextFile()) {
+          return false;
+        }
+        continue;
+      }
+      PrimitiveDataRow row = current.next();
+      if (fileStarting) {
+        fileStarting = false;
+        checkFileOrder(row);
+      }
+      if (!skipOutOfOrder || row.epochMillis() >= lastMillis) {
+        next = row;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public PrimitiveDataRow next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    PrimitiveDataRow row = next;
+    next = null;
+    lastMillis = row.epochMillis();
+    rowCount++;
+    fileRowCount++;
+    return row;
+  }
+
+  private void checkFileOrder(PrimitiveDataRow firstRow) {
+    if (checkFileOrder && firstRow.epochMillis() < previousFirstMillis) {
+      throw new IllegalStateException("File " + currentFile + " starts before " + previousFile
+          + ", file names are not in time order, list the files with withFiles instead");
+    }
+    previousFile = currentFile;
+    previousFirstMillis = firstRow.epochMillis();
+  }
+
+  private boolean nextFile() {
+    if (current != null) {
+      current.close();
+      current = null;
+      if (fileListener != null) {
+        fileListener.fileFinished(currentFile, fileRowCount);
+      }
+    }
+    while (nextFile < files.size() && prefetched.size() <= prefetch) {
+      Prefetch file = new Prefetch(files.get(nextFile++), opener);
+      prefetched.addLast(file);
+      executor.execute(file);
+    }
+    if (prefetched.isEmpty()) {
+      return false;
+    }
+    Prefetch file = prefetched.removeFirst();
+    currentFile = file.file;
+    current = file.take();
+    fileRowCount = 0;
+    fileStarting = true;
+    if (fileListener != null) {
+      fileListener.fileStarted(currentFile, rowCount);
+    }
+    return true;
+  }
+
+  /**
+   * Closes the current file and any prefetched ones.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    // interrupts opening, a file opened anyway is closed by its task
+    executor.shutdownNow();
+    try {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+    } finally {
+      prefetched.forEach(Prefetch::discard);
+      prefetched.clear();
+    }
+  }
+
+  public static Builder configure() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private List<Path> files;
+    private Path directory;
+    private Predicate<Path> fileFilter = file -> file.getFileName().toString().endsWith(".fnv");
+    private int prefetch = DEFAULT_PREFETCH;
+    private int mapSize = FnvRowReader.DEFAULT_MAP_SIZE;
+    private boolean dateTime;
+    private boolean exactEpochSeconds;
+    private boolean skipOutOfOrder = true;
+    private boolean reuseRow;
+    private FileListener fileListener;
+
+    private Builder() {
+
+    }
+
+    /**
+     * The files to read, in order.
+     */
+    public Builder withFiles(List<Path> files) {
+      this.files = files;
+      return this;
+    }
+
+    /**
+     * A directory whose files, selected by the file filter, are read in the order of their names.
+     */
+    public Builder withDirectory(Path directory) {
+      this.directory = directory;
+      return this;
+    }
+
+    public Builder withFileFilter(Predicate<Path> fileFilter) {
+      this.fileFilter = fileFilter;
+      return this;
+    }
+
+    /**
+     * The number of files opened ahead of the one being read.
+     */
+    public Builder withPrefetch(int prefetch) {
+      this.prefetch = prefetch;
+      return this;
+    }
+
+    public Builder withMapSize(int mapSize) {
+      this.mapSize = mapSize;
+      return this;
+    }
+
+    public Builder withDateTime(boolean dateTime) {
+      this.dateTime = dateTime;
+      return this;
+    }
+
+    /**
+     * See {@link FnvRowReader.Builder#withExactEpochSeconds(boolean)}.
+     */
+    public Builder withExactEpochSeconds(boolean exactEpochSeconds) {
+      this.exactEpochSeconds = exactEpochSeconds;
+      return this;
+    }
+
+    public Builder withSkipOutOfOrder(boolean skipOutOfOrder) {
+      this.skipOutOfOrder = skipOutOfOrder;
+      return this;
+    }
+
+    public Builder withReuseRow(boolean reuseRow) {
+      this.reuseRow = reuseRow;
+      return this;
+    }
+
+    public Builder withFileListener(FileListener fileListener) {
+      this.fileListener = fileListener;
+      return this;
+    }
+
+    private Function<Path, FnvRowReader> opener(int mapSize) {
+      boolean dateTime = this.dateTime;
+      boolean exactEpochSeconds = this.exactEpochSeconds;
+      boolean reuseRow = this.reuseRow;
+      // rows out of order are skipped by the cruise reader, across files
+      return file -> FnvRowReader.configure()
+          .withFile(file)
+          .withMapSize(mapSize)
+          .withDateTime(dateTime)
+          .withExactEpochSeconds(exactEpochSeconds)
+          .withSkipOutOfOrder(false)
+          .withReuseRow(reuseRow)
+          .build();
+    }
+
+    private List<Path> discover() {
+      try (Stream<Path> stream = Files.list(directory)) {
+        // no file is opened here, on slow storage that is left to the prefetch
+        return stream.filter(Files::isRegularFile)
+            .filter(fileFilter)
+            .sorted(Comparator.comparing((Path file) -> file.getFileName().toString()))
+            .collect(Collectors.toList());
+      } catch (IOException e) {
+        throw new RuntimeException("Unable to list files: " + directory, e);
+      }
+    }
+
+    public FnvCruiseReader build() {
+      List<Path> ordered = files != null ? new ArrayList<>(files) : discover();
+      return new FnvCruiseReader(Collections.unmodifiableList(ordered), opener(mapSize), skipOutOfOrder, files == null, fileListener,
+          Math.max(prefetch, 0));
+    }
+  }
+
+  /**
+   * A file being opened ahead of time. Whoever comes last, the task or {@link #discard()}, closes a reader nobody will
+   * read.
+   */
+  private static final class Prefetch implements Runnable {
+
+    private final Path file;
+    private final Function<Path, FnvRowReader> opener;
+    private FnvRowReader reader;
+    private Throwable failure;
+    private boolean done;
+    private boolean discarded;
+
+    private Prefetch(Path file, Function<Path, FnvRowReader> opener) {
+      this.file = file;
+      this.opener = opener;
+    }
+
+    @Override
+    public void run() {
+      FnvRowReader opened = null;
+      Throwable error = null;
+      try {
+        opened = opener.apply(file);
+        opened.load();
+      } catch (RuntimeException | Error e) {
+        error = e;
+        if (opened != null) {
+          opened.close();
+          opened = null;
+        }
+      }
+      synchronized (this) {
+        if (!discarded) {
+          reader = opened;
+          failure = error;
+          done = true;
+          notifyAll();
+          return;
+        }
+      }
+      if (opened != null) {
+        opened.close();
+      }
+    }
+
+    private synchronized FnvRowReader take() {
+      while (!done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while opening file: " + file, e);
+        }
+      }
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      FnvRowReader taken = reader;
+      reader = null;
+      return taken;
+    }
+
+    private void discard() {
+      FnvRowReader opened;
+      synchronized (this) {
+        discarded = true;
+        opened = reader;
+        reader = null;
+      }
+      if (opened != null) {
+        opened.close();
+      }
+    }
+  }
+}
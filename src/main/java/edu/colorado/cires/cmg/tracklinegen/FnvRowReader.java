@@ -0,0 +1,334 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of an FNV navigation file: tab separated lines starting with a {@code yyyy MM dd HH mm ss.SSSSSS}
+ * timestamp, the timestamp in epoch seconds, the longitude and the latitude. The file is memory mapped and the columns
+ * are parsed from the bytes, without a String per line. Further columns are ignored, as are blank lines.
+ * <p>
+ * By default the timestamp comes from the epoch seconds column, converted as {@code (long) (seconds * 1000D)} on the
+ * parsed double, and rows that go back in time are skipped. Each row is a
+ * new object unless {@link Builder#withReuseRow(boolean)} is set, in which case the same {@link MutableDataRow} is
+ * returned every time, see {@link TracklineProcessor#getRowBatchSize()}.
+ */
+public final class FnvRowReader implements Iterator<PrimitiveDataRow>, Closeable {
+
+  public static final int DEFAULT_MAP_SIZE = 64 * 1024 * 1024;
+
+  // 2^53, below which a decimal mantissa is an exact double
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    POWERS_OF_TEN[0] = 1D;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10D;
+    }
+  }
+
+  private final Path file;
+  private final FileChannel channel;
+  private final long fileSize;
+  private final int mapSize;
+  private final boolean dateTime;
+  private final boolean exactEpochSeconds;
+  private final boolean skipOutOfOrder;
+  private final MutableDataRow reusedRow;
+  private final NavTimestampParser timestampParser = new NavTimestampParser();
+
+  private MappedByteBuffer buffer;
+  private long bufferStart;
+  private int position;
+  private long lineNumber;
+  private int cursor;
+
+  private boolean ready;
+  private boolean hasRow;
+  private long lastMillis = Long.MIN_VALUE;
+  private long millis;
+  private double lon;
+  private double lat;
+
+  private FnvRowReader(Path file, int mapSize, boolean dateTime, boolean exactEpochSeconds, boolean skipOutOfOrder,
+      boolean reuseRow) {
+    this.file = file;
+    this.mapSize = mapSize;
+    this.dateTime = dateTime;
+    this.exactEpochSeconds = exactEpochSeconds;
+    this.skipOutOfOrder = skipOutOfOrder;
+    this.reusedRow = reuseRow ? new MutableDataRow() : null;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to open file: " + file, e);
+    }
+    try {
+      fileSize = channel.size();
+      if (fileSize > 0) {
+        map(0L);
+      }
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw new RuntimeException("Unable to read file: " + file, e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (!ready) {
+      do {
+        hasRow = readLine();
+      } while (hasRow && skipOutOfOrder && millis < lastMillis);
+      ready = true;
+    }
+    return hasRow;
+  }
+
+  @Override
+  public PrimitiveDataRow next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    ready = false;
+    lastMillis = millis;
+    MutableDataRow row = reusedRow == null ? new MutableDataRow() : reusedRow;
+    return row.set(millis, lon, lat);
+  }
+
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to close file: " + file, e);
+    }
+  }
+
+  /**
+   * Reads the first mapped region into memory, so that a reader opened ahead of time does not wait for storage later.
+   */
+  void load() {
+    if (buffer != null) {
+      buffer.load();
+    }
+  }
+
+  private void map(long start) throws IOException {
+    buffer = channel.map(MapMode.READ_ONLY, start, Math.min(mapSize, fileSize - start));
+    bufferStart = start;
+    position = 0;
+  }
+
+  private boolean readLine() {
+    while (bufferStart + position < fileSize) {
+      int limit = buffer.limit();
+      int end = position;
+      while (end < limit && buffer.get(end) != '\n') {
+        end++;
+      }
+      if (end == limit && bufferStart + limit < fileSize) {
+        // the line continues past the mapped region
+        if (position == 0) {
+          throw new IllegalStateException("Line " + (lineNumber + 1) + " of " + file + " is longer than " + mapSize + " bytes");
+        }
+        try {
+          map(bufferStart + position);
+        } catch (IOException e) {
+          throw new RuntimeException("Unable to read file: " + file, e);
+        }
+        continue;
+      }
+      int start = position;
+      int lineEnd = end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+      position = Math.min(end + 1, limit);
+      lineNumber++;
+      if (!isBlank(start, lineEnd)) {
+        parseLine(start, lineEnd);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isBlank(int start, int end) {
+    for (int i = start; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b != ' ' && b != '\t') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int nextTab(int from, int end) {
+    int i = from;
+    while (i < end && buffer.get(i) != '\t') {
+      i++;
+    }
+    if (i == end) {
+      throw invalid(null);
+    }
+    return i;
+  }
+
+  private void parseLine(int start, int end) {
+    int tab1 = nextTab(start, end);
+    int tab2 = nextTab(tab1 + 1, end);
+    int tab3 = nextTab(tab2 + 1, end);
+    int tab4 = tab3 + 1;
+    while (tab4 < end && buffer.get(tab4) != '\t') {
+      tab4++;
+    }
+    try {
+      if (dateTime) {
+        millis = timestampParser.parseFnv(buffer, start, tab1);
+      } else if (exactEpochSeconds) {
+        millis = timestampParser.parseEpochSeconds(buffer, tab1 + 1, tab2);
+      } else {
+        // the same conversion as (long) (Double.parseDouble(seconds) * 1000D)
+        millis = (long) (parseDouble(tab1 + 1, tab2) * 1000D);
+      }
+      lon = parseDouble(tab2 + 1, tab3);
+      lat = parseDouble(tab3 + 1, tab4);
+    } catch (IllegalArgumentException e) {
+      throw invalid(e);
+    }
+  }
+
+  private IllegalStateException invalid(Exception cause) {
+    return new IllegalStateException("Invalid row at line " + lineNumber + " of " + file, cause);
+  }
+
+  private void skipSpaces(int end) {
+    while (cursor < end && buffer.get(cursor) == ' ') {
+      cursor++;
+    }
+  }
+
+  /**
+   * Parses a plain decimal such as {@code -179.0576273296}. With fewer than 16 significant digits the result is a
+   * single correctly rounded division, the same double as {@link Double#parseDouble(String)}; anything else is handed
+   * to {@link Double#parseDouble(String)}.
+   */
+  private double parseDouble(int start, int end) {
+    cursor = start;
+    skipSpaces(end);
+    int numberStart = cursor;
+    boolean negative = false;
+    if (cursor < end && (buffer.get(cursor) == '-' || buffer.get(cursor) == '+')) {
+      negative = buffer.get(cursor) == '-';
+      cursor++;
+    }
+    long mantissa = 0L;
+    int digits = 0;
+    int scale = 0;
+    boolean point = false;
+    boolean exact = true;
+    while (cursor < end) {
+      byte b = buffer.get(cursor);
+      if (b >= '0' && b <= '9') {
+        if (mantissa < MAX_EXACT_MANTISSA / 10L) {
+          mantissa = mantissa * 10L + (b - '0');
+        } else {
+          exact = false;
+        }
+        digits++;
+        if (point) {
+          scale++;
+        }
+      } else if (b == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+      cursor++;
+    }
+    skipSpaces(end);
+    if (cursor != end || digits == 0) {
+      exact = false;
+    }
+    if (exact && scale < POWERS_OF_TEN.length) {
+      double value = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+      return negative ? -value : value;
+    }
+    byte[] bytes = new byte[end - numberStart];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(numberStart + i);
+    }
+    return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII).trim());
+  }
+
+  public static Builder configure() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private Path file;
+    private int mapSize = DEFAULT_MAP_SIZE;
+    private boolean dateTime;
+    private boolean exactEpochSeconds;
+    private boolean skipOutOfOrder = true;
+    private boolean reuseRow;
+
+    private Builder() {
+
+    }
+
+    public Builder withFile(Path file) {
+      this.file = file;
+      return this;
+    }
+
+    /**
+     * The most bytes mapped at a time, which also bounds the length of a line.
+     */
+    public Builder withMapSize(int mapSize) {
+      this.mapSize = mapSize;
+      return this;
+    }
+
+    /**
+     * Reads the timestamp from the {@code yyyy MM dd HH mm ss.SSSSSS} column instead of the epoch seconds column.
+     */
+    public Builder withDateTime(boolean dateTime) {
+      this.dateTime = dateTime;
+      return this;
+    }
+
+    /**
+     * Truncates the epoch seconds column to the millisecond from its decimal digits, with
+     * {@link NavTimestampParser#parseEpochSeconds(CharSequence)}, instead of casting the parsed double times 1000. The
+     * cast is a millisecond low for about 1% of timestamps with a millisecond fraction, such as
+     * {@code 1096500408.554000}, but is the default as it is what earlier versions produced.
+     */
+    public Builder withExactEpochSeconds(boolean exactEpochSeconds) {
+      this.exactEpochSeconds = exactEpochSeconds;
+      return this;
+    }
+
+    public Builder withSkipOutOfOrder(boolean skipOutOfOrder) {
+      this.skipOutOfOrder = skipOutOfOrder;
+      return this;
+    }
+
+    public Builder withReuseRow(boolean reuseRow) {
+      this.reuseRow = reuseRow;
+      return this;
+    }
+
+    public FnvRowReader build() {
+      return new FnvRowReader(file, Math.max(mapSize, 1), dateTime, exactEpochSeconds, skipOutOfOrder, reuseRow);
+    }
+  }
+}
@@ -1,57 +1,33 @@
 package edu.colorado.cires.cmg.tracklinegen;
 
-import static edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils.getDistance;
-import static edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils.getSpeed;
-import static edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils.splitAm;
-
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.StreamReadFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.Writer;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.CoordinateXYZM;
-import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.geom.GeometryFactory;
 
 public class GeoJsonMultiLineParser {
 
-  private static final TypeReference<List<Double>> LIST_DOUBLE = new TypeReference<List<Double>>() {
-  };
-
   private final ObjectMapper objectMapper;
-  private final GeometryFactory geometryFactory = GeometryFactoryFactory.create();
-  private final DecimalFormat format;
-  private final double maxAllowedSpeedKnts;
-
-  private Envelope westBoundingBox = new Envelope();
-  private Envelope eastBoundingBox = new Envelope();
-  private boolean crossedAntimeridian = false;
-  private double distanceM = 0;
-  private long count = 0;
-  private Double avgSpeedM = 0.0;
+  private final AntimeridianLineSplitter splitter;
+  private final double[] coordinateValues = new double[3];
+
   private GeometryProperties properties = null;
-  private ArrayList<Double> bbox = null;
-  private Coordinate lastCoordinate = null;
+  private List<Double> bbox = null;
 
   public GeoJsonMultiLineParser(ObjectMapper objectMapper, int precision, double maxAllowedSpeedKnts) {
+    this(objectMapper, precision, maxAllowedSpeedKnts, new GeodeticDistanceCalculator());
+  }
+
+  public GeoJsonMultiLineParser(ObjectMapper objectMapper, int precision, double maxAllowedSpeedKnts, DistanceCalculator distanceCalculator) {
     this.objectMapper = objectMapper;
-    StringBuilder sb = new StringBuilder("0.");
-    for (int i = 1; i <= precision; i++) {
-      sb.append("#");
-    }
-    format = new DecimalFormat(sb.toString(), DecimalFormatSymbols.getInstance(Locale.ENGLISH));
-    this.maxAllowedSpeedKnts = maxAllowedSpeedKnts;
+    splitter = new AntimeridianLineSplitter(precision, maxAllowedSpeedKnts, distanceCalculator);
   }
 
 
@@ -91,7 +67,17 @@ public class GeoJsonMultiLineParser {
 
   public void parse(JsonParser jsonParser, JsonGenerator jsonGenerator, Writer wktWriter, Map<String, Object> additionalProperties)
       throws IOException, ValidationException {
+    parse(jsonParser, jsonGenerator, new WktGeometryEncoder(wktWriter), additionalProperties);
+  }
 
+  /**
+   * Writes the geometry to {@code geometryEncoder} instead of as WKT. The encoder is flushed at the end.
+   */
+  public void parse(JsonParser jsonParser, JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder,
+      Map<String, Object> additionalProperties) throws IOException, ValidationException {
+
+    // coordinates are read as doubles, which the fast parser does exactly as well
+    jsonParser.enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER.mappedFeature());
     jsonParser.nextToken();
     jsonGenerator.copyCurrentEvent(jsonParser); //start object
     if (jsonParser.getCurrentToken() != JsonToken.START_OBJECT) {
@@ -106,7 +92,7 @@ public class GeoJsonMultiLineParser {
         verifyFeatureType(jsonParser, jsonGenerator, "Feature");
       } else if ("geometry".equals(fieldName)) {
         jsonGenerator.copyCurrentEvent(jsonParser);
-        processGeometry(jsonParser, jsonGenerator, wktWriter);
+        processGeometry(jsonParser, jsonGenerator, geometryEncoder);
       } else if ("properties".equals(fieldName)) {
         jsonParser.nextToken();
         properties = objectMapper.readValue(jsonParser, GeometryProperties.class);
@@ -126,8 +112,10 @@ public class GeoJsonMultiLineParser {
     }
 
     GeometryProperties.Builder propertiesBuilder;
+    double distanceM = splitter.getDistanceM();
+    double avgSpeedM = splitter.getAvgSpeedM();
 
-    if (avgSpeedM.isNaN()) {
+    if (Double.isNaN(avgSpeedM)) {
       propertiesBuilder = GeometryProperties.Builder.configure(properties)
               .withDistanceM(distanceM);
     }
@@ -150,10 +138,11 @@ public class GeoJsonMultiLineParser {
     objectMapper.writeValue(jsonGenerator, properties);
 
     jsonGenerator.writeEndObject();
-
+    geometryEncoder.flush();
   }
 
-  private void processGeometry(JsonParser jsonParser, JsonGenerator jsonGenerator, Writer wktWriter) throws IOException, ValidationException {
+  private void processGeometry(JsonParser jsonParser, JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder)
+      throws IOException, ValidationException {
     if (!jsonParser.getCurrentToken().equals(JsonToken.START_OBJECT)) {
       jsonParser.nextToken();
     }
@@ -169,29 +158,25 @@ public class GeoJsonMultiLineParser {
       if ("type".equals(fieldName)) {
         featureType = verifyFeatureType(jsonParser, jsonGenerator, "MultiLineString", "Point", "GeometryCollection", "MultiPoint");
         if (featureType.equals("MultiLineString")) {
-          wktWriter.write("MULTILINESTRING ");
+          geometryEncoder.startGeometry(GeometryEncoder.Type.MULTI_LINE_STRING);
         } else if (featureType.equals("Point")) {
-          wktWriter.write("POINT ");
+          geometryEncoder.startGeometry(GeometryEncoder.Type.POINT);
         } else if (featureType.equals("MultiPoint")) {
-          wktWriter.write("MULTIPOINT ");
+          geometryEncoder.startGeometry(GeometryEncoder.Type.MULTI_POINT);
         } else {
-          wktWriter.write("GEOMETRYCOLLECTION ");
+          geometryEncoder.startGeometry(GeometryEncoder.Type.GEOMETRY_COLLECTION);
         }
       } else if ("geometries".equals(fieldName)) {
-        wktWriter.write("(");
         JsonToken jsonToken = jsonParser.nextToken();
         jsonGenerator.copyCurrentEvent(jsonParser);
         while (jsonToken != JsonToken.END_ARRAY) {
-          processGeometry(jsonParser, jsonGenerator, wktWriter);
+          processGeometry(jsonParser, jsonGenerator, geometryEncoder);
           jsonToken = jsonParser.nextToken();
-          if (jsonToken != JsonToken.END_ARRAY) {
-            wktWriter.write(",");
-          }
         }
-        wktWriter.write(")");
+        geometryEncoder.endGeometry();
         jsonGenerator.copyCurrentEvent(jsonParser);
       } else if ("coordinates".equals(fieldName)) {
-        processCoordinates(jsonParser, jsonGenerator, wktWriter, featureType);
+        processCoordinates(jsonParser, jsonGenerator, geometryEncoder, featureType);
         writeBBox(jsonGenerator);
       } else {
         copyEverythingElse(jsonParser, jsonGenerator);
@@ -200,187 +185,99 @@ public class GeoJsonMultiLineParser {
     jsonGenerator.copyCurrentEvent(jsonParser); //end object
   }
 
-  private void processCoordinates(JsonParser jsonParser, JsonGenerator jsonGenerator, Writer wktWriter, String type)
+  private void processCoordinates(JsonParser jsonParser, JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder, String type)
       throws IOException, ValidationException {
     if (type.equals("MultiLineString")) {
-      long lineStringCounter = 0;
       jsonParser.nextToken();
       jsonGenerator.copyCurrentEvent(jsonParser); //start array
-      wktWriter.write("("); //start multi line string
       if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
         throw new IllegalArgumentException("coordinates was not an array");
       }
       while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-        if (lineStringCounter > 0) {
-          wktWriter.write(","); //line string separator
-        }
-        processLineString(jsonParser, jsonGenerator, wktWriter);
-        lineStringCounter++;
+        processLineString(jsonParser, jsonGenerator, geometryEncoder);
       }
       jsonGenerator.copyCurrentEvent(jsonParser); //end array
-      wktWriter.write(")"); // end multi line string
+      geometryEncoder.endGeometry(); // end multi line string
     } else if (type.equals("Point")) {
       jsonParser.nextToken();
-      lastCoordinate = null;
-      wktWriter.write("(");
-      processCoordinate(jsonParser, jsonGenerator, wktWriter);
-      wktWriter.write(" )");
+      splitter.startLine();
+      processCoordinate(jsonParser, jsonGenerator, geometryEncoder);
+      geometryEncoder.endGeometry();
     } else if (type.equals("MultiPoint")) {
-      lastCoordinate = null;
+      splitter.startLine();
       jsonParser.nextToken();
       jsonGenerator.copyCurrentEvent(jsonParser); //start array
-      wktWriter.write("("); //start MultiPoint
       if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
         throw new IllegalArgumentException("coordinates was not an array");
       }
       while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-        processCoordinate(jsonParser, jsonGenerator, wktWriter);
+        processCoordinate(jsonParser, jsonGenerator, geometryEncoder);
       }
       jsonGenerator.copyCurrentEvent(jsonParser); //end array
-      wktWriter.write(")"); // end MultiPoint
+      geometryEncoder.endGeometry(); // end MultiPoint
     } else {
       throw new IllegalStateException("Unsupported type: " + type);
     }
   }
 
-  private Coordinate arrayToCoordinate(List<Double> coordArray) {
-    Coordinate coordinate;
-    if (coordArray.size() >= 4) {
-      coordinate = new CoordinateXYZM(coordArray.get(0), coordArray.get(1), coordArray.get(2), coordArray.get(3));
-    } else if (coordArray.size() == 3) {
-      coordinate = new Coordinate(coordArray.get(0), coordArray.get(1), coordArray.get(2));
-    } else if (coordArray.size() == 2) {
-      coordinate = new Coordinate(coordArray.get(0), coordArray.get(1));
-    } else {
-      throw new IllegalArgumentException("Invalid coordinate: " + coordArray);
-    }
-    return coordinate;
-  }
-
-  private void writeArray(JsonGenerator jsonGenerator, Writer wktWriter, Coordinate coordinate) throws IOException {
-    jsonGenerator.writeStartArray();
-    List<Double> values = Arrays.asList(coordinate.getX(), coordinate.getY());
-    for (Double value : values) {
-      jsonGenerator.writeNumber(format.format(value));
-      wktWriter.write(new StringBuilder().append(" ").append(format.format(value)).toString());
+  private void writeBBox(JsonGenerator jsonGenerator) throws IOException {
+    List<Double> lineBBox = splitter.getBBox();
+    if (lineBBox != null) {
+      bbox = lineBBox;
     }
-    jsonGenerator.writeEndArray();
   }
 
-  private void updateStats(double m, double v) {
-    distanceM += m;
-    count++;
-    avgSpeedM = avgSpeedM + (v - avgSpeedM) / count;
-  }
-
-  private void processBoundingBox(Coordinate coordinate) {
-    Envelope bbox = coordinate.getX() < 0 ? westBoundingBox : eastBoundingBox;
-    bbox.expandToInclude(coordinate);
-  }
-
-  private void writeBBox(JsonGenerator jsonGenerator) throws IOException {
-
-    double minY;
-    double maxY;
-    double minX;
-    double maxX;
-
-    Envelope boundingBox = new Envelope(westBoundingBox);
-    boundingBox.expandToInclude(eastBoundingBox);
-    if(boundingBox.getWidth() > 180D) {
-      crossedAntimeridian = true;
+  /**
+   * Reads the numbers of a coordinate array straight from the tokens. Only x, y and the time in z are used.
+   */
+  private void processCoordinate(JsonParser jsonParser, JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder)
+      throws IOException, ValidationException {
+    if (jsonParser.getCurrentToken() != JsonToken.START_ARRAY) {
+      throw new IllegalArgumentException("Invalid coordinate: " + jsonParser.getText());
     }
-
-    if (!crossedAntimeridian) {
-      minY = boundingBox.getMinY();
-      maxY = boundingBox.getMaxY();
-      minX = boundingBox.getMinX();
-      maxX = boundingBox.getMaxX();
-    } else {
-      minY = Math.min(westBoundingBox.getMinY(), eastBoundingBox.getMinY());
-      maxY = Math.max(westBoundingBox.getMaxY(), eastBoundingBox.getMaxY());
-      minX = eastBoundingBox.getMinX();
-      maxX = westBoundingBox.getMaxX();
+    int size = 0;
+    JsonToken token;
+    while ((token = jsonParser.nextToken()) != JsonToken.END_ARRAY) {
+      double value = readValue(jsonParser, token);
+      if (size < coordinateValues.length) {
+        coordinateValues[size] = value;
+      }
+      size++;
     }
-
-    // https://tools.ietf.org/html/rfc7946#section-5.3
-    if (count == 0 && minX == 0.0 && minY == 0.0 && maxX == -1.0 && maxY == -1.0) { // "bbox":[0.0,0.0,-1.0,-1.0]}
-      return; // don't write bbox if no coordinates were specified
+    if (size < 2) {
+      throw new IllegalArgumentException("Invalid coordinate: " + Arrays.toString(Arrays.copyOf(coordinateValues, size)));
     }
-    //FIXME
-//    else if (boundingBox.contains(new Coordinate(0, 90))) { // north pole
-//      doubleArray[0] = -180.0;
-//      doubleArray[1] = boundingBox.getMinY();
-//      doubleArray[2] = 180.0;
-//      doubleArray[3] = 90.0;
-
-    // typical bounding box
-//    jsonGenerator.writeFieldName("bbox");
-    bbox = new ArrayList<>(4);
-    bbox.add(minX);
-    bbox.add(minY);
-    bbox.add(maxX);
-    bbox.add(maxY);
-
-//    jsonGenerator.writeArray(doubleArray, 0, 4);
+    splitter.processCoordinate(coordinateValues[0], coordinateValues[1], size > 2 ? coordinateValues[2] : Double.NaN, jsonGenerator,
+        geometryEncoder);
   }
 
-  private void processCoordinate(JsonParser jsonParser, JsonGenerator jsonGenerator, Writer wktWriter) throws IOException, ValidationException {
-    List<Double> coordArray = objectMapper.readValue(jsonParser, LIST_DOUBLE);
-    Coordinate coordinate = arrayToCoordinate(coordArray);
-    if (lastCoordinate == null) {
-      writeArray(jsonGenerator, wktWriter, coordinate);
-    } else {
-      List<Coordinate> split = splitAm(lastCoordinate, coordinate, geometryFactory);
-
-      if (split.size() == 1) {
-        coordinate = split.get(0);
-        wktWriter.write(","); //coordinate separator
-        writeArray(jsonGenerator, wktWriter, coordinate);
-        double m = getDistance(lastCoordinate, coordinate);
-        double v = getSpeed(maxAllowedSpeedKnts, lastCoordinate, coordinate, m);
-        updateStats(m, v);
-      } else if(split.size() == 3) {
-        coordinate = split.get(0);
-        crossedAntimeridian = true;
-        jsonGenerator.writeEndArray();
-        jsonGenerator.writeStartArray();
-        wktWriter.write("), ("); //coordinate separator // TODO: if split size == 3
-        writeArray(jsonGenerator, wktWriter, split.get(2));
-        wktWriter.write(","); //coordinate separator
-        writeArray(jsonGenerator, wktWriter, coordinate);
-        double m = getDistance(split.get(2), coordinate);
-        double v = getSpeed(maxAllowedSpeedKnts, lastCoordinate, coordinate, m);
-        updateStats(m, v);
-      } else if(split.size() == 4) {
-        coordinate = split.get(3);
-        crossedAntimeridian = true;
-        wktWriter.write(","); //coordinate separator
-        writeArray(jsonGenerator, wktWriter, split.get(1));
-        jsonGenerator.writeEndArray();
-        jsonGenerator.writeStartArray();
-        wktWriter.write("), ("); //coordinate separator
-        writeArray(jsonGenerator, wktWriter, split.get(2));
-        wktWriter.write(",");
-        writeArray(jsonGenerator, wktWriter, coordinate);
-        double m = getDistance(lastCoordinate, split.get(1)) + getDistance(split.get(2), split.get(3));
-        double v = getSpeed(maxAllowedSpeedKnts, lastCoordinate, split.get(3), m);
-        updateStats(m, v);
-      }
+  private static double readValue(JsonParser jsonParser, JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return jsonParser.getDoubleValue();
+      case VALUE_STRING:
+        // databind accepts numbers in strings too
+        try {
+          return Double.parseDouble(jsonParser.getText().trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid coordinate value: " + jsonParser.getText(), e);
+        }
+      default:
+        throw new IllegalArgumentException("Invalid coordinate value: " + jsonParser.getText());
     }
-    processBoundingBox(coordinate);
-    lastCoordinate = coordinate;
   }
 
-  private void processLineString(JsonParser jsonParser, JsonGenerator jsonGenerator, Writer wktWriter) throws IOException, ValidationException {
+  private void processLineString(JsonParser jsonParser, JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder)
+      throws IOException, ValidationException {
     jsonGenerator.copyCurrentEvent(jsonParser); //start array
-    wktWriter.write("("); //start line string
-    lastCoordinate = null;
+    geometryEncoder.startLine();
+    splitter.startLine();
     while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
-      processCoordinate(jsonParser, jsonGenerator, wktWriter);
+      processCoordinate(jsonParser, jsonGenerator, geometryEncoder);
     }
     jsonGenerator.copyCurrentEvent(jsonParser); //end array
-    wktWriter.write(")"); //end line string
+    geometryEncoder.endLine();
   }
 
   private void copyEverythingElse(JsonParser jsonParser, JsonGenerator jsonGenerator) throws IOException {
@@ -6,9 +6,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 public class GeoJsonMultiLineProcessor {
@@ -16,21 +13,40 @@ public class GeoJsonMultiLineProcessor {
   private final ObjectMapper objectMapper;
   private final int geoJsonPrecision;
   private final double maxAllowedSpeedKnts;
+  private final DistanceCalculator distanceCalculator;
 
   public GeoJsonMultiLineProcessor(ObjectMapper objectMapper, int geoJsonPrecision, double maxAllowedSpeedKnts) {
+    this(objectMapper, geoJsonPrecision, maxAllowedSpeedKnts, new GeodeticDistanceCalculator());
+  }
+
+  public GeoJsonMultiLineProcessor(ObjectMapper objectMapper, int geoJsonPrecision, double maxAllowedSpeedKnts,
+      DistanceCalculator distanceCalculator) {
     this.objectMapper = objectMapper;
     this.geoJsonPrecision = geoJsonPrecision;
     this.maxAllowedSpeedKnts = maxAllowedSpeedKnts;
+    this.distanceCalculator = distanceCalculator;
   }
 
   public void process(InputStream in, OutputStream out, OutputStream wktOut, Map<String, Object> additionalProperties) throws ValidationException {
-    GeoJsonMultiLineParser parser = new GeoJsonMultiLineParser(objectMapper, geoJsonPrecision, maxAllowedSpeedKnts);
+    try (OutputStream wkt = wktOut) {
+      process(in, out, new WktGeometryEncoder(wkt), additionalProperties);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to process geometry", e);
+    }
+  }
+
+  /**
+   * Writes the geometry to {@code geometryEncoder} instead of as WKT. The encoder is flushed, closing its output is up to
+   * the caller.
+   */
+  public void process(InputStream in, OutputStream out, GeometryEncoder geometryEncoder, Map<String, Object> additionalProperties)
+      throws ValidationException {
+    GeoJsonMultiLineParser parser = new GeoJsonMultiLineParser(objectMapper, geoJsonPrecision, maxAllowedSpeedKnts, distanceCalculator);
     try (
         JsonParser jsonParser = getJsonParser(in);
-        JsonGenerator jsonGenerator = getGenerator(out);
-        Writer wktWriter = new OutputStreamWriter(wktOut, StandardCharsets.UTF_8)) {
+        JsonGenerator jsonGenerator = getGenerator(out)) {
 
-      parser.parse(jsonParser, jsonGenerator, wktWriter, additionalProperties);
+      parser.parse(jsonParser, jsonGenerator, geometryEncoder, additionalProperties);
 
     } catch (IOException e) {
       throw new RuntimeException("Unable to process geometry", e);
@@ -3,23 +3,19 @@ package edu.colorado.cires.cmg.tracklinegen;
 import com.fasterxml.jackson.core.JsonGenerator;
 import java.io.IOException;
 import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
 
 public class GeoJsonMultiLineWriter {
 
   private final JsonGenerator jsonGenerator;
+  private final FixedPrecision precision;
   private final DecimalFormat format;
+  private final char[] numberBuffer = new char[FixedPrecision.MAX_FORMATTED_LENGTH];
 
   public GeoJsonMultiLineWriter(JsonGenerator jsonGenerator, int precision) {
     this.jsonGenerator = jsonGenerator;
-    StringBuilder sb = new StringBuilder("0.");
-    for (int i = 1; i <= precision; i++) {
-      sb.append("#");
-    }
-    format = new DecimalFormat(sb.toString(), DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+    this.precision = new FixedPrecision(precision);
+    format = this.precision.createDecimalFormat();
   }
 
   public void startPoint() {
@@ -140,7 +136,7 @@ public class GeoJsonMultiLineWriter {
     try {
       jsonGenerator.writeStartArray();
       for (Double value : values) {
-        jsonGenerator.writeNumber(format.format(value));
+        writeNumber(value);
       }
       jsonGenerator.writeEndArray();
     } catch (IOException e) {
@@ -148,13 +144,50 @@ public class GeoJsonMultiLineWriter {
     }
   }
 
+  public void writeCoordinate(double lon, double lat) {
+    try {
+      jsonGenerator.writeStartArray();
+      writeNumber(lon);
+      writeNumber(lat);
+      jsonGenerator.writeEndArray();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to write GeoJson", e);
+    }
+  }
+
+  public void writeCoordinate(double lon, double lat, double time) {
+    try {
+      jsonGenerator.writeStartArray();
+      writeNumber(lon);
+      writeNumber(lat);
+      writeNumber(time);
+      jsonGenerator.writeEndArray();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to write GeoJson", e);
+    }
+  }
+
   public void writeCoordinate(double lon, double lat, double... additional) {
-    List<Double> values = Arrays.asList(lon, lat);
-    for (double d : additional) {
-      values.add(d);
+    try {
+      jsonGenerator.writeStartArray();
+      writeNumber(lon);
+      writeNumber(lat);
+      for (double value : additional) {
+        writeNumber(value);
+      }
+      jsonGenerator.writeEndArray();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to write GeoJson", e);
     }
-    writeCoordinate(values);
   }
 
+  private void writeNumber(double value) throws IOException {
+    int length = precision.format(value, numberBuffer, 0);
+    if (length < 0) {
+      jsonGenerator.writeNumber(format.format(value));
+    } else {
+      jsonGenerator.writeNumber(numberBuffer, 0, length);
+    }
+  }
 
 }
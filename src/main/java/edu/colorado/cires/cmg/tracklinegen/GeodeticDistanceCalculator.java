@@ -0,0 +1,22 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import org.geotools.referencing.GeodeticCalculator;
+import org.geotools.referencing.datum.DefaultEllipsoid;
+
+/**
+ * WGS84 geodesic distance from the GeoTools {@link GeodeticCalculator}. This is the reference implementation. One
+ * calculator is reused per thread instead of creating one per call.
+ */
+public class GeodeticDistanceCalculator implements DistanceCalculator {
+
+  private static final ThreadLocal<GeodeticCalculator> CALCULATOR =
+      ThreadLocal.withInitial(() -> new GeodeticCalculator(DefaultEllipsoid.WGS84));
+
+  @Override
+  public double getDistance(double lon1, double lat1, double lon2, double lat2) {
+    GeodeticCalculator calc = CALCULATOR.get();
+    calc.setStartingGeographicPoint(lon1, lat1);
+    calc.setDestinationGeographicPoint(lon2, lat2);
+    return calc.getOrthodromicDistance();
+  }
+}
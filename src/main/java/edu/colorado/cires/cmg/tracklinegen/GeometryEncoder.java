@@ -0,0 +1,56 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.io.IOException;
+
+/**
+ * Receives the geometry phase 2 writes as GeoJSON, to encode it in a second format. {@link WktGeometryEncoder} writes
+ * WKT, {@link WkbGeometryEncoder} writes WKB and {@link #none()} skips the second format.
+ * <p>
+ * Geometries nest in a GEOMETRYCOLLECTION. The coordinates of a MULTILINESTRING come between {@link #startLine()} and
+ * {@link #endLine()}, those of a POINT or MULTIPOINT straight after {@link #startGeometry(Type)}.
+ */
+public interface GeometryEncoder {
+
+  enum Type {
+    POINT,
+    MULTI_POINT,
+    MULTI_LINE_STRING,
+    GEOMETRY_COLLECTION
+  }
+
+  /**
+   * An encoder that writes nothing.
+   */
+  static GeometryEncoder none() {
+    return NoGeometryEncoder.INSTANCE;
+  }
+
+  void startGeometry(Type type) throws IOException;
+
+  void endGeometry() throws IOException;
+
+  void startLine() throws IOException;
+
+  void endLine() throws IOException;
+
+  /**
+   * Ends the current line and starts the next one, where a line is split at the antimeridian.
+   * <p>
+   * Only valid inside a line, both encoders throw an IllegalStateException otherwise. The members of a MULTIPOINT are
+   * never broken up: a MultiPoint that crosses the antimeridian already fails in the GeoJSON output.
+   */
+  void breakLine() throws IOException;
+
+  /**
+   * @param x the longitude
+   * @param y the latitude
+   * @param text x and y as written to the GeoJSON, x in the first {@code xLength} chars and y in the {@code yLength}
+   * chars after it
+   */
+  void writeCoordinate(double x, double y, char[] text, int xLength, int yLength) throws IOException;
+
+  /**
+   * Writes anything buffered to the underlying output.
+   */
+  void flush() throws IOException;
+}
@@ -3,6 +3,8 @@ package edu.colorado.cires.cmg.tracklinegen;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,6 +17,7 @@ public class GeometryProperties {
   private final Long unsimplifiedPointCount;
   private final Long simplifiedPointCount;
   private final Long targetPointCount;
+  private final Double simplificationTolerance;
 
   private final Map<String, Object> otherFields;
 
@@ -24,6 +27,7 @@ public class GeometryProperties {
     unsimplifiedPointCount = builder.unsimplifiedPointCount;
     simplifiedPointCount = builder.simplifiedPointCount;
     targetPointCount = builder.targetPointCount;
+    simplificationTolerance = builder.simplificationTolerance;
     otherFields = builder.otherFields;
   }
 
@@ -47,6 +51,12 @@ public class GeometryProperties {
     return targetPointCount;
   }
 
+  // only set in budget mode, so that other output stays the same
+  @JsonInclude(Include.NON_NULL)
+  public Double getSimplificationTolerance() {
+    return simplificationTolerance;
+  }
+
   @JsonAnyGetter
   private Map<String, Object> getOtherFields() {
     return otherFields;
@@ -60,6 +70,7 @@ public class GeometryProperties {
     private Long unsimplifiedPointCount;
     private Long simplifiedPointCount;
     private Long targetPointCount;
+    private Double simplificationTolerance;
     private Map<String, Object> otherFields = new HashMap<>();
 
     public static Builder configure() {
@@ -80,6 +91,7 @@ public class GeometryProperties {
       unsimplifiedPointCount = properties.unsimplifiedPointCount;
       simplifiedPointCount = properties.simplifiedPointCount;
       targetPointCount = properties.targetPointCount;
+      simplificationTolerance = properties.simplificationTolerance;
       otherFields = properties.otherFields;
     }
 
@@ -108,6 +120,11 @@ public class GeometryProperties {
       return this;
     }
 
+    public Builder withSimplificationTolerance(Double simplificationTolerance) {
+      this.simplificationTolerance = simplificationTolerance;
+      return this;
+    }
+
     @JsonAnySetter
     public Builder withOtherField(String name, Object value) {
       this.otherFields.put(name, value);
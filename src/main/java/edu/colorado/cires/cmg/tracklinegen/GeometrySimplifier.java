@@ -2,11 +2,13 @@ package edu.colorado.cires.cmg.tracklinegen;
 
 import java.util.List;
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
-import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
 
+/**
+ * Simplifies lines with a {@link SimplificationAlgorithm} and a tolerance. Instances are immutable and may be shared
+ * between threads.
+ */
 public class GeometrySimplifier {
 
   //  [Decimal / Places / Degrees	/ Object that can be recognized at scale / N/S or E/W at equator, E/W at 23N/S, E/W at 45N/S, E/W at 67N/S]
@@ -19,15 +21,37 @@ public class GeometrySimplifier {
   //  6	  0.000001	  0° 00′ 0.0036″    individual humans                                   111.32 mm	  102.47 mm	  78.71 mm	43.496 mm
   //  7	  0.0000001	  0° 00′ 0.00036″   practical limit of commercial surveying	            11.132 mm	  10.247 mm	  7.871 mm	4.3496 mm
   private final double simplificationTolerance;
+  private final SimplificationAlgorithm simplificationAlgorithm;
   private final GeometryFactory geometryFactory = GeometryFactoryFactory.create();
 
   public GeometrySimplifier(double simplificationTolerance) {
+    this(simplificationTolerance, new DouglasPeuckerAlgorithm());
+  }
+
+  public GeometrySimplifier(double simplificationTolerance, SimplificationAlgorithm simplificationAlgorithm) {
     this.simplificationTolerance = simplificationTolerance;
+    this.simplificationAlgorithm = simplificationAlgorithm;
+  }
+
+  public double getSimplificationTolerance() {
+    return simplificationTolerance;
+  }
+
+  public SimplificationAlgorithm getSimplificationAlgorithm() {
+    return simplificationAlgorithm;
   }
 
   public LineString simplifyGeometry(List<Coordinate> coordinates) {
-    Geometry geometry = geometryFactory.createLineString(coordinates.toArray(new Coordinate[]{}));
-    return (LineString) DouglasPeuckerSimplifier.simplify(geometry, simplificationTolerance);
+    Coordinate[] simplified = simplificationAlgorithm.simplify(coordinates.toArray(new Coordinate[]{}), simplificationTolerance);
+    return geometryFactory.createLineString(simplified);
+  }
+
+  /**
+   * Simplifies the first {@code size} points of {@code x} and {@code y} into the indices of the kept points, without
+   * creating geometries. See {@link SimplificationAlgorithm#simplify(double[], double[], int, double, int[])}.
+   */
+  public int simplify(double[] x, double[] y, int size, int[] kept) {
+    return simplificationAlgorithm.simplify(x, y, size, simplificationTolerance, kept);
   }
 
 }
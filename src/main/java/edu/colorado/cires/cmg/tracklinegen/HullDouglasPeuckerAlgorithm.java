@@ -0,0 +1,332 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.Arrays;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Douglas-Peucker that finds the farthest point of a section from precomputed convex hulls instead of scanning the
+ * section. Plain Douglas-Peucker is O(n^2) when each split only peels off a point or two, as it does on spirals and
+ * long survey lines; here each section costs O(log^2 n) and the whole line O(n log^2 n) in the worst case.
+ * <p>
+ * This follows Hershberger and Snoeyink, but keeps static hulls of blocks of the line in a segment tree instead of
+ * path hulls, whose incremental hull needs a line that does not cross itself. Trackline data crosses itself all the
+ * time while station keeping.
+ * <p>
+ * As in the original algorithm, and unlike JTS, a section is split at the point farthest from the line through its end
+ * points. A section is only accepted when no point lies too far beyond its ends either, so every dropped point is
+ * within the tolerance of the simplified line. The result can differ slightly from {@link DouglasPeuckerAlgorithm}.
+ */
+public class HullDouglasPeuckerAlgorithm implements SimplificationAlgorithm {
+
+  private static final int ACCEPT = -1;
+
+  @Override
+  public Coordinate[] simplify(Coordinate[] coordinates, double tolerance) {
+    int size = coordinates.length;
+    double[] x = new double[size];
+    double[] y = new double[size];
+    for (int i = 0; i < size; i++) {
+      x[i] = coordinates[i].getX();
+      y[i] = coordinates[i].getY();
+    }
+    int[] kept = new int[size];
+    int count = simplify(x, y, size, tolerance, kept);
+    Coordinate[] simplified = new Coordinate[count];
+    for (int i = 0; i < count; i++) {
+      simplified[i] = new Coordinate(coordinates[kept[i]]);
+    }
+    return simplified;
+  }
+
+  @Override
+  public int simplify(double[] x, double[] y, int size, double tolerance, int[] kept) {
+    if (size < 3) {
+      for (int i = 0; i < size; i++) {
+        kept[i] = i;
+      }
+      return size;
+    }
+    boolean[] keep = new boolean[size];
+    keep[0] = true;
+    keep[size - 1] = true;
+
+    HullTree tree = new HullTree(x, y, size);
+    int[] stack = new int[64];
+    int stackSize = 0;
+    stack[stackSize++] = 0;
+    stack[stackSize++] = size - 1;
+    while (stackSize > 0) {
+      int end = stack[--stackSize];
+      int start = stack[--stackSize];
+      if (end - start < 2) {
+        continue;
+      }
+      int split = findSplit(tree, x, y, start, end, tolerance);
+      if (split != ACCEPT) {
+        keep[split] = true;
+        if (stackSize + 4 > stack.length) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[stackSize++] = split;
+        stack[stackSize++] = end;
+        stack[stackSize++] = start;
+        stack[stackSize++] = split;
+      }
+    }
+
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (keep[i]) {
+        kept[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  private static int findSplit(HullTree tree, double[] x, double[] y, int start, int end, double tolerance) {
+    int from = start + 1;
+    int to = end - 1;
+    double dx = x[end] - x[start];
+    double dy = y[end] - y[start];
+    double length = Math.sqrt(dx * dx + dy * dy);
+    if (!(length > 0D)) {
+      return findSplitAround(tree, x, y, start, from, to, tolerance);
+    }
+
+    // farthest from the line on either side
+    int left = tree.extreme(from, to, -dy, dx, x[start], y[start]);
+    int right = tree.extreme(from, to, dy, -dx, x[start], y[start]);
+    double leftDistance = Math.abs(cross(x, y, start, dx, dy, left)) / length;
+    double rightDistance = Math.abs(cross(x, y, start, dx, dy, right)) / length;
+    double distance = Math.max(leftDistance, rightDistance);
+    if (distance > tolerance) {
+      return leftDistance >= rightDistance ? left : right;
+    }
+
+    // farthest before the start and after the end
+    int before = tree.extreme(from, to, -dx, -dy, x[start], y[start]);
+    int after = tree.extreme(from, to, dx, dy, x[end], y[end]);
+    double beforeDistance = -((x[before] - x[start]) * dx + (y[before] - y[start]) * dy) / length;
+    double afterDistance = ((x[after] - x[end]) * dx + (y[after] - y[end]) * dy) / length;
+    double overshoot = Math.max(beforeDistance, afterDistance);
+    if (overshoot <= 0D || overshoot * overshoot + distance * distance <= tolerance * tolerance) {
+      return ACCEPT;
+    }
+    return beforeDistance >= afterDistance ? before : after;
+  }
+
+  /**
+   * A section that starts and ends at the same point is accepted when its bounding box is within the tolerance of
+   * that point, and otherwise split at the farthest corner of the box.
+   */
+  private static int findSplitAround(HullTree tree, double[] x, double[] y, int start, int from, int to, double tolerance) {
+    int[] corners = {
+        tree.extreme(from, to, 1D, 0D, x[start], y[start]),
+        tree.extreme(from, to, -1D, 0D, x[start], y[start]),
+        tree.extreme(from, to, 0D, 1D, x[start], y[start]),
+        tree.extreme(from, to, 0D, -1D, x[start], y[start])
+    };
+    double dx = Math.max(Math.abs(x[corners[0]] - x[start]), Math.abs(x[corners[1]] - x[start]));
+    double dy = Math.max(Math.abs(y[corners[2]] - y[start]), Math.abs(y[corners[3]] - y[start]));
+    if (dx * dx + dy * dy <= tolerance * tolerance) {
+      return ACCEPT;
+    }
+    int farthest = corners[0];
+    double farthestDistance = -1D;
+    for (int corner : corners) {
+      double cx = x[corner] - x[start];
+      double cy = y[corner] - y[start];
+      double distance = cx * cx + cy * cy;
+      if (distance > farthestDistance) {
+        farthest = corner;
+        farthestDistance = distance;
+      }
+    }
+    return farthest;
+  }
+
+  private static double cross(double[] x, double[] y, int start, double dx, double dy, int point) {
+    return (x[point] - x[start]) * dy - (y[point] - y[start]) * dx;
+  }
+
+  /**
+   * Segment tree over the points. Leaves are blocks of {@link #LEAF_SIZE} points that are scanned; every block above
+   * them stores the lower and upper hull of its points, ordered by x.
+   */
+  private static final class HullTree {
+
+    private static final int LEAF_SIZE = 16;
+
+    private final double[] x;
+    private final double[] y;
+    private final int size;
+    private final int levels;
+    // per level and block, where its chains start in the chain array and how long they are
+    private final int[][] chainStarts;
+    private final int[][] lowerCounts;
+    private final int[][] upperCounts;
+    private int[] chains = new int[64];
+    private int chainSize;
+
+    private int best;
+    private double bestValue;
+
+    private HullTree(double[] x, double[] y, int size) {
+      this.x = x;
+      this.y = y;
+      this.size = size;
+      int top = 0;
+      while ((long) LEAF_SIZE << top < size) {
+        top++;
+      }
+      levels = top + 1;
+      chainStarts = new int[levels][];
+      lowerCounts = new int[levels][];
+      upperCounts = new int[levels][];
+      build();
+    }
+
+    private void build() {
+      // points of each block sorted by x then y, merged from the blocks below
+      int[] sorted = new int[size];
+      for (int start = 0; start < size; start += LEAF_SIZE) {
+        int end = Math.min(start + LEAF_SIZE, size);
+        for (int i = start; i < end; i++) {
+          int point = i;
+          int j = i;
+          while (j > start && compare(sorted[j - 1], point) > 0) {
+            sorted[j] = sorted[j - 1];
+            j--;
+          }
+          sorted[j] = point;
+        }
+      }
+      int[] merged = new int[size];
+      for (int level = 1; level < levels; level++) {
+        int blockSize = LEAF_SIZE << level;
+        int blocks = (size + blockSize - 1) / blockSize;
+        chainStarts[level] = new int[blocks];
+        lowerCounts[level] = new int[blocks];
+        upperCounts[level] = new int[blocks];
+        for (int block = 0; block < blocks; block++) {
+          int start = block * blockSize;
+          int middle = Math.min(start + blockSize / 2, size);
+          int end = Math.min(start + blockSize, size);
+          merge(sorted, start, middle, end, merged);
+          buildChains(level, block, merged, start, end);
+        }
+        int[] swap = sorted;
+        sorted = merged;
+        merged = swap;
+      }
+    }
+
+    private int compare(int a, int b) {
+      int compare = Double.compare(x[a], x[b]);
+      return compare != 0 ? compare : Double.compare(y[a], y[b]);
+    }
+
+    private void merge(int[] sorted, int start, int middle, int end, int[] merged) {
+      int a = start;
+      int b = middle;
+      for (int i = start; i < end; i++) {
+        if (b >= end || (a < middle && compare(sorted[a], sorted[b]) <= 0)) {
+          merged[i] = sorted[a++];
+        } else {
+          merged[i] = sorted[b++];
+        }
+      }
+    }
+
+    private void buildChains(int level, int block, int[] sorted, int start, int end) {
+      chainStarts[level][block] = chainSize;
+      lowerCounts[level][block] = buildChain(sorted, start, end, true);
+      upperCounts[level][block] = buildChain(sorted, start, end, false);
+    }
+
+    private int buildChain(int[] sorted, int start, int end, boolean lower) {
+      int chainStart = chainSize;
+      for (int i = start; i < end; i++) {
+        int point = sorted[i];
+        while (chainSize - chainStart >= 2) {
+          double turn = turn(chains[chainSize - 2], chains[chainSize - 1], point);
+          if (lower ? turn > 0D : turn < 0D) {
+            break;
+          }
+          chainSize--;
+        }
+        if (chainSize == chains.length) {
+          chains = Arrays.copyOf(chains, chains.length * 2);
+        }
+        chains[chainSize++] = point;
+      }
+      return chainSize - chainStart;
+    }
+
+    private double turn(int a, int b, int c) {
+      return (x[b] - x[a]) * (y[c] - y[a]) - (y[b] - y[a]) * (x[c] - x[a]);
+    }
+
+    /**
+     * The point in {@code from..to} (inclusive) that is farthest in direction {@code (dx, dy)}.
+     */
+    private int extreme(int from, int to, double dx, double dy, double originX, double originY) {
+      best = -1;
+      bestValue = Double.NEGATIVE_INFINITY;
+      search(levels - 1, 0, from, to, dx, dy, originX, originY);
+      return best;
+    }
+
+    private void search(int level, int block, int from, int to, double dx, double dy, double originX, double originY) {
+      int blockSize = LEAF_SIZE << level;
+      int start = block * blockSize;
+      int end = Math.min(start + blockSize, size);
+      if (start > to || end <= from) {
+        return;
+      }
+      if (level == 0) {
+        for (int i = Math.max(start, from); i <= Math.min(end - 1, to); i++) {
+          offer(i, dx, dy, originX, originY);
+        }
+      } else if (from <= start && end - 1 <= to) {
+        int chainStart = chainStarts[level][block];
+        if (dy > 0D) {
+          offer(extremeOnChain(chainStart + lowerCounts[level][block], upperCounts[level][block], dx, dy), dx, dy, originX, originY);
+        } else {
+          offer(extremeOnChain(chainStart, lowerCounts[level][block], dx, dy), dx, dy, originX, originY);
+        }
+      } else {
+        search(level - 1, block * 2, from, to, dx, dy, originX, originY);
+        search(level - 1, block * 2 + 1, from, to, dx, dy, originX, originY);
+      }
+    }
+
+    /**
+     * Along the lower chain (for directions pointing down or sideways) or the upper chain (pointing up) the projection
+     * rises to a single maximum, so the extreme point is the start of the first edge that does not go further.
+     */
+    private int extremeOnChain(int chainStart, int count, double dx, double dy) {
+      int low = 0;
+      int high = count - 1;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        int a = chains[chainStart + middle];
+        int b = chains[chainStart + middle + 1];
+        if ((x[b] - x[a]) * dx + (y[b] - y[a]) * dy > 0D) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return chains[chainStart + low];
+    }
+
+    private void offer(int point, double dx, double dy, double originX, double originY) {
+      double value = (x[point] - originX) * dx + (y[point] - originY) * dy;
+      if (best < 0 || value > bestValue) {
+        best = point;
+        bestValue = value;
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+/**
+ * {@link PrimitiveDataRow} that a reader can fill again for every row it returns. A listener only sees the values the
+ * row has while it is being processed, so rows must be handed over one at a time, see
+ * {@link TracklineProcessor#getRowBatchSize()}, and never through a pipelined or parallel processor.
+ */
+public class MutableDataRow implements PrimitiveDataRow {
+
+  private double lon;
+  private double lat;
+  private long epochMillis;
+  private boolean hasTimestamp;
+
+  public MutableDataRow set(long epochMillis, double lon, double lat) {
+    this.epochMillis = epochMillis;
+    this.hasTimestamp = true;
+    this.lon = lon;
+    this.lat = lat;
+    return this;
+  }
+
+  /**
+   * Sets a position without a timestamp.
+   */
+  public MutableDataRow set(double lon, double lat) {
+    this.epochMillis = 0L;
+    this.hasTimestamp = false;
+    this.lon = lon;
+    this.lat = lat;
+    return this;
+  }
+
+  /**
+   * A copy that keeps the current values, for rows that must outlive the next call to {@code set}.
+   */
+  public MutableDataRow copy() {
+    MutableDataRow copy = new MutableDataRow();
+    copy.lon = lon;
+    copy.lat = lat;
+    copy.epochMillis = epochMillis;
+    copy.hasTimestamp = hasTimestamp;
+    return copy;
+  }
+
+  @Override
+  public double lon() {
+    return lon;
+  }
+
+  @Override
+  public double lat() {
+    return lat;
+  }
+
+  @Override
+  public long epochMillis() {
+    return epochMillis;
+  }
+
+  @Override
+  public boolean hasTimestamp() {
+    return hasTimestamp;
+  }
+}
@@ -0,0 +1,267 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses the timestamp layouts of navigation files straight to epoch milliseconds, without allocating:
+ * <ul>
+ *   <li>FNV, {@code yyyy MM dd HH mm ss.ffffff} in UTC</li>
+ *   <li>ISO-8601, {@code yyyy-MM-ddTHH:mm:ss.fffZ}, with {@code T} or a space between date and time, and {@code Z}, an
+ *   offset such as {@code +02:00} or nothing for UTC</li>
+ *   <li>epoch seconds, {@code 1343977598.093000}</li>
+ * </ul>
+ * Fractions of any length are truncated to the millisecond, exactly. For epoch seconds this is not always what
+ * {@code (long) (Double.parseDouble(value) * 1000D)} gives, which is a millisecond low for some values such as
+ * {@code 1096500408.554000}, see {@link FnvRowReader.Builder#withExactEpochSeconds(boolean)}. The start of the day is
+ * cached, since consecutive rows nearly always fall on the same day.
+ * <p>
+ * Not thread safe: use one parser per reader. Invalid input throws an {@link IllegalArgumentException}.
+ */
+public final class NavTimestampParser {
+
+  private static final int DATE_LENGTH = 10;
+  private static final long MILLIS_PER_DAY = 86400000L;
+
+  private byte[] text = new byte[32];
+  private int length;
+  private final byte[] cachedDate = new byte[DATE_LENGTH];
+  private boolean cached;
+  private long cachedDayMillis;
+  private int fractionMillis;
+
+  public long parseFnv(CharSequence value) {
+    load(value, 0, value.length());
+    return parseFnv();
+  }
+
+  /**
+   * Parses an FNV timestamp from {@code [start, end)} of an ASCII buffer, without moving its position.
+   */
+  public long parseFnv(ByteBuffer buffer, int start, int end) {
+    load(buffer, start, end);
+    return parseFnv();
+  }
+
+  public long parseIso(CharSequence value) {
+    load(value, 0, value.length());
+    return parseIso();
+  }
+
+  public long parseIso(ByteBuffer buffer, int start, int end) {
+    load(buffer, start, end);
+    return parseIso();
+  }
+
+  public long parseEpochSeconds(CharSequence value) {
+    load(value, 0, value.length());
+    return parseEpochSeconds();
+  }
+
+  public long parseEpochSeconds(ByteBuffer buffer, int start, int end) {
+    load(buffer, start, end);
+    return parseEpochSeconds();
+  }
+
+  private void ensureCapacity(int size) {
+    if (text.length < size) {
+      text = new byte[Math.max(size, text.length * 2)];
+    }
+  }
+
+  // surrounding spaces are dropped
+  private void load(CharSequence value, int start, int end) {
+    while (start < end && value.charAt(start) == ' ') {
+      start++;
+    }
+    while (end > start && value.charAt(end - 1) == ' ') {
+      end--;
+    }
+    length = end - start;
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(start + i);
+      text[i] = c < 128 ? (byte) c : (byte) '?';
+    }
+  }
+
+  private void load(ByteBuffer buffer, int start, int end) {
+    while (start < end && buffer.get(start) == ' ') {
+      start++;
+    }
+    while (end > start && buffer.get(end - 1) == ' ') {
+      end--;
+    }
+    length = end - start;
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      text[i] = buffer.get(start + i);
+    }
+  }
+
+  private long parseFnv() {
+    // yyyy MM dd HH mm ss[.f...]
+    if (length < 19 || text[4] != ' ' || text[7] != ' ' || text[10] != ' ' || text[13] != ' ' || text[16] != ' ') {
+      throw invalid();
+    }
+    long dayMillis = dayMillis();
+    int millisOfDay = timeMillis(11, 14, 17);
+    if (fraction(19) != length) {
+      throw invalid();
+    }
+    return dayMillis + millisOfDay + fractionMillis;
+  }
+
+  private long parseIso() {
+    // yyyy-MM-ddTHH:mm:ss[.f...][Z|+HH:MM|-HH:MM]
+    if (length < 19 || text[4] != '-' || text[7] != '-' || (text[10] != 'T' && text[10] != ' ') || text[13] != ':' || text[16] != ':') {
+      throw invalid();
+    }
+    long dayMillis = dayMillis();
+    int millisOfDay = timeMillis(11, 14, 17);
+    int i = fraction(19);
+    long offsetMillis = 0L;
+    if (i < length) {
+      byte zone = text[i];
+      if (zone == 'Z' && i + 1 == length) {
+        i++;
+      } else if ((zone == '+' || zone == '-') && i + 6 == length && text[i + 3] == ':') {
+        int offsetHours = digits(i + 1, 2, 0, 18);
+        int offsetMinutes = digits(i + 4, 2, 0, 59);
+        offsetMillis = (offsetHours * 60L + offsetMinutes) * 60000L;
+        if (zone == '-') {
+          offsetMillis = -offsetMillis;
+        }
+        i += 6;
+      } else {
+        throw invalid();
+      }
+    }
+    return dayMillis + millisOfDay + fractionMillis - offsetMillis;
+  }
+
+  private long parseEpochSeconds() {
+    int i = 0;
+    boolean negative = false;
+    if (i < length && (text[i] == '-' || text[i] == '+')) {
+      negative = text[i] == '-';
+      i++;
+    }
+    int start = i;
+    long seconds = 0L;
+    while (i < length && isDigit(text[i])) {
+      if (i - start == 18) {
+        throw invalid();
+      }
+      seconds = seconds * 10L + (text[i] - '0');
+      i++;
+    }
+    if (i == start) {
+      throw invalid();
+    }
+    if (fraction(i) != length) {
+      throw invalid();
+    }
+    // the decimal digits truncated toward zero
+    long millis = seconds * 1000L + fractionMillis;
+    return negative ? -millis : millis;
+  }
+
+  /**
+   * Reads an optional fraction of a second at {@code i} into {@link #fractionMillis}, returning the index after it.
+   */
+  private int fraction(int i) {
+    fractionMillis = 0;
+    if (i < length && text[i] == '.') {
+      i++;
+      int digits = 0;
+      while (i < length && isDigit(text[i])) {
+        if (digits < 3) {
+          fractionMillis = fractionMillis * 10 + (text[i] - '0');
+        }
+        digits++;
+        i++;
+      }
+      if (digits == 0) {
+        throw invalid();
+      }
+      for (; digits < 3; digits++) {
+        fractionMillis *= 10;
+      }
+    }
+    return i;
+  }
+
+  private int timeMillis(int hour, int minute, int second) {
+    return (digits(hour, 2, 0, 23) * 3600 + digits(minute, 2, 0, 59) * 60 + digits(second, 2, 0, 59)) * 1000;
+  }
+
+  private long dayMillis() {
+    if (cached && sameDate()) {
+      return cachedDayMillis;
+    }
+    int year = digits(0, 4, 0, 9999);
+    int month = digits(5, 2, 1, 12);
+    int day = digits(8, 2, 1, 31);
+    if (day > daysInMonth(year, month)) {
+      throw invalid();
+    }
+    System.arraycopy(text, 0, cachedDate, 0, DATE_LENGTH);
+    cachedDayMillis = epochDay(year, month, day) * MILLIS_PER_DAY;
+    cached = true;
+    return cachedDayMillis;
+  }
+
+  private boolean sameDate() {
+    for (int i = 0; i < DATE_LENGTH; i++) {
+      if (text[i] != cachedDate[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int digits(int start, int count, int min, int max) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      if (!isDigit(text[i])) {
+        throw invalid();
+      }
+      value = value * 10 + (text[i] - '0');
+    }
+    if (value < min || value > max) {
+      throw invalid();
+    }
+    return value;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private IllegalArgumentException invalid() {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) (text[i] & 0xFF);
+    }
+    return new IllegalArgumentException("Invalid timestamp: " + new String(chars));
+  }
+
+  private static int daysInMonth(int year, int month) {
+    if (month == 2) {
+      return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+    }
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * Days since 1970-01-01 in the proleptic Gregorian calendar.
+   */
+  static long epochDay(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400L);
+    long yearOfEra = y - era * 400L;
+    long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2L) / 5L + day - 1L;
+    long dayOfEra = yearOfEra * 365L + yearOfEra / 4L - yearOfEra / 100L + dayOfYear;
+    return era * 146097L + dayOfEra - 719468L;
+  }
+}
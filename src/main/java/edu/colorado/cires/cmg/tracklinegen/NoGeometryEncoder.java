@@ -0,0 +1,45 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+final class NoGeometryEncoder implements GeometryEncoder {
+
+  static final NoGeometryEncoder INSTANCE = new NoGeometryEncoder();
+
+  private NoGeometryEncoder() {
+
+  }
+
+  @Override
+  public void startGeometry(Type type) {
+
+  }
+
+  @Override
+  public void endGeometry() {
+
+  }
+
+  @Override
+  public void startLine() {
+
+  }
+
+  @Override
+  public void endLine() {
+
+  }
+
+  @Override
+  public void breakLine() {
+
+  }
+
+  @Override
+  public void writeCoordinate(double x, double y, char[] text, int xLength, int yLength) {
+
+  }
+
+  @Override
+  public void flush() {
+
+  }
+}
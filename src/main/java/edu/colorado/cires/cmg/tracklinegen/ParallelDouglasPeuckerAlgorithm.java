@@ -0,0 +1,242 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * {@link DouglasPeuckerAlgorithm} that simplifies lines of at least {@code parallelThreshold} points on a
+ * {@link ForkJoinPool}. The two sections left by a split are independent, so the smaller one is handed to the pool
+ * while the current task carries on with the larger one. Sections of at least {@code parallelThreshold} points are also
+ * scanned for their farthest point in parallel, which is what keeps the pool busy when splits only peel off a few
+ * points at a time.
+ * <p>
+ * Ties go to the first farthest point as in the sequential scan, and whether a section is split does not depend on the
+ * order the sections are processed in, so the result is always the same as {@link DouglasPeuckerAlgorithm}.
+ */
+public class ParallelDouglasPeuckerAlgorithm extends DouglasPeuckerAlgorithm {
+
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 100000;
+
+  private final ForkJoinPool pool;
+  private final int parallelThreshold;
+
+  public ParallelDouglasPeuckerAlgorithm() {
+    this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  public ParallelDouglasPeuckerAlgorithm(int parallelThreshold) {
+    this(ForkJoinPool.commonPool(), parallelThreshold);
+  }
+
+  public ParallelDouglasPeuckerAlgorithm(ForkJoinPool pool, int parallelThreshold) {
+    this.pool = pool;
+    this.parallelThreshold = Math.max(parallelThreshold, 3);
+  }
+
+  public int getParallelThreshold() {
+    return parallelThreshold;
+  }
+
+  @Override
+  public Coordinate[] simplify(Coordinate[] coordinates, double tolerance) {
+    int size = coordinates.length;
+    if (size < parallelThreshold) {
+      return super.simplify(coordinates, tolerance);
+    }
+    double[] x = new double[size];
+    double[] y = new double[size];
+    for (int i = 0; i < size; i++) {
+      x[i] = coordinates[i].getX();
+      y[i] = coordinates[i].getY();
+    }
+    int[] kept = new int[size];
+    int count = simplify(x, y, size, tolerance, kept);
+    Coordinate[] simplified = new Coordinate[count];
+    for (int i = 0; i < count; i++) {
+      simplified[i] = new Coordinate(coordinates[kept[i]]);
+    }
+    return simplified;
+  }
+
+  @Override
+  public int simplify(double[] x, double[] y, int size, double tolerance, int[] kept) {
+    if (size < parallelThreshold) {
+      return super.simplify(x, y, size, tolerance, kept);
+    }
+    // one flag per point, so tasks marking neighbouring points never share a word
+    boolean[] keep = new boolean[size];
+    keep[0] = true;
+    keep[size - 1] = true;
+    pool.invoke(new SectionTask(x, y, keep, tolerance, parallelThreshold, 0, size - 1));
+
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (keep[i]) {
+        kept[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  private static final class SectionTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 0L;
+
+    private final double[] x;
+    private final double[] y;
+    private final boolean[] keep;
+    private final double tolerance;
+    private final int threshold;
+    private final int start;
+    private final int end;
+
+    private SectionTask(double[] x, double[] y, boolean[] keep, double tolerance, int threshold, int start, int end) {
+      this.x = x;
+      this.y = y;
+      this.keep = keep;
+      this.tolerance = tolerance;
+      this.threshold = threshold;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      List<SectionTask> forked = new ArrayList<>();
+      int i = start;
+      int j = end;
+      // looping on the larger section keeps the nesting of tasks logarithmic
+      while (j - i >= threshold) {
+        FarthestTask farthest = new FarthestTask(x, y, threshold, i, j, i + 1, j);
+        farthest.invoke();
+        if (!(farthest.maxDistance > tolerance)) {
+          i = j;
+          break;
+        }
+        int k = farthest.maxIndex;
+        keep[k] = true;
+        int smallStart;
+        int smallEnd;
+        if (k - i >= j - k) {
+          smallStart = k;
+          smallEnd = j;
+          j = k;
+        } else {
+          smallStart = i;
+          smallEnd = k;
+          i = k;
+        }
+        if (smallEnd - smallStart >= threshold) {
+          SectionTask task = new SectionTask(x, y, keep, tolerance, threshold, smallStart, smallEnd);
+          task.fork();
+          forked.add(task);
+        } else {
+          simplifySequential(smallStart, smallEnd);
+        }
+      }
+      simplifySequential(i, j);
+      for (SectionTask task : forked) {
+        task.join();
+      }
+    }
+
+    private void simplifySequential(int first, int last) {
+      if (first + 1 >= last) {
+        return;
+      }
+      int[] stack = new int[64];
+      int stackSize = 0;
+      stack[stackSize++] = first;
+      stack[stackSize++] = last;
+      while (stackSize > 0) {
+        int j = stack[--stackSize];
+        int i = stack[--stackSize];
+        if (i + 1 >= j) {
+          continue;
+        }
+        double ax = x[i];
+        double ay = y[i];
+        double bx = x[j];
+        double by = y[j];
+        double maxDistance = -1.0;
+        int maxIndex = i;
+        for (int k = i + 1; k < j; k++) {
+          double distance = pointToSegment(x[k], y[k], ax, ay, bx, by);
+          if (distance > maxDistance) {
+            maxDistance = distance;
+            maxIndex = k;
+          }
+        }
+        if (!(maxDistance > tolerance)) {
+          continue;
+        }
+        keep[maxIndex] = true;
+        if (stackSize + 4 > stack.length) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[stackSize++] = maxIndex;
+        stack[stackSize++] = j;
+        stack[stackSize++] = i;
+        stack[stackSize++] = maxIndex;
+      }
+    }
+  }
+
+  /**
+   * Finds the first point in {@code [from, to)} farthest from the segment between {@code i} and {@code j}.
+   */
+  private static final class FarthestTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 0L;
+
+    private final double[] x;
+    private final double[] y;
+    private final int threshold;
+    private final int i;
+    private final int j;
+    private final int from;
+    private final int to;
+    private double maxDistance = -1.0;
+    private int maxIndex = -1;
+
+    private FarthestTask(double[] x, double[] y, int threshold, int i, int j, int from, int to) {
+      this.x = x;
+      this.y = y;
+      this.threshold = threshold;
+      this.i = i;
+      this.j = j;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        double ax = x[i];
+        double ay = y[i];
+        double bx = x[j];
+        double by = y[j];
+        for (int k = from; k < to; k++) {
+          double distance = pointToSegment(x[k], y[k], ax, ay, bx, by);
+          if (distance > maxDistance) {
+            maxDistance = distance;
+            maxIndex = k;
+          }
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      FarthestTask left = new FarthestTask(x, y, threshold, i, j, from, middle);
+      FarthestTask right = new FarthestTask(x, y, threshold, i, j, middle, to);
+      invokeAll(left, right);
+      // the left half wins ties, as the first farthest point does in a sequential scan
+      FarthestTask farthest = right.maxDistance > left.maxDistance ? right : left;
+      maxDistance = farthest.maxDistance;
+      maxIndex = farthest.maxIndex;
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RowProcessor} that runs each listener on a thread of its own, so that several listeners take the time of the
+ * slowest one instead of the sum. Rows are collected into batches of {@code batchSize}, and each batch is published
+ * once, and never modified afterwards, to a queue of {@code capacity} batches per listener. A full queue blocks
+ * {@link #processRow(DataRow)}.
+ * <p>
+ * {@link #finish()} waits for every listener to finish. A listener that fails stops receiving rows while the others
+ * carry on, and the failures are thrown from {@link #finish()}: the first one, with the others added as suppressed.
+ * Rows must not be modified after they are processed.
+ */
+public class ParallelRowProcessor<D extends DataRow, L extends RowListener<D>> extends RowProcessor<D, L> {
+
+  public static final int DEFAULT_BATCH_SIZE = 1024;
+  public static final int DEFAULT_CAPACITY = 16;
+
+  private final List<L> listeners;
+  private final int batchSize;
+  private final int capacity;
+  private final List<Worker<D>> workers = new ArrayList<>();
+  private RowBatch<D> batch;
+
+  public ParallelRowProcessor(List<L> listeners) {
+    this(listeners, DEFAULT_BATCH_SIZE, DEFAULT_CAPACITY);
+  }
+
+  public ParallelRowProcessor(List<L> listeners, int batchSize, int capacity) {
+    super(listeners);
+    this.listeners = listeners;
+    this.batchSize = Math.max(batchSize, 1);
+    this.capacity = capacity;
+  }
+
+  @Override
+  public void start() {
+    listeners.forEach(listener -> listener.start());
+    for (int i = 0; i < listeners.size(); i++) {
+      Worker<D> worker = new Worker<>(listeners.get(i), new SpscRingBuffer<>(capacity), i);
+      workers.add(worker);
+      worker.start();
+    }
+    batch = new RowBatch<>(batchSize);
+  }
+
+  @Override
+  public void processRow(D row) {
+    if (batch.add(row)) {
+      publish();
+    }
+  }
+
+  /**
+   * Adds the rows to the batches being published, so the caller may reuse {@code rows}.
+   */
+  @Override
+  public void processRows(RowBatch<D> rows) {
+    for (int i = 0; i < rows.size(); i++) {
+      processRow(rows.get(i));
+    }
+  }
+
+  @Override
+  public void finish() {
+    if (!batch.isEmpty()) {
+      publish();
+    }
+    workers.forEach(worker -> worker.batches.close());
+    join();
+    Throwable failure = null;
+    for (Worker<D> worker : workers) {
+      if (worker.failure != null) {
+        if (failure == null) {
+          failure = worker.failure;
+        } else {
+          failure.addSuppressed(worker.failure);
+        }
+      }
+    }
+    workers.clear();
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
+  /**
+   * Stops the listeners without finishing them if {@link #finish()} was not reached.
+   */
+  @Override
+  public void close() {
+    for (Worker<D> worker : workers) {
+      worker.aborted = true;
+      worker.batches.close();
+    }
+    join();
+    workers.clear();
+  }
+
+  private void publish() {
+    RowBatch<D> published = batch;
+    for (Worker<D> worker : workers) {
+      try {
+        // false once the listener has failed
+        worker.batches.put(published);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while publishing rows", e);
+      }
+    }
+    batch = new RowBatch<>(batchSize);
+  }
+
+  private void join() {
+    boolean interrupted = false;
+    for (Worker<D> worker : workers) {
+      while (worker.isAlive()) {
+        try {
+          worker.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class Worker<D extends DataRow> extends Thread {
+
+    private final RowListener<D> listener;
+    private final SpscRingBuffer<RowBatch<D>> batches;
+    private volatile Throwable failure;
+    private volatile boolean aborted;
+
+    private Worker(RowListener<D> listener, SpscRingBuffer<RowBatch<D>> batches, int index) {
+      super("trackline-listener-" + index);
+      setDaemon(true);
+      this.listener = listener;
+      this.batches = batches;
+    }
+
+    @Override
+    public void run() {
+      try {
+        RowBatch<D> rows;
+        while ((rows = batches.take()) != null) {
+          listener.processRows(rows);
+        }
+        if (!aborted) {
+          listener.finish();
+        }
+      } catch (InterruptedException e) {
+        failure = new IllegalStateException("Row listener interrupted", e);
+        batches.cancel();
+      } catch (RuntimeException | Error e) {
+        failure = e;
+        batches.cancel();
+      }
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that writes to another stream on a thread of its own, so that the thread producing the output does not
+ * wait for slow storage. Bytes are collected in chunks that are handed to the writer thread through a bounded queue;
+ * when the queue is full the producer waits. A failure of the underlying stream is thrown from the next write, flush
+ * or close, wrapped in an IOException unless it is an Error. {@link #flush()} hands over what was written so far without waiting for it to reach the underlying stream.
+ * <p>
+ * Not thread safe: one thread writes, as with a {@code JsonGenerator}.
+ */
+public class PipelinedOutputStream extends OutputStream {
+
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  public static final int DEFAULT_CAPACITY = 16;
+
+  private static final Chunk FLUSH = new Chunk(new byte[0]);
+
+  private final OutputStream out;
+  private final SpscRingBuffer<Chunk> chunks;
+  // written chunks go back to the producer to be filled again
+  private final SpscRingBuffer<Chunk> free;
+  private final int chunkSize;
+  private final Thread writer;
+  private volatile Throwable failure;
+  private Chunk chunk;
+  private boolean closed;
+  private boolean errorThrown;
+
+  public PipelinedOutputStream(OutputStream out) {
+    this(out, DEFAULT_CHUNK_SIZE, DEFAULT_CAPACITY);
+  }
+
+  public PipelinedOutputStream(OutputStream out, int chunkSize, int capacity) {
+    this.out = out;
+    this.chunkSize = Math.max(chunkSize, 1);
+    chunks = new SpscRingBuffer<>(capacity);
+    // room for every chunk that can be in flight: a full queue, the one being written and the one being filled
+    free = new SpscRingBuffer<>(chunks.capacity() + 2);
+    chunk = new Chunk(new byte[this.chunkSize]);
+    writer = new Thread(this::writeChunks, "trackline-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    if (chunk.length == chunk.data.length) {
+      handOver();
+    }
+    chunk.data[chunk.length++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (len > 0) {
+      if (chunk.length == chunk.data.length) {
+        handOver();
+      }
+      int n = Math.min(len, chunk.data.length - chunk.length);
+      System.arraycopy(b, off, chunk.data, chunk.length, n);
+      chunk.length += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    if (chunk.length > 0) {
+      handOver();
+    }
+    put(FLUSH);
+  }
+
+  /**
+   * Waits for everything written to reach the underlying stream, then closes it.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (failure == null && chunk.length > 0) {
+        put(chunk);
+      }
+    } finally {
+      chunks.close();
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        chunks.cancel();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while closing output");
+      }
+      try {
+        out.close();
+      } finally {
+        throwFailure();
+      }
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    throwFailure();
+  }
+
+  private void throwFailure() throws IOException {
+    Throwable t = failure;
+    // an Error is thrown as it is once, a try-with-resources cannot add it to itself as suppressed
+    if (t instanceof Error && !errorThrown) {
+      errorThrown = true;
+      throw (Error) t;
+    }
+    if (t != null) {
+      throw new IOException("Unable to write output", t);
+    }
+  }
+
+  private void handOver() throws IOException {
+    put(chunk);
+    // the writer may not have returned a chunk yet, in which case a new one is allocated
+    Chunk next = free.poll();
+    chunk = next == null ? new Chunk(new byte[chunkSize]) : next;
+    chunk.length = 0;
+  }
+
+  private void put(Chunk item) throws IOException {
+    try {
+      if (!chunks.put(item)) {
+        throwFailure();
+        throw new IOException("Stream closed");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing output");
+    }
+  }
+
+  private void writeChunks() {
+    try {
+      Chunk item;
+      while ((item = chunks.take()) != null) {
+        if (item == FLUSH) {
+          out.flush();
+        } else {
+          out.write(item.data, 0, item.length);
+          free.put(item);
+        }
+      }
+      out.flush();
+    } catch (IOException | RuntimeException | Error | InterruptedException e) {
+      failure = e;
+      chunks.cancel();
+    }
+  }
+
+  private static final class Chunk {
+
+    private final byte[] data;
+    private int length;
+
+    private Chunk(byte[] data) {
+      this.data = data;
+    }
+  }
+}
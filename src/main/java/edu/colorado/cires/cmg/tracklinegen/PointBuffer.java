@@ -0,0 +1,205 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Growable struct-of-arrays point storage used by {@link BaseRowListener} in place of a list of {@link PointState}.
+ * Points are grouped into consecutive segments; a segment may be empty.
+ */
+final class PointBuffer {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private double[] x;
+  private double[] y;
+  private double[] z;
+  private int[] index;
+  private final BitSet target = new BitSet();
+  private final BitSet simplified = new BitSet();
+  private int size;
+
+  private int[] segmentStarts = new int[DEFAULT_CAPACITY];
+  private int segmentCount;
+
+  PointBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  PointBuffer(int capacity) {
+    capacity = Math.max(capacity, DEFAULT_CAPACITY);
+    x = new double[capacity];
+    y = new double[capacity];
+    z = new double[capacity];
+    index = new int[capacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  double getX(int i) {
+    return x[i];
+  }
+
+  double getY(int i) {
+    return y[i];
+  }
+
+  double getZ(int i) {
+    return z[i];
+  }
+
+  int getIndex(int i) {
+    return index[i];
+  }
+
+  void setIndex(int i, int value) {
+    index[i] = value;
+  }
+
+  boolean isTarget(int i) {
+    return target.get(i);
+  }
+
+  boolean isSimplified(int i) {
+    return simplified.get(i);
+  }
+
+  void add(double x, double y, double z, boolean target, boolean simplified, int index) {
+    if (size == this.x.length) {
+      int capacity = size + (size >> 1);
+      this.x = Arrays.copyOf(this.x, capacity);
+      this.y = Arrays.copyOf(this.y, capacity);
+      this.z = Arrays.copyOf(this.z, capacity);
+      this.index = Arrays.copyOf(this.index, capacity);
+    }
+    this.x[size] = x;
+    this.y[size] = y;
+    this.z[size] = z;
+    this.index[size] = index;
+    this.target.set(size, target);
+    this.simplified.set(size, simplified);
+    size++;
+  }
+
+  /**
+   * Adds {@code count} points that are not simplified, with index 0, from the arrays starting at {@code from}.
+   */
+  void addAll(double[] x, double[] y, double[] z, boolean[] target, int from, int count) {
+    if (size + count > this.x.length) {
+      int capacity = Math.max(size + count, size + (size >> 1));
+      this.x = Arrays.copyOf(this.x, capacity);
+      this.y = Arrays.copyOf(this.y, capacity);
+      this.z = Arrays.copyOf(this.z, capacity);
+      this.index = Arrays.copyOf(this.index, capacity);
+    }
+    System.arraycopy(x, from, this.x, size, count);
+    System.arraycopy(y, from, this.y, size, count);
+    System.arraycopy(z, from, this.z, size, count);
+    Arrays.fill(this.index, size, size + count, 0);
+    for (int i = 0; i < count; i++) {
+      this.target.set(size + i, target[from + i]);
+    }
+    this.simplified.clear(size, size + count);
+    size += count;
+  }
+
+  void add(PointBuffer from, int i) {
+    add(from.x[i], from.y[i], from.z[i], from.target.get(i), from.simplified.get(i), from.index[i]);
+  }
+
+  void clear() {
+    size = 0;
+    segmentCount = 0;
+    target.clear();
+    simplified.clear();
+  }
+
+  int getSegmentCount() {
+    return segmentCount;
+  }
+
+  int getSegmentStart(int segment) {
+    return segmentStarts[segment];
+  }
+
+  int getSegmentEnd(int segment) {
+    return segment + 1 < segmentCount ? segmentStarts[segment + 1] : size;
+  }
+
+  int getSegmentSize(int segment) {
+    return getSegmentEnd(segment) - getSegmentStart(segment);
+  }
+
+  /**
+   * Starts a new segment at the current end of the buffer. Points added afterwards belong to it.
+   */
+  void startSegment() {
+    startSegment(size);
+  }
+
+  /**
+   * Starts a new segment at point {@code start}, which must not precede the start of the current last segment.
+   */
+  void startSegment(int start) {
+    if (segmentCount == segmentStarts.length) {
+      segmentStarts = Arrays.copyOf(segmentStarts, segmentCount + (segmentCount >> 1));
+    }
+    segmentStarts[segmentCount++] = start;
+  }
+
+  void clearSegments() {
+    segmentCount = 0;
+  }
+
+  /**
+   * Keeps the points in {@code [from[s], to[s])} of each segment {@code s}, in one linear pass. Segments with an empty
+   * range are kept as empty segments when {@code keepEmptySegments} is set and dropped otherwise.
+   */
+  void retainRanges(int[] from, int[] to, boolean keepEmptySegments) {
+    int write = 0;
+    int segments = 0;
+    for (int s = 0; s < segmentCount; s++) {
+      if (from[s] >= to[s] && !keepEmptySegments) {
+        continue;
+      }
+      segmentStarts[segments++] = write;
+      for (int read = from[s]; read < to[s]; read++) {
+        if (read != write) {
+          x[write] = x[read];
+          y[write] = y[read];
+          z[write] = z[read];
+          index[write] = index[read];
+          target.set(write, target.get(read));
+          simplified.set(write, simplified.get(read));
+        }
+        write++;
+      }
+    }
+    target.clear(write, Math.max(write, size));
+    simplified.clear(write, Math.max(write, size));
+    size = write;
+    segmentCount = segments;
+  }
+
+  /**
+   * Drops everything but the last point, which becomes a segment of its own.
+   */
+  void retainLast() {
+    int last = size - 1;
+    double lastX = x[last];
+    double lastY = y[last];
+    double lastZ = z[last];
+    int lastIndex = index[last];
+    boolean lastTarget = target.get(last);
+    boolean lastSimplified = simplified.get(last);
+    clear();
+    startSegment();
+    add(lastX, lastY, lastZ, lastTarget, lastSimplified, lastIndex);
+  }
+}
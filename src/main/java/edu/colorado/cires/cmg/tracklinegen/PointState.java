@@ -2,6 +2,10 @@ package edu.colorado.cires.cmg.tracklinegen;
 
 import org.locationtech.jts.geom.Point;
 
+/**
+ * @deprecated No longer used by {@link BaseRowListener}, which keeps its points in primitive arrays.
+ */
+@Deprecated
 public class PointState {
 
   private final Point point;
@@ -0,0 +1,36 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.time.Instant;
+
+/**
+ * {@link DataRow} with primitive accessors, read by {@link BaseRowListener} in place of the boxed ones so that a row
+ * costs no allocation beyond itself. The {@link DataRow} methods are derived from the primitive ones.
+ */
+public interface PrimitiveDataRow extends DataRow {
+
+  double lon();
+
+  double lat();
+
+  /**
+   * The timestamp in milliseconds since the epoch, only meaningful when {@link #hasTimestamp()} is true.
+   */
+  long epochMillis();
+
+  boolean hasTimestamp();
+
+  @Override
+  default Instant getTimestamp() {
+    return hasTimestamp() ? Instant.ofEpochMilli(epochMillis()) : null;
+  }
+
+  @Override
+  default Double getLon() {
+    return lon();
+  }
+
+  @Override
+  default Double getLat() {
+    return lat();
+  }
+}
@@ -0,0 +1,50 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+/**
+ * A fixed capacity batch of rows handed to {@link RowListener#processRows(RowBatch)}. Listeners must not keep a batch
+ * after returning, since the producer may clear and refill it.
+ */
+public final class RowBatch<T extends DataRow> {
+
+  private final Object[] rows;
+  private int size;
+
+  public RowBatch(int capacity) {
+    rows = new Object[Math.max(capacity, 1)];
+  }
+
+  /**
+   * Adds a row, returning true when the batch is full.
+   */
+  public boolean add(T row) {
+    rows[size++] = row;
+    return size == rows.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get(int i) {
+    if (i >= size) {
+      throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+    }
+    return (T) rows[i];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int capacity() {
+    return rows.length;
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      rows[i] = null;
+    }
+    size = 0;
+  }
+}
@@ -6,4 +6,14 @@ public interface RowListener<T extends DataRow> {
   void processRow(T row);
   void finish();
 
+  /**
+   * Processes the rows of a batch in order, the same as calling {@link #processRow(DataRow)} for each. Override to
+   * process a batch in one pass.
+   */
+  default void processRows(RowBatch<? extends T> rows) {
+    for (int i = 0; i < rows.size(); i++) {
+      processRow(rows.get(i));
+    }
+  }
+
 }
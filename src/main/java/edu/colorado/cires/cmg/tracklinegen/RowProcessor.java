@@ -2,7 +2,7 @@ package edu.colorado.cires.cmg.tracklinegen;
 
 import java.util.List;
 
-public class RowProcessor <D extends DataRow, L extends RowListener<D>> {
+public class RowProcessor <D extends DataRow, L extends RowListener<D>> implements AutoCloseable {
 
 
   private final List<L> listeners;
@@ -19,8 +19,20 @@ public class RowProcessor <D extends DataRow, L extends RowListener<D>> {
     listeners.forEach(listener -> listener.processRow(row));
   }
 
+  public void processRows(RowBatch<D> rows) {
+    listeners.forEach(listener -> listener.processRows(rows));
+  }
+
   public void finish() {
     listeners.forEach(listener -> listener.finish());
   }
+
+  /**
+   * Releases anything held for processing. Called after {@link #finish()}, or instead of it when processing failed.
+   */
+  @Override
+  public void close() {
+
+  }
   
 }
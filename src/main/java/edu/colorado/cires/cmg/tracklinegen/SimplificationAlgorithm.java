@@ -0,0 +1,40 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Line simplification used by {@link GeometrySimplifier}. Implementations are stateless and may be shared.
+ */
+public interface SimplificationAlgorithm {
+
+  /**
+   * Simplifies a line of at least two points without modifying it.
+   *
+   * @param coordinates the line
+   * @param tolerance   the simplification tolerance, as a distance in the units of the coordinates
+   * @return the simplified line, with at least two points and the end points of the input
+   */
+  Coordinate[] simplify(Coordinate[] coordinates, double tolerance);
+
+  /**
+   * Simplifies the first {@code size} points of {@code x} and {@code y} and writes the indices of the points to keep, in
+   * order, to {@code kept}, which needs room for {@code max(size, 2)} indices. The result is the same as
+   * {@link #simplify(Coordinate[], double)}, where a point may be kept twice if the line collapses to a single point.
+   * This implementation goes through {@link #simplify(Coordinate[], double)}; algorithms override it to avoid creating
+   * coordinates.
+   *
+   * @return the number of kept indices
+   */
+  default int simplify(double[] x, double[] y, int size, double tolerance, int[] kept) {
+    Coordinate[] coordinates = new Coordinate[size];
+    for (int i = 0; i < size; i++) {
+      // the index travels in z
+      coordinates[i] = new Coordinate(x[i], y[i], i);
+    }
+    Coordinate[] simplified = simplify(coordinates, tolerance);
+    for (int i = 0; i < simplified.length; i++) {
+      kept[i] = (int) simplified[i].getZ();
+    }
+    return simplified.length;
+  }
+}
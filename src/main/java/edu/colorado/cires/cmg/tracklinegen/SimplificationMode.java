@@ -0,0 +1,30 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+/**
+ * How {@link BaseRowListener} simplifies buffered points.
+ */
+public enum SimplificationMode {
+
+  /**
+   * Douglas-Peucker over each batch. Simplified points that do not fill a batch stay in the buffer and are simplified
+   * again together with the next batch.
+   */
+  BATCH,
+
+  /**
+   * Each point goes through {@link SleeveSimplifier} once and the simplified points are written as soon as the batch
+   * is processed. Memory stays bounded by the batch size. The last point of a batch is always kept, so there is one
+   * extra vertex per batch compared to simplifying the whole line at once.
+   */
+  ONLINE,
+
+  /**
+   * Like {@link #BATCH}, but nothing is written until the end of the line and the tolerance is doubled whenever the
+   * simplified points would exceed {@code maxAllowedSimplifiedPoints}, instead of failing with a
+   * {@link SimplifiedPointCountExceededException}. After each pass the buffer takes as many new points as the batch
+   * size or the points it kept, whichever is more, before it is simplified again, so memory stays bounded by the
+   * maximum plus the larger of the maximum and the batch size, about twice the maximum. The tolerance in effect at the
+   * end is recorded in {@link GeometryProperties#getSimplificationTolerance()}.
+   */
+  BUDGET
+}
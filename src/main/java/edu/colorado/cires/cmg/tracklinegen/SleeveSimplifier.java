@@ -0,0 +1,123 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Single pass line simplification by sleeve fitting (Zhao and Saalfeld). From the last kept point (the anchor) it
+ * tracks the range of directions for which every following point stays within the tolerance of the line, and the
+ * point farthest along it. When the next point leaves that range, or turns back by more than the tolerance, the
+ * farthest point is kept and becomes the new anchor. Each point is visited once and only the anchor, the farthest
+ * point and the direction range are stored.
+ * <p>
+ * Every dropped point is within the tolerance of the segment between the kept points before and after it.
+ */
+public final class SleeveSimplifier {
+
+  private SleeveSimplifier() {
+
+  }
+
+  public static List<Coordinate> simplify(List<Coordinate> coordinates, double tolerance) {
+    int size = coordinates.size();
+    double[] x = new double[size];
+    double[] y = new double[size];
+    for (int i = 0; i < size; i++) {
+      x[i] = coordinates.get(i).getX();
+      y[i] = coordinates.get(i).getY();
+    }
+    int[] kept = new int[size];
+    int count = simplify(x, y, size, tolerance, kept);
+    List<Coordinate> simplified = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      simplified.add(coordinates.get(kept[i]));
+    }
+    return simplified;
+  }
+
+  /**
+   * Simplifies the first {@code size} points of {@code x} and {@code y} and writes the indices of the kept points, in
+   * order, to {@code kept}.
+   *
+   * @return the number of kept points
+   */
+  public static int simplify(double[] x, double[] y, int size, double tolerance, int[] kept) {
+    if (size < 3) {
+      for (int i = 0; i < size; i++) {
+        kept[i] = i;
+      }
+      return size;
+    }
+    int count = 0;
+    int anchor = 0;
+    kept[count++] = anchor;
+    // direction range relative to the reference direction, empty until a point is farther than the tolerance
+    double reference = 0D;
+    double low = 0D;
+    double high = 0D;
+    boolean bounded = false;
+    // the point farthest from the anchor, which ends the line when the track turns back
+    int farthest = anchor;
+    double farthestDistance = 0D;
+    for (int i = 1; i < size; i++) {
+      double distance = distance(x, y, anchor, i);
+      if (!bounded && distance <= tolerance) {
+        continue;
+      }
+      if (bounded) {
+        // a point back near the anchor is a turn back like any other, the line must end at the farthest point
+        double relative = normalize(direction(x, y, anchor, i) - reference);
+        boolean inside = distance > tolerance && relative >= low && relative <= high;
+        if (inside && (distance >= farthestDistance || distance(x, y, farthest, i) <= tolerance)) {
+          double halfWidth = Math.asin(tolerance / distance);
+          low = Math.max(low, relative - halfWidth);
+          high = Math.min(high, relative + halfWidth);
+          if (distance >= farthestDistance) {
+            farthest = i;
+            farthestDistance = distance;
+          }
+          continue;
+        }
+        // every point since the farthest one is within the tolerance of it
+        anchor = farthest;
+        kept[count++] = anchor;
+        distance = distance(x, y, anchor, i);
+        if (distance <= tolerance) {
+          bounded = false;
+          continue;
+        }
+      }
+      double halfWidth = Math.asin(tolerance / distance);
+      reference = direction(x, y, anchor, i);
+      low = -halfWidth;
+      high = halfWidth;
+      bounded = true;
+      farthest = i;
+      farthestDistance = distance;
+    }
+    if (bounded && farthest != size - 1) {
+      kept[count++] = farthest;
+    }
+    kept[count++] = size - 1;
+    return count;
+  }
+
+  private static double distance(double[] x, double[] y, int from, int to) {
+    return Math.hypot(x[to] - x[from], y[to] - y[from]);
+  }
+
+  private static double direction(double[] x, double[] y, int from, int to) {
+    return Math.atan2(y[to] - y[from], x[to] - x[from]);
+  }
+
+  private static double normalize(double angle) {
+    if (angle > Math.PI) {
+      return angle - 2D * Math.PI;
+    }
+    if (angle <= -Math.PI) {
+      return angle + 2D * Math.PI;
+    }
+    return angle;
+  }
+}
@@ -0,0 +1,193 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A {@link GeoJsonMultiLineWriter} that writes the final output of {@link GeoJsonMultiLineProcessor} as the listener
+ * writes the simplified coordinates, so phase 1 and phase 2 run in a single pass without the GeoJSON in between. Lines are
+ * split at the antimeridian, the WKT, or the output of another {@link GeometryEncoder}, is written alongside the GeoJSON,
+ * and the bounding box, distance and average speed are added when the feature is finished. The output is the same as
+ * running both phases.
+ * <p>
+ * A speed over the maximum allowed throws a {@link ValidationRuntimeException}. The geometry encoder is flushed when the
+ * feature is finished. The caller closes the generator and the WKT writer.
+ */
+public class SplittingGeoJsonMultiLineWriter extends GeoJsonMultiLineWriter {
+
+  private final JsonGenerator jsonGenerator;
+  private final GeometryEncoder geometryEncoder;
+  private final Map<String, Object> additionalProperties;
+  private final AntimeridianLineSplitter splitter;
+  private final FixedPrecision precision;
+
+  private boolean hasCoordinates;
+
+  public SplittingGeoJsonMultiLineWriter(JsonGenerator jsonGenerator, Writer wktWriter, int precision, double maxAllowedSpeedKnts) {
+    this(jsonGenerator, wktWriter, precision, maxAllowedSpeedKnts, new GeodeticDistanceCalculator(), null);
+  }
+
+  public SplittingGeoJsonMultiLineWriter(JsonGenerator jsonGenerator, Writer wktWriter, int precision, double maxAllowedSpeedKnts,
+      DistanceCalculator distanceCalculator, Map<String, Object> additionalProperties) {
+    this(jsonGenerator, new WktGeometryEncoder(wktWriter), precision, maxAllowedSpeedKnts, distanceCalculator, additionalProperties);
+  }
+
+  public SplittingGeoJsonMultiLineWriter(JsonGenerator jsonGenerator, GeometryEncoder geometryEncoder, int precision,
+      double maxAllowedSpeedKnts, DistanceCalculator distanceCalculator, Map<String, Object> additionalProperties) {
+    super(jsonGenerator, precision);
+    this.jsonGenerator = jsonGenerator;
+    this.geometryEncoder = geometryEncoder;
+    this.additionalProperties = additionalProperties;
+    this.precision = new FixedPrecision(precision);
+    splitter = new AntimeridianLineSplitter(precision, maxAllowedSpeedKnts, distanceCalculator);
+  }
+
+  private interface Encoding {
+
+    void run() throws IOException;
+  }
+
+  private static void encode(Encoding encoding) {
+    try {
+      encoding.run();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to write geometry", e);
+    }
+  }
+
+  @Override
+  public void startPoint() {
+    super.startPoint();
+    hasCoordinates = true;
+    splitter.startLine();
+    encode(() -> geometryEncoder.startGeometry(GeometryEncoder.Type.POINT));
+  }
+
+  @Override
+  public void startCollection() {
+    super.startCollection();
+    encode(() -> geometryEncoder.startGeometry(GeometryEncoder.Type.GEOMETRY_COLLECTION));
+  }
+
+  @Override
+  public void start() {
+    super.start();
+    hasCoordinates = true;
+    encode(() -> geometryEncoder.startGeometry(GeometryEncoder.Type.MULTI_LINE_STRING));
+  }
+
+  @Override
+  public void startMultiLineString() {
+    super.startMultiLineString();
+    hasCoordinates = true;
+    encode(() -> geometryEncoder.startGeometry(GeometryEncoder.Type.MULTI_LINE_STRING));
+  }
+
+  @Override
+  public void startMultiPoint() {
+    super.startMultiPoint();
+    hasCoordinates = true;
+    // phase 2 joins the points of a MultiPoint as if they were a line
+    splitter.startLine();
+    encode(() -> geometryEncoder.startGeometry(GeometryEncoder.Type.MULTI_POINT));
+  }
+
+  @Override
+  public void endGeometry() {
+    super.endGeometry();
+    encode(geometryEncoder::endGeometry);
+  }
+
+  @Override
+  public void startLine() {
+    super.startLine();
+    splitter.startLine();
+    encode(geometryEncoder::startLine);
+  }
+
+  @Override
+  public void endLine() {
+    super.endLine();
+    encode(geometryEncoder::endLine);
+  }
+
+  @Override
+  public void writeCoordinate(List<Double> values) {
+    if (values.size() < 2) {
+      throw new IllegalArgumentException("Invalid coordinate: " + values);
+    }
+    processCoordinate(values.get(0), values.get(1), values.size() > 2 ? values.get(2) : Double.NaN);
+  }
+
+  @Override
+  public void writeCoordinate(double lon, double lat) {
+    processCoordinate(lon, lat, Double.NaN);
+  }
+
+  @Override
+  public void writeCoordinate(double lon, double lat, double time) {
+    processCoordinate(lon, lat, time);
+  }
+
+  @Override
+  public void writeCoordinate(double lon, double lat, double... additional) {
+    processCoordinate(lon, lat, additional.length > 0 ? additional[0] : Double.NaN);
+  }
+
+  /**
+   * The value phase 2 would read back from the GeoJSON of phase 1, where "-0" is read as an integer.
+   */
+  private double parsed(double value) {
+    return precision.round(value) + 0D;
+  }
+
+  private void processCoordinate(double x, double y, double z) {
+    try {
+      splitter.processCoordinate(parsed(x), parsed(y), Double.isNaN(z) ? z : parsed(z), jsonGenerator, geometryEncoder);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to write GeoJson", e);
+    } catch (ValidationException e) {
+      throw new ValidationRuntimeException(e);
+    }
+  }
+
+  @Override
+  public void finish(GeometryProperties properties, boolean writeEndArray) {
+    try {
+      if (writeEndArray) {
+        jsonGenerator.writeEndArray();
+      }
+      jsonGenerator.writeEndObject();
+      // ends the outermost geometry
+      geometryEncoder.endGeometry();
+      geometryEncoder.flush();
+
+      List<Double> bbox = hasCoordinates ? splitter.getBBox() : null;
+      if (bbox != null) {
+        jsonGenerator.writeFieldName("bbox");
+        jsonGenerator.writeObject(bbox);
+      }
+
+      GeometryProperties.Builder propertiesBuilder = GeometryProperties.Builder.configure(properties)
+          .withDistanceM(splitter.getDistanceM());
+      if (!Double.isNaN(splitter.getAvgSpeedM())) {
+        propertiesBuilder.withAvgSpeedMPS(splitter.getAvgSpeedM());
+      }
+      if (additionalProperties != null) {
+        for (Entry<String, Object> entry : additionalProperties.entrySet()) {
+          propertiesBuilder.withOtherField(entry.getKey(), entry.getValue());
+        }
+      }
+
+      jsonGenerator.writeFieldName("properties");
+      jsonGenerator.writeObject(propertiesBuilder.build());
+      jsonGenerator.writeEndObject();
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to write GeoJson", e);
+    }
+  }
+}
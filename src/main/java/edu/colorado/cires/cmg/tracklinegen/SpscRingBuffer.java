@@ -0,0 +1,125 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded queue between exactly one producer thread and one consumer thread. A full queue blocks the producer and an
+ * empty one the consumer, spinning briefly before parking. The producer {@link #close() closes} the queue after its
+ * last item, and the consumer {@link #cancel() cancels} it to make the producer give up.
+ */
+final class SpscRingBuffer<T> {
+
+  private static final int SPINS = 128;
+  private static final long PARK_NANOS = 20000L;
+
+  private final Object[] items;
+  private final int mask;
+  // the next index to take, written by the consumer only
+  private final AtomicLong head = new AtomicLong();
+  // the next index to put, written by the producer only
+  private final AtomicLong tail = new AtomicLong();
+  private volatile boolean closed;
+  private volatile boolean cancelled;
+
+  SpscRingBuffer(int capacity) {
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    items = new Object[size];
+    mask = size - 1;
+  }
+
+  /**
+   * The number of items the queue holds, the capacity asked for rounded up to a power of two.
+   */
+  int capacity() {
+    return items.length;
+  }
+
+  /**
+   * Adds an item, waiting while the queue is full.
+   *
+   * @return false if the consumer cancelled the queue, in which case the item was not added
+   */
+  boolean put(T item) throws InterruptedException {
+    long t = tail.get();
+    int spins = 0;
+    while (t - head.get() >= items.length) {
+      if (cancelled) {
+        return false;
+      }
+      spins = backOff(spins);
+    }
+    if (cancelled) {
+      return false;
+    }
+    items[(int) t & mask] = item;
+    tail.lazySet(t + 1L);
+    return true;
+  }
+
+  /**
+   * Removes the next item, waiting while the queue is empty.
+   *
+   * @return the item, or null once the queue is closed and empty
+   */
+  T take() throws InterruptedException {
+    long h = head.get();
+    int spins = 0;
+    while (h >= tail.get()) {
+      // closed is set after the last put, so the put is seen here if closed is
+      if (closed && h >= tail.get()) {
+        return null;
+      }
+      spins = backOff(spins);
+    }
+    return remove(h);
+  }
+
+  /**
+   * Removes the next item without waiting.
+   *
+   * @return the item, or null if the queue is empty
+   */
+  T poll() {
+    long h = head.get();
+    return h < tail.get() ? remove(h) : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T remove(long h) {
+    int index = (int) h & mask;
+    T item = (T) items[index];
+    items[index] = null;
+    head.lazySet(h + 1L);
+    return item;
+  }
+
+  /**
+   * Called by the producer after its last item.
+   */
+  void close() {
+    closed = true;
+  }
+
+  /**
+   * Called by the consumer to stop the producer. Items still in the queue are dropped.
+   */
+  void cancel() {
+    cancelled = true;
+  }
+
+  private static int backOff(int spins) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    if (spins < SPINS) {
+      Thread.onSpinWait();
+    } else {
+      LockSupport.parkNanos(PARK_NANOS);
+    }
+    return spins + 1;
+  }
+}
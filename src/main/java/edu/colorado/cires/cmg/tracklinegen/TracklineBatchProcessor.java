@@ -0,0 +1,246 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many {@link TracklineJob}s on a fixed number of threads. Waiting jobs are started largest first, as long as the
+ * total weight of the running jobs stays within the maximum weight. A job heavier than the maximum runs on its own.
+ * A job that fails only fails its own future; the other jobs carry on.
+ * <p>
+ * Jobs may share an {@code ObjectMapper}, a {@code GeometryFactory}, a {@link GeometrySimplifier}, a
+ * {@link SimplificationAlgorithm} and a {@link DistanceCalculator}, which are all safe to use from several threads.
+ * Everything else a job writes to, such as its {@link GeoJsonMultiLineWriter} and its listeners, must be its own, as
+ * it is when it is created in {@link TracklineProcessor#createProcessingContext()}.
+ */
+public class TracklineBatchProcessor implements AutoCloseable {
+
+  private final ExecutorService executor;
+  private final int threads;
+  private final long maxWeight;
+
+  private final Object lock = new Object();
+  private final PriorityQueue<Pending> queue = new PriorityQueue<>();
+  private long sequence;
+  private int running;
+  private long runningWeight;
+  private boolean closed;
+
+  private TracklineBatchProcessor(Builder builder) {
+    threads = builder.threads;
+    maxWeight = builder.maxWeight;
+    executor = Executors.newFixedThreadPool(threads, new BatchThreadFactory());
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Queues the jobs and returns a future for each, in the same order. Cancelling a future stops its job from starting,
+   * but does not interrupt a job that is already running.
+   */
+  public List<CompletableFuture<Void>> submit(Collection<TracklineJob> jobs) {
+    List<CompletableFuture<Void>> futures = new ArrayList<>(jobs.size());
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("Batch processor is closed");
+      }
+      for (TracklineJob job : jobs) {
+        Pending pending = new Pending(job, sequence++);
+        queue.add(pending);
+        futures.add(pending.future);
+      }
+      dispatch();
+    }
+    return futures;
+  }
+
+  public CompletableFuture<Void> submit(TracklineJob job) {
+    return submit(Collections.singletonList(job)).get(0);
+  }
+
+  /**
+   * Runs the jobs and waits for all of them. A cancelled job counts as failed with its {@link CancellationException},
+   * an {@link Error} thrown by a job is thrown from here.
+   *
+   * @return the failure of each job that failed, in the order of {@code jobs}
+   */
+  public Map<TracklineJob, Throwable> process(Collection<TracklineJob> jobs) throws InterruptedException {
+    List<TracklineJob> list = new ArrayList<>(jobs);
+    List<CompletableFuture<Void>> futures = submit(list);
+    Map<TracklineJob, Throwable> failures = new LinkedHashMap<>();
+    for (int i = 0; i < list.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        failures.put(list.get(i), e.getCause());
+      } catch (CancellationException e) {
+        failures.put(list.get(i), e);
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * Stops accepting jobs, waits for the queued and running jobs to finish and stops the threads. If interrupted, the
+   * queued jobs are cancelled and it returns with the interrupt flag set, without waiting for the running jobs.
+   */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      closed = true;
+      try {
+        while (running > 0 || !queue.isEmpty()) {
+          lock.wait();
+        }
+      } catch (InterruptedException e) {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+          pending.future.cancel(false);
+        }
+        Thread.currentThread().interrupt();
+      }
+    }
+    executor.shutdown();
+  }
+
+  private void dispatch() {
+    while (running < threads && !queue.isEmpty()) {
+      Pending next = queue.peek();
+      if (next.future.isDone()) {
+        // cancelled while waiting
+        queue.poll();
+        continue;
+      }
+      long weight = next.job.getWeight();
+      if (running > 0 && weight > maxWeight - runningWeight) {
+        // keep the order, or small jobs could keep the largest from ever starting
+        break;
+      }
+      queue.poll();
+      running++;
+      runningWeight += weight;
+      executor.execute(() -> run(next));
+    }
+    if (running == 0 && queue.isEmpty()) {
+      lock.notifyAll();
+    }
+  }
+
+  private void run(Pending pending) {
+    try {
+      pending.job.getProcessor().process();
+      pending.future.complete(null);
+    } catch (Exception e) {
+      pending.future.completeExceptionally(e);
+    } catch (Error e) {
+      // the future still completes, so nobody waits on it forever
+      pending.future.completeExceptionally(e);
+      throw e;
+    } finally {
+      synchronized (lock) {
+        running--;
+        runningWeight -= pending.job.getWeight();
+        dispatch();
+      }
+    }
+  }
+
+  private static final class Pending implements Comparable<Pending> {
+
+    private final TracklineJob job;
+    private final long sequence;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private Pending(TracklineJob job, long sequence) {
+      this.job = job;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Pending other) {
+      // heaviest first, then in the order submitted
+      int compare = Long.compare(other.job.getWeight(), job.getWeight());
+      return compare != 0 ? compare : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(sequence);
+    }
+  }
+
+  private static final class BatchThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger POOL = new AtomicInteger();
+
+    private final int pool = POOL.incrementAndGet();
+    private final AtomicInteger thread = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread t = new Thread(runnable, "trackline-batch-" + pool + "-" + thread.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+
+  public static Builder configure() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long maxWeight = Long.MAX_VALUE;
+
+    private Builder() {
+
+    }
+
+    public Builder withThreads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * The maximum total {@link TracklineJob#getWeight() weight} of the jobs running at the same time.
+     */
+    public Builder withMaxWeight(long maxWeight) {
+      this.maxWeight = maxWeight;
+      return this;
+    }
+
+    public TracklineBatchProcessor build() {
+      if (threads < 1) {
+        throw new IllegalArgumentException("Threads must be at least 1: " + threads);
+      }
+      return new TracklineBatchProcessor(this);
+    }
+  }
+}
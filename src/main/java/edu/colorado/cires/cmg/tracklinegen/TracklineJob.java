@@ -0,0 +1,39 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+/**
+ * A {@link TracklineProcessor} to run in a {@link TracklineBatchProcessor}. The weight is an estimate of the memory or
+ * work the job takes, such as the size of its input in bytes. Larger jobs are started first, and the weight of running
+ * jobs is limited by {@link TracklineBatchProcessor.Builder#withMaxWeight(long)}.
+ */
+public final class TracklineJob {
+
+  private final String name;
+  private final TracklineProcessor<?, ?, ?> processor;
+  private final long weight;
+
+  public TracklineJob(String name, TracklineProcessor<?, ?, ?> processor, long weight) {
+    if (weight < 0) {
+      throw new IllegalArgumentException("Job weight must not be negative: " + weight);
+    }
+    this.name = name;
+    this.processor = processor;
+    this.weight = weight;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public TracklineProcessor<?, ?, ?> getProcessor() {
+    return processor;
+  }
+
+  public long getWeight() {
+    return weight;
+  }
+
+  @Override
+  public String toString() {
+    return "TracklineJob{name='" + name + "', weight=" + weight + '}';
+  }
+}
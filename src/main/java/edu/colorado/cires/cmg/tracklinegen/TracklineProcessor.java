@@ -2,29 +2,179 @@ package edu.colorado.cires.cmg.tracklinegen;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Iterator;
 import java.util.List;
 
 public abstract class TracklineProcessor<C extends Closeable, D extends DataRow, L extends RowListener> {
 
+  public static final int DEFAULT_ROW_BATCH_SIZE = 1;
+  /**
+   * A row batch size for {@link #getRowBatchSize()} when the iterator returns a new row from each call to
+   * {@code next()}.
+   */
+  public static final int BATCHED_ROW_BATCH_SIZE = 1024;
+  public static final int DEFAULT_PIPELINE_BATCH_SIZE = 1024;
+  public static final int DEFAULT_PIPELINE_CAPACITY = 16;
+
+  /**
+   * Reads the rows and hands them to the listeners in batches of {@link #getRowBatchSize()}.
+   */
   public void process() throws IOException {
     try (
         C context = createProcessingContext()
     ) {
       Iterator<D> iterator = getRows(context);
-      RowProcessor rowProcessor = new RowProcessor(createRowListeners(context));
-      rowProcessor.start();
-      while (iterator.hasNext()){
-        D row = iterator.next();
-        rowProcessor.processRow(row);
+      try (RowProcessor<D, ?> rowProcessor = createRowProcessor(createRowListeners(context))) {
+        rowProcessor.start();
+        RowBatch<D> batch = new RowBatch<>(getRowBatchSize());
+        while (iterator.hasNext()) {
+          if (batch.add(iterator.next())) {
+            rowProcessor.processRows(batch);
+            batch.clear();
+          }
+        }
+        if (!batch.isEmpty()) {
+          rowProcessor.processRows(batch);
+        }
+        rowProcessor.finish();
+      }
+    }
+  }
+
+  public void processPipelined() throws IOException {
+    processPipelined(DEFAULT_PIPELINE_BATCH_SIZE, DEFAULT_PIPELINE_CAPACITY);
+  }
+
+  /**
+   * Like {@link #process()}, but the rows are read on a thread of their own and handed to the listeners in batches of
+   * {@code batchSize} through a queue of {@code capacity} batches, so that reading overlaps with simplification. The
+   * reader waits while the queue is full. The iterator must return a new row from each call to {@code next()}.
+   * <p>
+   * A failure while reading is thrown here once the rows read before it are processed, without finishing the
+   * listeners. A failure in a listener stops the reader. To also move writing the output off the processing thread,
+   * write through a {@link PipelinedOutputStream} created with the context.
+   */
+  public void processPipelined(int batchSize, int capacity) throws IOException {
+    SpscRingBuffer<RowBatch<D>> batches = new SpscRingBuffer<>(capacity);
+    RowReader<D> reader = null;
+    try (
+        C context = createProcessingContext()
+    ) {
+      Iterator<D> iterator = getRows(context);
+      reader = new RowReader<>(iterator, batches, Math.max(batchSize, 1));
+      reader.start();
+      try (RowProcessor<D, ?> rowProcessor = createRowProcessor(createRowListeners(context))) {
+        rowProcessor.start();
+        RowBatch<D> batch;
+        while ((batch = batches.take()) != null) {
+          rowProcessor.processRows(batch);
+        }
+        reader.throwFailure();
+        rowProcessor.finish();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while processing rows");
+      } finally {
+        batches.cancel();
+      }
+    } finally {
+      // a reader blocked in the iterator returns once the context is closed
+      if (reader != null) {
+        join(reader);
       }
-      rowProcessor.finish();
     }
   }
 
+  private static void join(Thread thread) {
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * The number of rows {@link #process()} reads before handing them to the listeners. The default of 1 hands each row
+   * over as soon as it is read, as rows always were, so an iterator may reuse one row object such as a
+   * {@link MutableDataRow}.
+   * <p>
+   * Batching is opt-in: override to return more, for example {@link #BATCHED_ROW_BATCH_SIZE}, only if the iterator
+   * returns a new row from each call to {@code next()} that is not changed afterwards, as the listeners see a row only
+   * after the rest of its batch is read.
+   */
+  protected int getRowBatchSize() {
+    return DEFAULT_ROW_BATCH_SIZE;
+  }
+
+  /**
+   * The row processor that drives the listeners. Override to return a {@link ParallelRowProcessor} to run the listeners
+   * in parallel, for example {@code return new ParallelRowProcessor<>(listeners, batchSize, capacity);}.
+   */
+  @SuppressWarnings("unchecked")
+  protected RowProcessor<D, ?> createRowProcessor(List<L> listeners) {
+    // L is bounded by the raw RowListener, so listeners declared for a subtype of D are handed the rows as before
+    return new RowProcessor<>((List<RowListener<D>>) (List<?>) listeners);
+  }
+
   protected abstract Iterator<D> getRows(C context);
 
   protected abstract List<L> createRowListeners(C context);
 
   protected abstract C createProcessingContext();
+
+  private static final class RowReader<D extends DataRow> extends Thread {
+
+    private final Iterator<D> iterator;
+    private final SpscRingBuffer<RowBatch<D>> batches;
+    private final int batchSize;
+    private volatile RuntimeException runtimeFailure;
+    private volatile Error errorFailure;
+
+    private RowReader(Iterator<D> iterator, SpscRingBuffer<RowBatch<D>> batches, int batchSize) {
+      super("trackline-reader");
+      setDaemon(true);
+      this.iterator = iterator;
+      this.batches = batches;
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+      RowBatch<D> batch = new RowBatch<>(batchSize);
+      try {
+        try {
+          while (iterator.hasNext()) {
+            if (batch.add(iterator.next())) {
+              if (!batches.put(batch)) {
+                return;
+              }
+              batch = new RowBatch<>(batchSize);
+            }
+          }
+        } catch (RuntimeException e) {
+          runtimeFailure = e;
+        } catch (Error e) {
+          errorFailure = e;
+        }
+        // the rows read before a failure are still processed
+        if (!batch.isEmpty()) {
+          batches.put(batch);
+        }
+      } catch (InterruptedException e) {
+        runtimeFailure = new IllegalStateException("Row reader interrupted", e);
+      } finally {
+        batches.close();
+      }
+    }
+
+    private void throwFailure() {
+      if (errorFailure != null) {
+        throw errorFailure;
+      }
+      if (runtimeFailure != null) {
+        throw runtimeFailure;
+      }
+    }
+  }
 }
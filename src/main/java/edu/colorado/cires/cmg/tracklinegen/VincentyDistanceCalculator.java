@@ -0,0 +1,69 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+/**
+ * WGS84 geodesic distance from Vincenty's inverse formula, computed without allocating. Agrees with
+ * {@link GeodeticDistanceCalculator} to well under a millimeter. Nearly antipodal points, where the iteration does
+ * not converge, are delegated to {@link GeodeticDistanceCalculator}.
+ */
+public class VincentyDistanceCalculator implements DistanceCalculator {
+
+  private static final double A = 6378137D;
+  private static final double F = 1D / 298.257223563;
+  private static final double B = A * (1D - F);
+  private static final double B2 = B * B;
+  private static final double A2_MINUS_B2 = A * A - B2;
+  private static final int MAX_ITERATIONS = 200;
+  private static final double CONVERGENCE = 1e-12;
+
+  private final DistanceCalculator fallback = new GeodeticDistanceCalculator();
+
+  @Override
+  public double getDistance(double lon1, double lat1, double lon2, double lat2) {
+    double l = Math.toRadians(lon2 - lon1);
+    double tanU1 = (1D - F) * Math.tan(Math.toRadians(lat1));
+    double cosU1 = 1D / Math.sqrt(1D + tanU1 * tanU1);
+    double sinU1 = tanU1 * cosU1;
+    double tanU2 = (1D - F) * Math.tan(Math.toRadians(lat2));
+    double cosU2 = 1D / Math.sqrt(1D + tanU2 * tanU2);
+    double sinU2 = tanU2 * cosU2;
+
+    double lambda = l;
+    double sinSigma;
+    double cosSigma;
+    double sigma;
+    double cos2Alpha;
+    double cos2SigmaM;
+    int iterations = 0;
+    double previous;
+    do {
+      double sinLambda = Math.sin(lambda);
+      double cosLambda = Math.cos(lambda);
+      double t1 = cosU2 * sinLambda;
+      double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+      sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+      if (Double.compare(sinSigma, 0D) == 0) {
+        return 0D;
+      }
+      cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+      sigma = Math.atan2(sinSigma, cosSigma);
+      double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+      cos2Alpha = 1D - sinAlpha * sinAlpha;
+      // on the equator cos2Alpha is 0 and cos2SigmaM does not matter
+      cos2SigmaM = Double.compare(cos2Alpha, 0D) == 0 ? 0D : cosSigma - 2D * sinU1 * sinU2 / cos2Alpha;
+      double c = F / 16D * cos2Alpha * (4D + F * (4D - 3D * cos2Alpha));
+      previous = lambda;
+      lambda = l + (1D - c) * F * sinAlpha
+          * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1D + 2D * cos2SigmaM * cos2SigmaM)));
+      if (++iterations > MAX_ITERATIONS || Math.abs(lambda) > Math.PI * 2D) {
+        return fallback.getDistance(lon1, lat1, lon2, lat2);
+      }
+    } while (Math.abs(lambda - previous) > CONVERGENCE);
+
+    double u2 = cos2Alpha * A2_MINUS_B2 / B2;
+    double a = 1D + u2 / 16384D * (4096D + u2 * (-768D + u2 * (320D - 175D * u2)));
+    double b = u2 / 1024D * (256D + u2 * (-128D + u2 * (74D - 47D * u2)));
+    double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4D * (cosSigma * (-1D + 2D * cos2SigmaM * cos2SigmaM)
+        - b / 6D * cos2SigmaM * (-3D + 4D * sinSigma * sinSigma) * (-3D + 4D * cos2SigmaM * cos2SigmaM)));
+    return B * a * (sigma - deltaSigma);
+  }
+}
@@ -0,0 +1,171 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Visvalingam-Whyatt simplification. Points are removed smallest triangle area first while that area is below the
+ * square of the tolerance, the same rule and result as the JTS {@code VWSimplifier}. The areas are kept in an indexed
+ * min-heap instead of being scanned for every removal, so a line of n points takes O(n log n).
+ */
+public class VisvalingamWhyattAlgorithm implements SimplificationAlgorithm {
+
+  @Override
+  public Coordinate[] simplify(Coordinate[] coordinates, double tolerance) {
+    int size = coordinates.length;
+    double[] x = new double[size];
+    double[] y = new double[size];
+    for (int i = 0; i < size; i++) {
+      x[i] = coordinates[i].getX();
+      y[i] = coordinates[i].getY();
+    }
+    int[] previous = new int[size];
+    int[] next = new int[size];
+    for (int i = 0; i < size; i++) {
+      previous[i] = i - 1;
+      next[i] = i + 1;
+    }
+
+    AreaHeap heap = new AreaHeap(size);
+    for (int i = 1; i < size - 1; i++) {
+      heap.add(i, area(x, y, i - 1, i, i + 1));
+    }
+    heap.heapify();
+
+    double areaTolerance = tolerance * tolerance;
+    while (!heap.isEmpty() && heap.minArea() < areaTolerance) {
+      int removed = heap.removeMin();
+      int before = previous[removed];
+      int after = next[removed];
+      next[before] = after;
+      previous[after] = before;
+      if (previous[before] >= 0) {
+        heap.update(before, area(x, y, previous[before], before, after));
+      }
+      if (next[after] < size) {
+        heap.update(after, area(x, y, before, after, next[after]));
+      }
+    }
+
+    List<Coordinate> simplified = new ArrayList<>();
+    int last = -1;
+    for (int i = 0; i < size; i = next[i]) {
+      // repeated points are dropped
+      if (last < 0 || !coordinates[i].equals2D(coordinates[last])) {
+        simplified.add(new Coordinate(coordinates[i]));
+        last = i;
+      }
+    }
+    if (simplified.size() < 2) {
+      simplified.add(new Coordinate(simplified.get(0)));
+    }
+    return simplified.toArray(new Coordinate[0]);
+  }
+
+  private static double area(double[] x, double[] y, int a, int b, int c) {
+    // same arithmetic as JTS Triangle.area
+    return Math.abs(((x[c] - x[a]) * (y[b] - y[a]) - (x[b] - x[a]) * (y[c] - y[a])) / 2);
+  }
+
+  /**
+   * Min-heap of points by area, ties broken by the lower point index, with the heap position of each point so its
+   * area can be changed in place.
+   */
+  private static final class AreaHeap {
+
+    private final int[] heap;
+    private final int[] positions;
+    private final double[] areas;
+    private int size;
+
+    private AreaHeap(int capacity) {
+      heap = new int[capacity];
+      positions = new int[capacity];
+      areas = new double[capacity];
+    }
+
+    private void add(int point, double area) {
+      areas[point] = area;
+      heap[size] = point;
+      positions[point] = size;
+      size++;
+    }
+
+    private void heapify() {
+      for (int i = size / 2 - 1; i >= 0; i--) {
+        siftDown(i);
+      }
+    }
+
+    private boolean isEmpty() {
+      return size == 0;
+    }
+
+    private double minArea() {
+      return areas[heap[0]];
+    }
+
+    private int removeMin() {
+      int min = heap[0];
+      size--;
+      if (size > 0) {
+        move(heap[size], 0);
+        siftDown(0);
+      }
+      positions[min] = -1;
+      return min;
+    }
+
+    private void update(int point, double area) {
+      int position = positions[point];
+      double previous = areas[point];
+      areas[point] = area;
+      if (Double.compare(area, previous) < 0) {
+        siftUp(position);
+      } else {
+        siftDown(position);
+      }
+    }
+
+    private boolean less(int a, int b) {
+      int compare = Double.compare(areas[a], areas[b]);
+      return compare < 0 || (compare == 0 && a < b);
+    }
+
+    private void move(int point, int position) {
+      heap[position] = point;
+      positions[point] = position;
+    }
+
+    private void siftUp(int position) {
+      int point = heap[position];
+      while (position > 0) {
+        int parent = (position - 1) >>> 1;
+        if (!less(point, heap[parent])) {
+          break;
+        }
+        move(heap[parent], position);
+        position = parent;
+      }
+      move(point, position);
+    }
+
+    private void siftDown(int position) {
+      int point = heap[position];
+      int half = size >>> 1;
+      while (position < half) {
+        int child = 2 * position + 1;
+        if (child + 1 < size && less(heap[child + 1], heap[child])) {
+          child++;
+        }
+        if (!less(heap[child], point)) {
+          break;
+        }
+        move(heap[child], position);
+        position = child;
+      }
+      move(point, position);
+    }
+  }
+}
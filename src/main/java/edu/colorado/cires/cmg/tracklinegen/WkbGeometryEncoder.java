@@ -0,0 +1,169 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Writes the geometry as big endian 2D WKB, with the values rounded as they are for the GeoJSON. WKB puts the number of
+ * members ahead of them, so each geometry is collected in memory and written to the stream once it ends. An empty POINT
+ * is written with NaN coordinates.
+ */
+public final class WkbGeometryEncoder implements GeometryEncoder {
+
+  private static final int BIG_ENDIAN = 0;
+  private static final int WKB_POINT = 1;
+  private static final int WKB_LINE_STRING = 2;
+  private static final int WKB_MULTI_POINT = 4;
+  private static final int WKB_MULTI_LINE_STRING = 5;
+  private static final int WKB_GEOMETRY_COLLECTION = 7;
+
+  private final OutputStream out;
+  private final FixedPrecision precision;
+  private final Deque<Part> parts = new ArrayDeque<>();
+
+  // x and y of the coordinates of the open line
+  private double[] line = new double[1024];
+  private int lineLength;
+  private boolean inLine;
+
+  public WkbGeometryEncoder(OutputStream out, int precision) {
+    this.out = out;
+    this.precision = new FixedPrecision(precision);
+  }
+
+  private Part current() {
+    Part part = parts.peek();
+    if (part == null) {
+      throw new IllegalStateException("No open geometry");
+    }
+    return part;
+  }
+
+  @Override
+  public void startGeometry(Type type) {
+    parts.push(new Part(type));
+  }
+
+  @Override
+  public void endGeometry() throws IOException {
+    Part part = current();
+    parts.pop();
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream(part.body.size() + 32);
+    DataOutputStream data = new DataOutputStream(encoded);
+    data.writeByte(BIG_ENDIAN);
+    switch (part.type) {
+      case POINT:
+        data.writeInt(WKB_POINT);
+        data.writeDouble(part.x);
+        data.writeDouble(part.y);
+        break;
+      case MULTI_POINT:
+        data.writeInt(WKB_MULTI_POINT);
+        data.writeInt(part.count);
+        break;
+      case MULTI_LINE_STRING:
+        data.writeInt(WKB_MULTI_LINE_STRING);
+        data.writeInt(part.count);
+        break;
+      case GEOMETRY_COLLECTION:
+        data.writeInt(WKB_GEOMETRY_COLLECTION);
+        data.writeInt(part.count);
+        break;
+      default:
+        throw new IllegalStateException("Unsupported type: " + part.type);
+    }
+    part.body.writeTo(encoded);
+    Part parent = parts.peek();
+    if (parent == null) {
+      encoded.writeTo(out);
+    } else {
+      encoded.writeTo(parent.body);
+      parent.count++;
+    }
+  }
+
+  @Override
+  public void startLine() {
+    inLine = true;
+    lineLength = 0;
+  }
+
+  @Override
+  public void endLine() throws IOException {
+    writeLine(current());
+    inLine = false;
+  }
+
+  @Override
+  public void breakLine() throws IOException {
+    Part part = current();
+    if (!inLine) {
+      throw new IllegalStateException("Line break outside of a line");
+    }
+    writeLine(part);
+    lineLength = 0;
+  }
+
+  private void writeLine(Part part) throws IOException {
+    part.data.writeByte(BIG_ENDIAN);
+    part.data.writeInt(WKB_LINE_STRING);
+    part.data.writeInt(lineLength / 2);
+    for (int i = 0; i < lineLength; i++) {
+      part.data.writeDouble(line[i]);
+    }
+    part.count++;
+  }
+
+  @Override
+  public void writeCoordinate(double x, double y, char[] text, int xLength, int yLength) throws IOException {
+    Part part = current();
+    double roundedX = precision.round(x);
+    double roundedY = precision.round(y);
+    switch (part.type) {
+      case POINT:
+        part.x = roundedX;
+        part.y = roundedY;
+        break;
+      case MULTI_POINT:
+        part.data.writeByte(BIG_ENDIAN);
+        part.data.writeInt(WKB_POINT);
+        part.data.writeDouble(roundedX);
+        part.data.writeDouble(roundedY);
+        part.count++;
+        break;
+      case MULTI_LINE_STRING:
+        if (lineLength + 2 > line.length) {
+          line = Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = roundedX;
+        line[lineLength++] = roundedY;
+        break;
+      default:
+        throw new IllegalStateException("Coordinate outside of a geometry with coordinates");
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  private static final class Part {
+
+    private final Type type;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final DataOutputStream data = new DataOutputStream(body);
+    private int count;
+    private double x = Double.NaN;
+    private double y = Double.NaN;
+
+    private Part(Type type) {
+      this.type = type;
+    }
+  }
+}
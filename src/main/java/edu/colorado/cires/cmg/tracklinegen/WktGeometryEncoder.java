@@ -0,0 +1,199 @@
+package edu.colorado.cires.cmg.tracklinegen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes the geometry as WKT, with the values as formatted for the GeoJSON. The text is collected in a buffer and
+ * written in blocks, as ASCII bytes to a stream or as chars to a writer. Call {@link #flush()} when done, closing the
+ * output is up to the caller.
+ */
+public final class WktGeometryEncoder implements GeometryEncoder {
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private static final char[] MULTILINESTRING = "MULTILINESTRING (".toCharArray();
+  private static final char[] MULTIPOINT = "MULTIPOINT (".toCharArray();
+  private static final char[] POINT = "POINT (".toCharArray();
+  private static final char[] GEOMETRYCOLLECTION = "GEOMETRYCOLLECTION (".toCharArray();
+  private static final char[] LINE_BREAK = "), (".toCharArray();
+  private static final char[] POINT_END = " )".toCharArray();
+
+  private final OutputStream out;
+  private final Writer writer;
+  private final char[] buffer;
+  private final byte[] bytes;
+  private int position;
+
+  // the open geometries and lines, null for a line, with the number of members written to each
+  private Type[] types = new Type[8];
+  private int[] counts = new int[8];
+  private int depth;
+
+  public WktGeometryEncoder(OutputStream out) {
+    this(out, DEFAULT_BUFFER_SIZE);
+  }
+
+  public WktGeometryEncoder(OutputStream out, int bufferSize) {
+    this.out = out;
+    writer = null;
+    buffer = new char[Math.max(bufferSize, 1)];
+    bytes = new byte[buffer.length];
+  }
+
+  public WktGeometryEncoder(Writer writer) {
+    this(writer, DEFAULT_BUFFER_SIZE);
+  }
+
+  public WktGeometryEncoder(Writer writer, int bufferSize) {
+    out = null;
+    this.writer = writer;
+    buffer = new char[Math.max(bufferSize, 1)];
+    bytes = null;
+  }
+
+  private void push(Type type) {
+    if (depth == types.length) {
+      types = Arrays.copyOf(types, depth * 2);
+      counts = Arrays.copyOf(counts, depth * 2);
+    }
+    types[depth] = type;
+    counts[depth] = 0;
+    depth++;
+  }
+
+  private Type pop() {
+    if (depth == 0) {
+      throw new IllegalStateException("Nothing to end");
+    }
+    return types[--depth];
+  }
+
+  /**
+   * Writes a separator unless this is the first member of the innermost open geometry or line.
+   */
+  private void nextMember() throws IOException {
+    if (depth > 0 && counts[depth - 1]++ > 0) {
+      write(',');
+    }
+  }
+
+  @Override
+  public void startGeometry(Type type) throws IOException {
+    nextMember();
+    switch (type) {
+      case MULTI_LINE_STRING:
+        write(MULTILINESTRING, 0, MULTILINESTRING.length);
+        break;
+      case MULTI_POINT:
+        write(MULTIPOINT, 0, MULTIPOINT.length);
+        break;
+      case POINT:
+        write(POINT, 0, POINT.length);
+        break;
+      case GEOMETRY_COLLECTION:
+        write(GEOMETRYCOLLECTION, 0, GEOMETRYCOLLECTION.length);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+    push(type);
+  }
+
+  @Override
+  public void endGeometry() throws IOException {
+    if (pop() == Type.POINT) {
+      write(POINT_END, 0, POINT_END.length);
+    } else {
+      write(')');
+    }
+  }
+
+  @Override
+  public void startLine() throws IOException {
+    nextMember();
+    write('(');
+    push(null);
+  }
+
+  @Override
+  public void endLine() throws IOException {
+    pop();
+    write(')');
+  }
+
+  @Override
+  public void breakLine() throws IOException {
+    if (depth == 0 || types[depth - 1] != null) {
+      throw new IllegalStateException("Line break outside of a line");
+    }
+    write(LINE_BREAK, 0, LINE_BREAK.length);
+    counts[depth - 1] = 0;
+  }
+
+  @Override
+  public void writeCoordinate(double x, double y, char[] text, int xLength, int yLength) throws IOException {
+    nextMember();
+    write(' ');
+    write(text, 0, xLength);
+    write(' ');
+    write(text, xLength, yLength);
+  }
+
+  private void write(char c) throws IOException {
+    if (position == buffer.length) {
+      flushBuffer();
+    }
+    buffer[position++] = c;
+  }
+
+  private void write(char[] chars, int offset, int length) throws IOException {
+    if (length > buffer.length - position) {
+      flushBuffer();
+      if (length > buffer.length) {
+        writeThrough(chars, offset, length);
+        return;
+      }
+    }
+    System.arraycopy(chars, offset, buffer, position, length);
+    position += length;
+  }
+
+  private void writeThrough(char[] chars, int offset, int length) throws IOException {
+    if (writer != null) {
+      writer.write(chars, offset, length);
+    } else {
+      for (int i = 0; i < length; i++) {
+        out.write(chars[offset + i]);
+      }
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (position == 0) {
+      return;
+    }
+    if (writer != null) {
+      writer.write(buffer, 0, position);
+    } else {
+      // WKT is ASCII
+      for (int i = 0; i < position; i++) {
+        bytes[i] = (byte) buffer[i];
+      }
+      out.write(bytes, 0, position);
+    }
+    position = 0;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    if (writer != null) {
+      writer.flush();
+    } else {
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package edu.colorado.cires.cmg.tracklinegen.synthetic;
+
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes {@link DataRow}s in the tab separated MB-System FNV layout used by the fixtures under src/test/resources.
+ * Only the time and center position columns carry data; heading, speed and the port/starboard columns are filled in
+ * so the files have the same shape as real ones.
+ */
+public final class FnvFileWriter {
+
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy MM dd HH mm ss.SSS'000'", Locale.ENGLISH)
+      .withZone(ZoneOffset.UTC);
+
+  public static void write(Iterator<? extends DataRow> rows, Path file) {
+    try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+      while (rows.hasNext()) {
+        writeRow(writer, rows.next());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write " + file, e);
+    }
+  }
+
+  /**
+   * Splits the rows over {@code prefix_NNNN.fnv} files in {@code directory} of at most {@code rowsPerFile} rows each.
+   */
+  public static List<Path> write(Iterator<? extends DataRow> rows, Path directory, String prefix, long rowsPerFile) {
+    List<Path> files = new ArrayList<>();
+    try {
+      Files.createDirectories(directory);
+      while (rows.hasNext()) {
+        Path file = directory.resolve(String.format(Locale.ENGLISH, "%s_%04d.fnv", prefix, files.size()));
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+          for (long i = 0; i < rowsPerFile && rows.hasNext(); i++) {
+            writeRow(writer, rows.next());
+          }
+        }
+        files.add(file);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write " + directory, e);
+    }
+    return files;
+  }
+
+  private static void writeRow(BufferedWriter writer, DataRow row) throws IOException {
+    long millis = row.getTimestamp().toEpochMilli();
+    double lon = row.getLon();
+    double lat = row.getLat();
+    writer.write(DATE.format(row.getTimestamp()));
+    writer.write(String.format(Locale.ENGLISH, "\t%d.%03d000\t%15.10f\t%15.10f\t  0.000\t 0.000\t0.0000\t 0.000\t 0.000\t 0.0000\t%15.10f\t%15.10f\t%15.10f\t%15.10f",
+        Math.floorDiv(millis, 1000L), Math.floorMod(millis, 1000L), lon, lat, lon, lat, lon, lat));
+    writer.newLine();
+  }
+
+  private FnvFileWriter() {
+
+  }
+}
@@ -0,0 +1,91 @@
+package edu.colorado.cires.cmg.tracklinegen.synthetic;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationMode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.PrecisionModel;
+
+/**
+ * A survey of transits and lawnmower lines, simplified in one {@link BaseRowListener} to a single GeoJSON line, for
+ * comparing the {@link SimplificationMode}s.
+ */
+public final class SimplifiedSurvey {
+
+  public static final int GEO_JSON_PRECISION = 5;
+  public static final double TOLERANCE = 0.0001;
+  public static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory(new PrecisionModel(), 4326);
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private SimplifiedSurvey() {
+
+  }
+
+  public static List<DataRow> rows(long seed) {
+    SyntheticTrackline trackline = SyntheticTrackline.Builder.configure()
+        .withSeed(seed)
+        .withStart(Instant.parse("2020-01-01T00:00:00Z"), -150D, 20D)
+        .withMaxPoints(60000L)
+        .withRepeat(true)
+        .withTransit(Duration.ofHours(2), 11D, 250D, 1D)
+        .withLawnmower(6, 2D, 0.25D, 6D, 10D)
+        .build();
+    List<DataRow> rows = new ArrayList<>();
+    trackline.forEach(rows::add);
+    return rows;
+  }
+
+  /**
+   * Simplifies the rows at {@link #TOLERANCE}, without splitting the line.
+   */
+  public static JsonNode simplify(List<DataRow> rows, SimplificationMode mode, int batchSize,
+      long maxAllowedSimplifiedPoints) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = OBJECT_MAPPER.getFactory().createGenerator(out)) {
+      BaseRowListener<DataRow> listener = new BaseRowListener<>(BaseRowListenerConfiguration.configure()
+          .withGeometrySimplifier(new GeometrySimplifier(TOLERANCE))
+          .withLineWriter(new GeoJsonMultiLineWriter(jsonGenerator, GEO_JSON_PRECISION))
+          .withBatchSize(batchSize)
+          .withFilterRow(row -> true)
+          .withMaxAllowedSimplifiedPoints(maxAllowedSimplifiedPoints)
+          .withMaxAllowedSpeedKnts(0D)
+          .withGeometryFactory(GEOMETRY_FACTORY)
+          .withGeoJsonPrecision(GEO_JSON_PRECISION)
+          .withSimplificationMode(mode)
+          .build());
+      listener.start();
+      rows.forEach(listener::processRow);
+      listener.finish();
+    }
+    return OBJECT_MAPPER.readTree(out.toByteArray());
+  }
+
+  /**
+   * The line of a GeoJSON feature written by {@link #simplify}.
+   */
+  public static LineString line(JsonNode geoJson) {
+    JsonNode lines = geoJson.get("geometry").get("coordinates");
+    if (lines.size() != 1) {
+      throw new IllegalArgumentException("Expected one line but there are " + lines.size());
+    }
+    List<Coordinate> coordinates = new ArrayList<>();
+    lines.get(0).forEach(coordinate -> coordinates.add(
+        new Coordinate(coordinate.get(0).asDouble(), coordinate.get(1).asDouble())));
+    return GEOMETRY_FACTORY.createLineString(coordinates.toArray(new Coordinate[0]));
+  }
+}
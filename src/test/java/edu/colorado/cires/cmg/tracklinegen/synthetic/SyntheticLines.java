@@ -0,0 +1,77 @@
+package edu.colorado.cires.cmg.tracklinegen.synthetic;
+
+import java.util.Random;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Deterministic lines in degrees for comparing simplification algorithms, including the shapes that are worst for
+ * Douglas-Peucker. The z of each point is its time in milliseconds at 1 Hz.
+ */
+public final class SyntheticLines {
+
+  public enum Shape {
+    /**
+     * Correlated steps of a few meters, crossing itself now and then.
+     */
+    RANDOM_WALK,
+    /**
+     * Long north-south survey lines with a few meters of noise.
+     */
+    LAWNMOWER,
+    /**
+     * Circles drifting outwards with no noise. Each Douglas-Peucker split only peels off the outer turn.
+     */
+    SPIRAL,
+    /**
+     * Station keeping: positions scattered within a few tolerances of one point.
+     */
+    STATION
+  }
+
+  private static final long START_MILLIS = 1577836800000L;
+
+  private SyntheticLines() {
+
+  }
+
+  public static Coordinate[] create(Shape shape, int points, long seed) {
+    Random random = new Random(seed);
+    Coordinate[] coordinates = new Coordinate[points];
+    double heading = 0D;
+    double lon = -150D;
+    double lat = 20D;
+    for (int i = 0; i < points; i++) {
+      switch (shape) {
+        case RANDOM_WALK:
+          heading += random.nextGaussian() * 0.2;
+          lon += Math.cos(heading) * 0.00003;
+          lat += Math.sin(heading) * 0.00003;
+          break;
+        case LAWNMOWER: {
+          // lines of 2000 points, 0.002 degrees apart
+          int line = i / 2000;
+          double along = (i % 2000) * 0.00003;
+          lon = -150D + line * 0.002 + random.nextGaussian() * 0.00001;
+          lat = 20D + (line % 2 == 0 ? along : 0.06 - along) + random.nextGaussian() * 0.00001;
+          break;
+        }
+        case SPIRAL: {
+          // 60 points per turn, drifting outwards
+          double angle = i * Math.PI / 30D;
+          double radius = 0.0002 + 0.0000001 * i;
+          lon = -150D + radius * Math.cos(angle);
+          lat = 20D + radius * Math.sin(angle);
+          break;
+        }
+        case STATION:
+          lon = -150D + random.nextGaussian() * 0.0002;
+          lat = 20D + random.nextGaussian() * 0.0002;
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported shape: " + shape);
+      }
+      coordinates[i] = new Coordinate(lon, lat, START_MILLIS + i * 1000L);
+    }
+    return coordinates;
+  }
+}
@@ -0,0 +1,464 @@
+package edu.colorado.cires.cmg.tracklinegen.synthetic;
+
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GeoDataRow;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A deterministic, lazily generated trackline made of legs (transits, survey lines, station keeping, gaps and
+ * antimeridian crossings). Every {@link #iterator()} replays the same rows for the same seed, so tests and benchmarks
+ * can run at any size without fixtures.
+ */
+public class SyntheticTrackline implements Iterable<DataRow> {
+
+  private static final double METERS_PER_DEGREE = 111320D;
+  private static final double MPS_PER_KNOT = 1852D / 3600D;
+  private static final double MAX_LAT = 85D;
+  // GPS noise is strongly correlated from fix to fix, white noise would make 10 Hz data look like 50 knot jitter
+  private static final double NOISE_CORRELATION = 0.99D;
+  private static final double NOISE_INNOVATION = Math.sqrt(1D - NOISE_CORRELATION * NOISE_CORRELATION);
+
+  private final long seed;
+  private final Instant start;
+  private final double startLon;
+  private final double startLat;
+  private final long maxPoints;
+  private final boolean repeat;
+  private final double positionNoiseM;
+  private final double headingNoiseDeg;
+  private final List<Leg> legs;
+
+  private SyntheticTrackline(long seed, Instant start, double startLon, double startLat, long maxPoints, boolean repeat,
+      double positionNoiseM, double headingNoiseDeg, List<Leg> legs) {
+    this.seed = seed;
+    this.start = start;
+    this.startLon = startLon;
+    this.startLat = startLat;
+    this.maxPoints = maxPoints;
+    this.repeat = repeat;
+    this.positionNoiseM = positionNoiseM;
+    this.headingNoiseDeg = headingNoiseDeg;
+    this.legs = legs;
+  }
+
+  /**
+   * A multi-month style cruise mixing every feature: 1 Hz transits, a 10 Hz lawnmower survey, a port stay, time and
+   * distance gaps, and repeated antimeridian crossings. The legs repeat until {@code points} rows have been produced.
+   */
+  public static Builder productionMix(long seed, long points) {
+    return Builder.configure()
+        .withSeed(seed)
+        .withStart(Instant.parse("2020-01-01T00:00:00Z"), -150D, 20D)
+        .withMaxPoints(points)
+        .withRepeat(true)
+        .withTransit(Duration.ofHours(12), 11D, 250D, 1D)
+        .withLawnmower(12, 4D, 0.25D, 6D, 10D)
+        .withTimeGap(Duration.ofHours(3))
+        .withTransit(Duration.ofHours(6), 10D, 80D, 1D)
+        .withStation(Duration.ofDays(2), 0.1D, 8D)
+        .withDistanceGap(40D, 180D, Duration.ofHours(5))
+        .withAntimeridianCrossings(8, 3D, 9D, 1D)
+        .withTransit(Duration.ofHours(6), 10D, 60D, 1D);
+  }
+
+  @Override
+  public Iterator<DataRow> iterator() {
+    return new Generator();
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public long getMaxPoints() {
+    return maxPoints;
+  }
+
+  /**
+   * Mutable position of a generator. Legs move it; noise is only applied to the emitted rows so it does not accumulate.
+   */
+  private final class Cursor {
+
+    private final Random random = new Random(seed);
+    private double lon = startLon;
+    private double lat = startLat;
+    private long millis = start.toEpochMilli();
+    private double anchorLon;
+    private double anchorLat;
+    private double noiseEastM;
+    private double noiseNorthM;
+
+    private void move(double meters, double headingDeg) {
+      double heading = Math.toRadians(headingDeg + (headingNoiseDeg > 0D ? random.nextGaussian() * headingNoiseDeg : 0D));
+      lat += meters * Math.cos(heading) / METERS_PER_DEGREE;
+      lon += meters * Math.sin(heading) / (METERS_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+      lat = Math.max(-MAX_LAT, Math.min(MAX_LAT, lat));
+      lon = wrap(lon);
+    }
+
+    private DataRow emit() {
+      double noisyLon = lon;
+      double noisyLat = lat;
+      // never move a point that sits exactly on the antimeridian, those are a case of their own
+      if (positionNoiseM > 0D) {
+        noiseEastM = NOISE_CORRELATION * noiseEastM + NOISE_INNOVATION * positionNoiseM * random.nextGaussian();
+        noiseNorthM = NOISE_CORRELATION * noiseNorthM + NOISE_INNOVATION * positionNoiseM * random.nextGaussian();
+        if (Math.abs(lon) != 180D) {
+          noisyLat += noiseNorthM / METERS_PER_DEGREE;
+          noisyLon = wrap(noisyLon + noiseEastM / (METERS_PER_DEGREE * Math.cos(Math.toRadians(lat))));
+        }
+      }
+      return new GeoDataRow(Instant.ofEpochMilli(millis), noisyLon, noisyLat);
+    }
+  }
+
+  private static double wrap(double lon) {
+    if (lon >= 180D) {
+      return lon - 360D;
+    }
+    if (lon < -180D) {
+      return lon + 360D;
+    }
+    return lon;
+  }
+
+  private final class Generator implements Iterator<DataRow> {
+
+    private final Cursor cursor = new Cursor();
+    private int legIndex = -1;
+    private long step;
+    private long produced;
+    private boolean done;
+
+    @Override
+    public boolean hasNext() {
+      if (done || (maxPoints > 0 && produced >= maxPoints)) {
+        return false;
+      }
+      while (legIndex < 0 || step >= legs.get(legIndex).steps()) {
+        legIndex++;
+        if (legIndex == legs.size()) {
+          if (!repeat) {
+            done = true;
+            return false;
+          }
+          legIndex = 0;
+        }
+        step = 0;
+        legs.get(legIndex).begin(cursor);
+      }
+      return true;
+    }
+
+    @Override
+    public DataRow next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      legs.get(legIndex).step(cursor, step++);
+      produced++;
+      return cursor.emit();
+    }
+  }
+
+  private interface Leg {
+
+    long steps();
+
+    default void begin(Cursor cursor) {
+
+    }
+
+    void step(Cursor cursor, long step);
+  }
+
+  private static long stepMillis(double hz) {
+    return Math.max(1L, Math.round(1000D / hz));
+  }
+
+  private static long stepsFor(double meters, double knots, double hz) {
+    return Math.max(1L, Math.round(meters / (knots * MPS_PER_KNOT) * hz));
+  }
+
+  private static final class Transit implements Leg {
+
+    private final long steps;
+    private final long stepMillis;
+    private final double stepMeters;
+    private final double headingDeg;
+
+    private Transit(Duration duration, double knots, double headingDeg, double hz) {
+      stepMillis = stepMillis(hz);
+      steps = duration.toMillis() / stepMillis;
+      stepMeters = knots * MPS_PER_KNOT * stepMillis / 1000D;
+      this.headingDeg = headingDeg;
+    }
+
+    @Override
+    public long steps() {
+      return steps;
+    }
+
+    @Override
+    public void step(Cursor cursor, long step) {
+      cursor.millis += stepMillis;
+      cursor.move(stepMeters, headingDeg);
+    }
+  }
+
+  private static final class Lawnmower implements Leg {
+
+    private final long lineSteps;
+    private final long turnSteps;
+    private final long steps;
+    private final long stepMillis;
+    private final double stepMeters;
+
+    private Lawnmower(int lines, double lineNm, double spacingNm, double knots, double hz) {
+      stepMillis = stepMillis(hz);
+      stepMeters = knots * MPS_PER_KNOT * stepMillis / 1000D;
+      lineSteps = stepsFor(lineNm * 1852D, knots, hz);
+      turnSteps = stepsFor(spacingNm * 1852D, knots, hz);
+      steps = lines * lineSteps + (lines - 1) * turnSteps;
+    }
+
+    @Override
+    public long steps() {
+      return steps;
+    }
+
+    @Override
+    public void step(Cursor cursor, long step) {
+      long period = lineSteps + turnSteps;
+      long line = step / period;
+      boolean onLine = step % period < lineSteps;
+      double heading = onLine ? (line % 2 == 0 ? 0D : 180D) : 90D;
+      cursor.millis += stepMillis;
+      cursor.move(stepMeters, heading);
+    }
+  }
+
+  private static final class Station implements Leg {
+
+    private final long steps;
+    private final long stepMillis;
+    private final double jitterM;
+
+    private Station(Duration duration, double hz, double jitterM) {
+      stepMillis = stepMillis(hz);
+      steps = duration.toMillis() / stepMillis;
+      this.jitterM = jitterM;
+    }
+
+    @Override
+    public long steps() {
+      return steps;
+    }
+
+    @Override
+    public void begin(Cursor cursor) {
+      cursor.anchorLon = cursor.lon;
+      cursor.anchorLat = cursor.lat;
+    }
+
+    @Override
+    public void step(Cursor cursor, long step) {
+      cursor.millis += stepMillis;
+      cursor.lon = cursor.anchorLon;
+      cursor.lat = cursor.anchorLat;
+      cursor.move(Math.abs(cursor.random.nextGaussian()) * jitterM, cursor.random.nextDouble() * 360D);
+    }
+  }
+
+  private static final class Gap implements Leg {
+
+    private final long millis;
+    private final double meters;
+    private final double headingDeg;
+
+    private Gap(Duration duration, double meters, double headingDeg) {
+      millis = duration.toMillis();
+      this.meters = meters;
+      this.headingDeg = headingDeg;
+    }
+
+    @Override
+    public long steps() {
+      return 0;
+    }
+
+    @Override
+    public void begin(Cursor cursor) {
+      cursor.millis += millis;
+      if (meters > 0D) {
+        cursor.move(meters, headingDeg);
+      }
+    }
+
+    @Override
+    public void step(Cursor cursor, long step) {
+      throw new IllegalStateException("Gaps do not emit rows");
+    }
+  }
+
+  private static final class AntimeridianCrossings implements Leg {
+
+    private final long passSteps;
+    private final long steps;
+    private final long stepMillis;
+    private final double passNm;
+    private final double knots;
+
+    private AntimeridianCrossings(int crossings, double passNm, double knots, double hz) {
+      stepMillis = stepMillis(hz);
+      // an even number of steps per pass puts the middle step exactly on the antimeridian
+      long s = stepsFor(passNm * 1852D, knots, hz);
+      passSteps = s % 2 == 0 ? s : s + 1;
+      steps = crossings * passSteps;
+      this.passNm = passNm;
+      this.knots = knots;
+    }
+
+    private double passDeg(Cursor cursor) {
+      return passNm * 1852D / (METERS_PER_DEGREE * Math.cos(Math.toRadians(cursor.lat)));
+    }
+
+    @Override
+    public void begin(Cursor cursor) {
+      // getting to the antimeridian from elsewhere is an unobserved transit at the leg's speed
+      double dLon = Math.abs(wrap(180D - passDeg(cursor) / 2D - cursor.lon));
+      double meters = dLon * METERS_PER_DEGREE * Math.cos(Math.toRadians(cursor.lat));
+      cursor.millis += Math.round(meters / (knots * MPS_PER_KNOT) * 1000D);
+    }
+
+    @Override
+    public long steps() {
+      return steps;
+    }
+
+    @Override
+    public void step(Cursor cursor, long step) {
+      double passDeg = passDeg(cursor);
+      long pass = step / passSteps;
+      double offset = passDeg * ((double) (step % passSteps + 1) / passSteps - 0.5);
+      cursor.millis += stepMillis;
+      double lon = pass % 2 == 0 ? 180D + offset : 180D - offset;
+      cursor.lon = lon == 180D ? (pass % 2 == 0 ? 180D : -180D) : wrap(lon);
+    }
+  }
+
+  public static class Builder {
+
+    private long seed;
+    private Instant start = Instant.parse("2020-01-01T00:00:00Z");
+    private double startLon;
+    private double startLat;
+    private long maxPoints;
+    private boolean repeat;
+    private double positionNoiseM = 2D;
+    private double headingNoiseDeg = 0.5D;
+    private final List<Leg> legs = new ArrayList<>();
+
+    public static Builder configure() {
+      return new Builder();
+    }
+
+    private Builder() {
+
+    }
+
+    public Builder withSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    public Builder withStart(Instant start, double lon, double lat) {
+      this.start = start;
+      this.startLon = lon;
+      this.startLat = lat;
+      return this;
+    }
+
+    /**
+     * Stops after this many rows, 0 for no limit. Required when the legs repeat.
+     */
+    public Builder withMaxPoints(long maxPoints) {
+      this.maxPoints = maxPoints;
+      return this;
+    }
+
+    public Builder withRepeat(boolean repeat) {
+      this.repeat = repeat;
+      return this;
+    }
+
+    public Builder withPositionNoiseM(double positionNoiseM) {
+      this.positionNoiseM = positionNoiseM;
+      return this;
+    }
+
+    public Builder withHeadingNoiseDeg(double headingNoiseDeg) {
+      this.headingNoiseDeg = headingNoiseDeg;
+      return this;
+    }
+
+    public Builder withTransit(Duration duration, double knots, double headingDeg, double hz) {
+      legs.add(new Transit(duration, knots, headingDeg, hz));
+      return this;
+    }
+
+    /**
+     * Survey lines running north and south, stepping east by {@code spacingNm} between lines.
+     */
+    public Builder withLawnmower(int lines, double lineNm, double spacingNm, double knots, double hz) {
+      legs.add(new Lawnmower(lines, lineNm, spacingNm, knots, hz));
+      return this;
+    }
+
+    /**
+     * Stationary (port or station keeping) period with positions scattered around the current position.
+     */
+    public Builder withStation(Duration duration, double hz, double jitterM) {
+      legs.add(new Station(duration, hz, jitterM));
+      return this;
+    }
+
+    public Builder withTimeGap(Duration duration) {
+      legs.add(new Gap(duration, 0D, 0D));
+      return this;
+    }
+
+    public Builder withDistanceGap(double nm, double headingDeg, Duration duration) {
+      legs.add(new Gap(duration, nm * 1852D, headingDeg));
+      return this;
+    }
+
+    /**
+     * Passes of {@code passNm} centered on the antimeridian, alternating east and west, with the middle row of each
+     * pass exactly on &plusmn;180. If the track is elsewhere it first jumps along its latitude to the antimeridian, with the
+     * time advanced as if it had sailed there.
+     */
+    public Builder withAntimeridianCrossings(int crossings, double passNm, double knots, double hz) {
+      legs.add(new AntimeridianCrossings(crossings, passNm, knots, hz));
+      return this;
+    }
+
+    public SyntheticTrackline build() {
+      if (legs.stream().allMatch(leg -> leg.steps() == 0)) {
+        throw new IllegalStateException("At least one leg must emit rows");
+      }
+      if (repeat && maxPoints <= 0) {
+        throw new IllegalStateException("maxPoints is required when legs repeat");
+      }
+      return new SyntheticTrackline(seed, start, startLon, startLat, maxPoints, repeat, positionNoiseM, headingNoiseDeg,
+          Collections.unmodifiableList(new ArrayList<>(legs)));
+    }
+  }
+}
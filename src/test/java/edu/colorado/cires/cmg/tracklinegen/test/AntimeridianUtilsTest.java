@@ -0,0 +1,105 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils;
+import edu.colorado.cires.cmg.tracklinegen.ValidationException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Reference results for the antimeridian and geodesic primitives. Faster implementations must keep these.
+ */
+public class AntimeridianUtilsTest {
+
+  private static final double DISTANCE_TOLERANCE_M = 1e-6;
+
+  @Test
+  public void testGetDistance() {
+    assertEquals(111319.49079327357, AntimeridianUtils.getDistance(new Coordinate(0, 0), new Coordinate(1, 0)), DISTANCE_TOLERANCE_M);
+    assertEquals(109639.32210546243, AntimeridianUtils.getDistance(new Coordinate(-179.5, 10), new Coordinate(179.5, 10)), DISTANCE_TOLERANCE_M);
+    assertEquals(110710.61493110923, AntimeridianUtils.getDistance(new Coordinate(10, 20), new Coordinate(10, 21)), DISTANCE_TOLERANCE_M);
+    assertEquals(13.894862181845175, AntimeridianUtils.getDistance(new Coordinate(-70.1, 41.5), new Coordinate(-70.1001, 41.5001)), DISTANCE_TOLERANCE_M);
+    assertEquals(22338.795682520195, AntimeridianUtils.getDistance(new Coordinate(0, 89.9), new Coordinate(180, 89.9)), DISTANCE_TOLERANCE_M);
+    assertEquals(0D, AntimeridianUtils.getDistance(new Coordinate(12.5, -40), new Coordinate(12.5, -40)));
+  }
+
+  @Test
+  public void testGetSpeed() throws Exception {
+    Coordinate c1 = new Coordinate(0, 0, 0);
+    Coordinate c2 = new Coordinate(0.001, 0, 10000);
+    double m = AntimeridianUtils.getDistance(c1, c2);
+    assertEquals(11.131949079327358, AntimeridianUtils.getSpeed(0D, c1, c2, m), 1e-9);
+    assertEquals(11.131949079327358, AntimeridianUtils.getSpeed(22D, c1, c2, m), 1e-9);
+    assertEquals(0D, AntimeridianUtils.getSpeed(1D, c1, new Coordinate(0, 0, 0), 0D));
+    assertThrows(ValidationException.class, () -> AntimeridianUtils.getSpeed(21D, c1, c2, m));
+  }
+
+  @Test
+  public void testSplitAmNoCross() {
+    assertSplit(new Coordinate(10, 10, 0), new Coordinate(10.5, 10.5, 1000),
+        new Coordinate(10.5, 10.5, 1000));
+    assertSplit(new Coordinate(-0.5, 0, 0), new Coordinate(0.5, 0.5, 1000),
+        new Coordinate(0.5, 0.5, 1000));
+  }
+
+  @Test
+  public void testSplitAmCross() {
+    assertSplit(new Coordinate(179.5, 10, 0), new Coordinate(-179.5, 11, 1000),
+        new Coordinate(179.5, 10, 0),
+        new Coordinate(180, 10.5, 500),
+        new Coordinate(-180, 10.5, 500),
+        new Coordinate(-179.5, 11, 1000));
+    assertSplit(new Coordinate(-179.5, 10, 0), new Coordinate(179.5, 11, 1000),
+        new Coordinate(-179.5, 10, 0),
+        new Coordinate(-180, 10.5, 500),
+        new Coordinate(180, 10.5, 500),
+        new Coordinate(179.5, 11, 1000));
+    assertSplit(new Coordinate(179.75, 10, 0), new Coordinate(-179.5, 11, 1000),
+        new Coordinate(179.75, 10, 0),
+        new Coordinate(180, 10.333333333333334, 333.3333333333337),
+        new Coordinate(-180, 10.333333333333334, 333.3333333333337),
+        new Coordinate(-179.5, 11, 1000));
+  }
+
+  @Test
+  public void testSplitAmWestwardWithInexactUnwrap() {
+    // both points move by an ulp when shifted by 360, which used to fail with "Unable to determine AM split order"
+    Coordinate last = new Coordinate(-62.15, -53.8043182, 1000);
+    Coordinate current = new Coordinate(125.86, -53.641, 2000);
+    assertSplit(last, current,
+        new Coordinate(-62.14999999999998, -53.8043182, 1000),
+        new Coordinate(-180, -53.69241024099075, 1685.2142566428283),
+        new Coordinate(180, -53.69241024099075, 1685.2142566428283),
+        new Coordinate(125.86000000000001, -53.641, 2000));
+    // the arguments are left alone
+    assertEquals(-62.15, last.getX());
+    assertEquals(125.86, current.getX());
+  }
+
+  @Test
+  public void testSplitAmOn180() {
+    assertSplit(new Coordinate(180, 10, 0), new Coordinate(-179.5, 11, 1000),
+        new Coordinate(-179.5, 11, 1000),
+        new Coordinate(180, 10),
+        new Coordinate(-180, 10));
+    assertSplit(new Coordinate(180, 10, 0), new Coordinate(179.5, 11, 1000),
+        new Coordinate(179.5, 11, 1000));
+    assertSplit(new Coordinate(179.5, 10, 0), new Coordinate(-180, 11, 1000),
+        new Coordinate(180, 11, 1000));
+    assertSplit(new Coordinate(180, 10, 0), new Coordinate(-180, 11, 1000),
+        new Coordinate(180, 11, 1000));
+  }
+
+  private void assertSplit(Coordinate last, Coordinate current, Coordinate... expected) {
+    List<Coordinate> split = AntimeridianUtils.splitAm(last, current);
+    assertEquals(expected.length, split.size(), () -> "split: " + split);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getX(), split.get(i).getX(), () -> "split: " + split);
+      assertEquals(expected[i].getY(), split.get(i).getY(), () -> "split: " + split);
+      assertEquals(expected[i].getZ(), split.get(i).getZ(), () -> "split: " + split);
+    }
+  }
+}
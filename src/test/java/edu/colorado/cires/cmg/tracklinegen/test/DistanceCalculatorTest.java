@@ -0,0 +1,122 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.colorado.cires.cmg.tracklinegen.BoundedDistanceCalculator;
+import edu.colorado.cires.cmg.tracklinegen.DistanceCalculator;
+import edu.colorado.cires.cmg.tracklinegen.GeodeticDistanceCalculator;
+import edu.colorado.cires.cmg.tracklinegen.HaversineDistanceCalculator;
+import edu.colorado.cires.cmg.tracklinegen.VincentyDistanceCalculator;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class DistanceCalculatorTest {
+
+  private final DistanceCalculator geodetic = new GeodeticDistanceCalculator();
+
+  private static double[] randomLeg(Random random) {
+    double lon1 = random.nextDouble() * 360D - 180D;
+    double lat1 = random.nextDouble() * 180D - 90D;
+    double lon2;
+    double lat2;
+    switch (random.nextInt(4)) {
+      case 0:
+        // anywhere
+        lon2 = random.nextDouble() * 360D - 180D;
+        lat2 = random.nextDouble() * 180D - 90D;
+        break;
+      case 1:
+        // short legs, wrapped across the antimeridian
+        lon2 = lon1 + random.nextGaussian() * 0.2;
+        lon2 = lon2 > 180D ? lon2 - 360D : lon2 < -180D ? lon2 + 360D : lon2;
+        lat2 = Math.max(-90D, Math.min(90D, lat1 + random.nextGaussian() * 0.2));
+        break;
+      case 2:
+        // along the equator and meridians
+        lat1 = random.nextBoolean() ? 0D : lat1;
+        lon2 = lat1 == 0D ? random.nextDouble() * 360D - 180D : lon1;
+        lat2 = lat1 == 0D ? 0D : random.nextDouble() * 180D - 90D;
+        break;
+      default:
+        // high latitudes
+        lat1 = 85D + random.nextDouble() * 5D;
+        lon2 = random.nextDouble() * 360D - 180D;
+        lat2 = 85D + random.nextDouble() * 5D;
+        break;
+    }
+    return new double[]{lon1, lat1, lon2, lat2};
+  }
+
+  @Test
+  public void testGeodeticMatchesReference() {
+    assertEquals(111319.49079327357, geodetic.getDistance(0D, 0D, 1D, 0D), 0D);
+    assertEquals(109639.32210546243, geodetic.getDistance(-179.5, 10D, 179.5, 10D), 0D);
+    assertEquals(0D, geodetic.getDistance(12.5, -45D, 12.5, -45D), 0D);
+  }
+
+  @Test
+  public void testVincenty() {
+    DistanceCalculator vincenty = new VincentyDistanceCalculator();
+    assertEquals(111319.49079327357, vincenty.getDistance(0D, 0D, 1D, 0D), 1e-6);
+    assertEquals(109639.32210546243, vincenty.getDistance(-179.5, 10D, 179.5, 10D), 1e-6);
+    assertEquals(0D, vincenty.getDistance(12.5, -45D, 12.5, -45D), 0D);
+    // nearly antipodal
+    assertEquals(geodetic.getDistance(0D, 0D, 179.7, 0.3), vincenty.getDistance(0D, 0D, 179.7, 0.3), 1e-3);
+
+    Random random = new Random(8);
+    for (int i = 0; i < 100000; i++) {
+      double[] leg = randomLeg(random);
+      double expected = geodetic.getDistance(leg[0], leg[1], leg[2], leg[3]);
+      double actual = vincenty.getDistance(leg[0], leg[1], leg[2], leg[3]);
+      assertEquals(expected, actual, 1e-3, () -> String.format("(%s, %s) to (%s, %s)", leg[0], leg[1], leg[2], leg[3]));
+    }
+  }
+
+  @Test
+  public void testHaversineErrorBound() {
+    DistanceCalculator haversine = new HaversineDistanceCalculator();
+    Random random = new Random(8);
+    for (int i = 0; i < 100000; i++) {
+      double[] leg = randomLeg(random);
+      double expected = geodetic.getDistance(leg[0], leg[1], leg[2], leg[3]);
+      double actual = haversine.getDistance(leg[0], leg[1], leg[2], leg[3]);
+      assertEquals(expected, actual, expected * 0.006, () -> String.format("(%s, %s) to (%s, %s)", leg[0], leg[1], leg[2], leg[3]));
+    }
+  }
+
+  @Test
+  public void testBoundedDecisionsMatchExact() {
+    DistanceCalculator bounded = new BoundedDistanceCalculator(geodetic);
+    Random random = new Random(8);
+    for (int i = 0; i < 100000; i++) {
+      double[] leg = randomLeg(random);
+      double distance = geodetic.getDistance(leg[0], leg[1], leg[2], leg[3]);
+      // thresholds from far away to right at the distance
+      double[] thresholds = {
+          distance * 0.5, distance * 0.999, distance * 0.999999, distance, Math.nextUp(distance), Math.nextDown(distance),
+          distance * 1.000001, distance * 1.001, distance * 2D, 1852D * 20D
+      };
+      for (double threshold : thresholds) {
+        assertEquals(distance > threshold, bounded.isFartherThan(leg[0], leg[1], leg[2], leg[3], threshold),
+            () -> String.format("(%s, %s) to (%s, %s) with %s", leg[0], leg[1], leg[2], leg[3], threshold));
+      }
+      assertEquals(distance, bounded.getDistance(leg[0], leg[1], leg[2], leg[3]), 0D);
+    }
+  }
+
+  @Test
+  public void testBoundedSkipsExactDistance() {
+    int[] exactCalls = new int[1];
+    DistanceCalculator counting = (lon1, lat1, lon2, lat2) -> {
+      exactCalls[0]++;
+      return geodetic.getDistance(lon1, lat1, lon2, lat2);
+    };
+    DistanceCalculator bounded = new BoundedDistanceCalculator(counting);
+    double split = 1852D * 20D;
+    // one and fifty nautical mile legs are decided from the bounds
+    assertTrue(!bounded.isFartherThan(-157.88, 21.31, -157.88, 21.31 + 1D / 60D, split));
+    assertTrue(bounded.isFartherThan(179.5, 10D, -179.7, 10.2, split));
+    assertEquals(0, exactCalls[0]);
+  }
+}
@@ -0,0 +1,144 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import edu.colorado.cires.cmg.tracklinegen.FixedPrecision;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.Random;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * {@link FixedPrecision#round} must be bit for bit what DecimalFormat formatting and parsing gives and
+ * {@link FixedPrecision#format} must produce the same text.
+ */
+public class FixedPrecisionTest {
+
+  private static void assertSameAsDecimalFormat(FixedPrecision precision, DecimalFormat format, double value) {
+    String text = format.format(value);
+    double expected = Double.parseDouble(text);
+    double actual = precision.round(value);
+    if (Double.doubleToRawLongBits(expected) != Double.doubleToRawLongBits(actual)) {
+      fail(String.format("precision %d value %s (%s): expected %s but was %s",
+          precision.getPrecision(), value, new BigDecimal(value), expected, actual));
+    }
+    char[] buffer = new char[FixedPrecision.MAX_FORMATTED_LENGTH + 1];
+    int length = precision.format(value, buffer, 1);
+    if (length >= 0 && !text.equals(new String(buffer, 1, length))) {
+      fail(String.format("precision %d value %s (%s): expected \"%s\" but was \"%s\"",
+          precision.getPrecision(), value, new BigDecimal(value), text, new String(buffer, 1, length)));
+    }
+  }
+
+  private static void assertNeighbors(FixedPrecision precision, DecimalFormat format, double value, int ulps) {
+    double down = value;
+    double up = value;
+    assertSameAsDecimalFormat(precision, format, value);
+    assertSameAsDecimalFormat(precision, format, -value);
+    for (int i = 0; i < ulps; i++) {
+      down = Math.nextDown(down);
+      up = Math.nextUp(up);
+      assertSameAsDecimalFormat(precision, format, down);
+      assertSameAsDecimalFormat(precision, format, up);
+      assertSameAsDecimalFormat(precision, format, -down);
+      assertSameAsDecimalFormat(precision, format, -up);
+    }
+  }
+
+  private static void gridAndTies(int p, long maxSteps, int samples) {
+    FixedPrecision precision = new FixedPrecision(p);
+    DecimalFormat format = precision.createDecimalFormat();
+    double scale = Math.pow(10, Math.max(p, 0));
+    // every grid value and half step up to 180 for coarse precisions, an even sample of them otherwise
+    long steps = Math.min(maxSteps, (long) (180D * scale));
+    long stride = Math.max(1L, (long) (180D * scale) / steps);
+    for (long k = 0; k <= 180D * scale; k += stride) {
+      assertNeighbors(precision, format, k / scale, 3);
+      assertNeighbors(precision, format, (k + 0.5) / scale, 3);
+    }
+    Random random = new Random(p);
+    for (int i = 0; i < samples; i++) {
+      long k = (long) (random.nextDouble() * 180D * scale);
+      assertNeighbors(precision, format, (k + 0.5) / scale, 2);
+      // the double nearest the decimal tie, which takes the fallback when it is not the binary tie
+      assertNeighbors(precision, format,
+          new BigDecimal(k).add(new BigDecimal("0.5")).movePointLeft(Math.max(p, 0)).doubleValue(), 2);
+    }
+  }
+
+  private static void random(int p, int samples) {
+    FixedPrecision precision = new FixedPrecision(p);
+    DecimalFormat format = precision.createDecimalFormat();
+    Random random = new Random(1000L + p);
+    for (int i = 0; i < samples; i++) {
+      assertSameAsDecimalFormat(precision, format, (random.nextDouble() - 0.5) * 360D);
+      // any magnitude, including values far too large for the arithmetic path
+      assertSameAsDecimalFormat(precision, format, Double.longBitsToDouble(random.nextLong()));
+      assertSameAsDecimalFormat(precision, format, (random.nextDouble() - 0.5) * Math.pow(10, -random.nextInt(15)));
+      // epoch millisecond times
+      assertSameAsDecimalFormat(precision, format, (double) (random.nextLong() >>> 23));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {-1, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+  public void testGridAndTies(int p) {
+    gridAndTies(p, 200L, 1000);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+  public void testRandom(int p) {
+    random(p, 2000);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+  public void testBounds(int p) {
+    FixedPrecision precision = new FixedPrecision(p);
+    DecimalFormat format = precision.createDecimalFormat();
+    // the largest scaled value rounded arithmetically and the largest integer printed as itself
+    assertNeighbors(precision, format, 0x1p52 / Math.pow(10, p), 3);
+    assertNeighbors(precision, format, 0x1p52, 3);
+    assertNeighbors(precision, format, 0x1p53, 3);
+  }
+
+  /**
+   * Tens of millions of comparisons, run with {@code -Dsurefire.excludedGroups= -Dgroups=exhaustive}.
+   */
+  @Tag("exhaustive")
+  @ParameterizedTest
+  @ValueSource(ints = {-1, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+  public void testGridAndTiesExhaustive(int p) {
+    gridAndTies(p, 100000L, 50000);
+  }
+
+  @Tag("exhaustive")
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+  public void testRandomExhaustive(int p) {
+    random(p, 100000);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 5, 30})
+  public void testSpecialValues(int p) {
+    FixedPrecision precision = new FixedPrecision(p);
+    DecimalFormat format = precision.createDecimalFormat();
+    double[] values = {
+        0D, -0D, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL, 1e-300, -1e-6, -0.4, -0.5, 0.5, 1.5, 2.5,
+        180D, -180D, 179.999995, -179.999995, 0x1p52, 0x1p53, -0x1p52, 0x1p53 - 1D, 1.7e12, 1234567890123.4,
+        Double.MAX_VALUE, -Double.MAX_VALUE, Double.NaN
+    };
+    for (double value : values) {
+      if (Double.isNaN(value) || Math.abs(value) < Double.MAX_VALUE) {
+        assertSameAsDecimalFormat(precision, format, value);
+      }
+    }
+    assertEquals(Double.NaN, precision.round(Double.NaN));
+    assertEquals(-1, precision.format(Double.NaN, new char[FixedPrecision.MAX_FORMATTED_LENGTH], 0));
+  }
+}
@@ -0,0 +1,180 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.colorado.cires.cmg.tracklinegen.FnvCruiseReader;
+import edu.colorado.cires.cmg.tracklinegen.FnvCruiseReader.FileListener;
+import edu.colorado.cires.cmg.tracklinegen.PrimitiveDataRow;
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class FnvCruiseReaderTest {
+
+  private static final Path CRUISE = Paths.get("src/test/resources/fnv_am/KM0625_2");
+
+  private static long firstMillis(Path file) {
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      return (long) (Double.parseDouble(reader.readLine().split("\\t")[1]) * 1000D);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * The files ordered by their first row, as FnvSplittingTest does.
+   */
+  private static List<Path> orderedFiles() throws Exception {
+    try (Stream<Path> stream = Files.list(CRUISE)) {
+      return stream.filter(f -> f.getFileName().toString().endsWith(".fnv"))
+          .sorted(Comparator.comparingLong(FnvCruiseReaderTest::firstMillis))
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * All rows of the files, skipping rows that go back in time across files, as the MultiFileReader based tests do.
+   */
+  private static List<String> legacyRows(List<Path> files) throws Exception {
+    List<String> rows = new ArrayList<>();
+    long last = Long.MIN_VALUE;
+    for (Path file : files) {
+      try (BufferedReader reader = Files.newBufferedReader(file)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          String[] tokens = line.split("\\t");
+          long millis = (long) (Double.parseDouble(tokens[1]) * 1000D);
+          if (millis >= last) {
+            rows.add(millis + " " + Double.parseDouble(tokens[2]) + " " + Double.parseDouble(tokens[3]));
+            last = millis;
+          }
+        }
+      }
+    }
+    return rows;
+  }
+
+  private static List<String> read(FnvCruiseReader reader) {
+    List<String> rows = new ArrayList<>();
+    try (FnvCruiseReader r = reader) {
+      while (r.hasNext()) {
+        PrimitiveDataRow row = r.next();
+        rows.add(row.epochMillis() + " " + row.lon() + " " + row.lat());
+      }
+    }
+    return rows;
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 2, 8, 100})
+  public void testDirectory(int prefetch) throws Exception {
+    List<Path> files = orderedFiles();
+    assertEquals(24, files.size());
+    FnvCruiseReader reader = FnvCruiseReader.configure().withDirectory(CRUISE).withPrefetch(prefetch).build();
+    assertEquals(files, reader.getFiles());
+    assertEquals(legacyRows(files), read(reader));
+  }
+
+  @Test
+  public void testFileListener() throws Exception {
+    List<Path> files = orderedFiles().subList(0, 5);
+    List<String> events = new ArrayList<>();
+    List<String> rows = read(FnvCruiseReader.configure()
+        .withFiles(files)
+        .withMapSize(1000)
+        .withFileListener(new FileListener() {
+          @Override
+          public void fileStarted(Path file, long firstRow) {
+            events.add("start " + file.getFileName() + " " + firstRow);
+          }
+
+          @Override
+          public void fileFinished(Path file, long rowCount) {
+            events.add("finish " + file.getFileName() + " " + rowCount);
+          }
+        })
+        .build());
+
+    List<String> expected = new ArrayList<>();
+    long firstRow = 0;
+    for (int i = 0; i < files.size(); i++) {
+      int count = legacyRows(files.subList(0, i + 1)).size() - (int) firstRow;
+      expected.add("start " + files.get(i).getFileName() + " " + firstRow);
+      expected.add("finish " + files.get(i).getFileName() + " " + count);
+      firstRow += count;
+    }
+    assertEquals(expected, events);
+    assertEquals(firstRow, rows.size());
+  }
+
+  @Test
+  public void testMissingFile() throws Exception {
+    List<Path> files = new ArrayList<>(orderedFiles().subList(0, 2));
+    files.add(1, CRUISE.resolve("missing.fnv"));
+    try (FnvCruiseReader reader = FnvCruiseReader.configure().withFiles(files).withPrefetch(2).build()) {
+      int rows = 0;
+      RuntimeException e = null;
+      try {
+        while (reader.hasNext()) {
+          reader.next();
+          rows++;
+        }
+      } catch (RuntimeException failure) {
+        e = failure;
+      }
+      assertTrue(e != null && e.getMessage().contains("missing.fnv"), String.valueOf(e));
+      // the rows of the first file come before the failure
+      assertEquals(legacyRows(files.subList(0, 1)).size(), rows);
+    }
+  }
+
+  @Test
+  public void testCloseEarly() throws Exception {
+    FnvCruiseReader reader = FnvCruiseReader.configure().withDirectory(CRUISE).withPrefetch(4).build();
+    assertTrue(reader.hasNext());
+    reader.next();
+    reader.close();
+    reader.close();
+    assertFalse(reader.hasNext());
+    assertThrows(NoSuchElementException.class, reader::next);
+  }
+
+  @Test
+  public void testFileOrder(@TempDir Path directory) throws Exception {
+    List<Path> files = orderedFiles();
+    // names out of time order
+    Files.copy(files.get(0), directory.resolve("b.fnv"));
+    Files.copy(files.get(1), directory.resolve("a.fnv"));
+    FnvCruiseReader reader = FnvCruiseReader.configure().withDirectory(directory).build();
+    assertEquals(Arrays.asList(directory.resolve("a.fnv"), directory.resolve("b.fnv")), reader.getFiles());
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> read(reader));
+    assertTrue(e.getMessage().contains("b.fnv"), e.getMessage());
+
+    // files listed explicitly are read in the order given, rows going back in time are skipped
+    List<Path> listed = Arrays.asList(directory.resolve("a.fnv"), directory.resolve("b.fnv"));
+    assertEquals(legacyRows(listed), read(FnvCruiseReader.configure().withFiles(listed).build()));
+  }
+
+  @Test
+  public void testEmptyDirectory() throws Exception {
+    FnvCruiseReader reader = FnvCruiseReader.configure().withDirectory(CRUISE).withFileFilter(f -> false).build();
+    assertTrue(reader.getFiles().isEmpty());
+    assertTrue(read(reader).isEmpty());
+    assertTrue(read(FnvCruiseReader.configure().withFiles(new ArrayList<>()).build()).isEmpty());
+  }
+}
@@ -0,0 +1,163 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.colorado.cires.cmg.tracklinegen.FnvRowReader;
+import edu.colorado.cires.cmg.tracklinegen.PrimitiveDataRow;
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class FnvRowReaderTest {
+
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy MM dd HH mm ss.SSSSSS");
+
+  @TempDir
+  Path tempDir;
+
+  private static List<Path> fixtures() throws Exception {
+    try (Stream<Path> stream = Files.walk(Paths.get("src/test/resources"))) {
+      return stream.filter(f -> f.getFileName().toString().endsWith(".fnv")).sorted().collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * The String based parsing that consumers have been doing, as in FnvSplittingTest.
+   */
+  private static List<String> legacyRows(Path file, boolean dateTime) throws Exception {
+    List<String> rows = new ArrayList<>();
+    long last = Long.MIN_VALUE;
+    try (BufferedReader reader = Files.newBufferedReader(file)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] tokens = line.split("\\t");
+        long millis = dateTime
+            ? LocalDateTime.parse(tokens[0], DATE_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli()
+            : (long) (Double.parseDouble(tokens[1]) * 1000D);
+        if (millis >= last) {
+          rows.add(millis + " " + Double.parseDouble(tokens[2]) + " " + Double.parseDouble(tokens[3]));
+          last = millis;
+        }
+      }
+    }
+    return rows;
+  }
+
+  private static List<String> read(FnvRowReader reader) {
+    List<String> rows = new ArrayList<>();
+    try (FnvRowReader r = reader) {
+      while (r.hasNext()) {
+        PrimitiveDataRow row = r.next();
+        rows.add(row.epochMillis() + " " + row.lon() + " " + row.lat());
+      }
+    }
+    return rows;
+  }
+
+  @ParameterizedTest
+  @CsvSource({"false,67108864", "true,67108864", "false,200", "true,333"})
+  public void testMatchesLegacyParsing(boolean dateTime, int mapSize) throws Exception {
+    List<Path> files = fixtures();
+    assertTrue(files.size() > 20);
+    for (Path file : files) {
+      List<String> expected = legacyRows(file, dateTime);
+      assertFalse(expected.isEmpty());
+      assertEquals(expected, read(FnvRowReader.configure().withFile(file).withDateTime(dateTime).withMapSize(mapSize).build()), file.toString());
+    }
+  }
+
+  @Test
+  public void testLineEndings() throws Exception {
+    Path file = tempDir.resolve("endings.fnv");
+    Files.write(file, ("\n"
+        + "2012 08 03 07 06 38.5\t1343977598.5\t-179.5\t  24.25\t22.7\r\n"
+        + "   \n"
+        + "2012 08 03 07 06 37.000000\t1343977597.000000\t-179.6\t24.2\n"
+        + "2012 08 03 07 06 39.000001\t1343977599.000001\t180.0\t-0.0").getBytes(StandardCharsets.US_ASCII));
+
+    List<String> expected = new ArrayList<>();
+    expected.add("1343977598500 -179.5 24.25");
+    expected.add("1343977599000 180.0 -0.0");
+    assertEquals(expected, read(FnvRowReader.configure().withFile(file).withMapSize(16 * 1024).build()));
+    assertEquals(expected, read(FnvRowReader.configure().withFile(file).withDateTime(true).withMapSize(70).build()));
+
+    List<String> unordered = read(FnvRowReader.configure().withFile(file).withSkipOutOfOrder(false).build());
+    assertEquals(3, unordered.size());
+    assertEquals("1343977597000 -179.6 24.2", unordered.get(1));
+  }
+
+  @Test
+  public void testExactEpochSeconds() throws Exception {
+    Path file = tempDir.resolve("exact.fnv");
+    Files.write(file,
+        "2004 09 29 23 26 48.554000\t1096500408.554000\t-179.5\t24.25\n".getBytes(StandardCharsets.US_ASCII));
+    // the double nearest 1096500408.554 is a little below it
+    assertEquals(Collections.singletonList("1096500408553 -179.5 24.25"),
+        read(FnvRowReader.configure().withFile(file).build()));
+    List<String> exact = Collections.singletonList("1096500408554 -179.5 24.25");
+    assertEquals(exact, read(FnvRowReader.configure().withFile(file).withExactEpochSeconds(true).build()));
+    assertEquals(exact, read(FnvRowReader.configure().withFile(file).withDateTime(true).build()));
+  }
+
+  @Test
+  public void testReuseRow() throws Exception {
+    Path file = fixtures().get(0);
+    try (FnvRowReader reader = FnvRowReader.configure().withFile(file).withReuseRow(true).build()) {
+      assertSame(reader.next(), reader.next());
+    }
+    try (FnvRowReader reader = FnvRowReader.configure().withFile(file).build()) {
+      assertNotSame(reader.next(), reader.next());
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws Exception {
+    Path file = tempDir.resolve("empty.fnv");
+    Files.write(file, new byte[0]);
+    assertTrue(read(FnvRowReader.configure().withFile(file).build()).isEmpty());
+  }
+
+  @Test
+  public void testInvalidRow() throws Exception {
+    Path file = tempDir.resolve("invalid.fnv");
+    Files.write(file, ("2012 08 03 07 06 38.5\t1343977598.5\t-179.5\t24.25\n"
+        + "2012 08 03 07 06 38.5\t1343977598.5\tabc\t24.25\n").getBytes(StandardCharsets.US_ASCII));
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> read(FnvRowReader.configure().withFile(file).build()));
+    assertTrue(e.getMessage().startsWith("Invalid row at line 2 of "), e.getMessage());
+
+    Path date = tempDir.resolve("date.fnv");
+    Files.write(date, "2012 02 30 07 06 38.5\t1343977598.5\t-179.5\t24.25\n".getBytes(StandardCharsets.US_ASCII));
+    assertThrows(IllegalStateException.class, () -> read(FnvRowReader.configure().withFile(date).withDateTime(true).build()));
+
+    Path columns = tempDir.resolve("columns.fnv");
+    Files.write(columns, "2012 02 03 07 06 38.5\t1343977598.5\t-179.5\n".getBytes(StandardCharsets.US_ASCII));
+    assertThrows(IllegalStateException.class, () -> read(FnvRowReader.configure().withFile(columns).build()));
+  }
+
+  @Test
+  public void testLongLine() throws Exception {
+    Path file = tempDir.resolve("long.fnv");
+    Files.write(file, ("2012 08 03 07 06 38.5\t1343977598.5\t-179.5\t24.25\n"
+        + "2012 08 03 07 06 38.5\t1343977598.5\t-179.5\t24.25\n").getBytes(StandardCharsets.US_ASCII));
+    assertThrows(IllegalStateException.class, () -> read(FnvRowReader.configure().withFile(file).withMapSize(20).build()));
+  }
+}
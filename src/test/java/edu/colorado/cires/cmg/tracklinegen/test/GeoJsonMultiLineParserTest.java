@@ -1,6 +1,7 @@
 package edu.colorado.cires.cmg.tracklinegen.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
@@ -11,7 +12,11 @@ import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.jackson.ObjectMapp
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 public class GeoJsonMultiLineParserTest {
 
@@ -75,6 +80,35 @@ public class GeoJsonMultiLineParserTest {
 
   }
 
+  private String[] parse(String geoJson) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    StringWriter wktWriter = new StringWriter();
+    try (JsonParser jsonParser = objectMapper.getFactory().createParser(geoJson);
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out)) {
+      new GeoJsonMultiLineParser(objectMapper, 4, 0D).parse(jsonParser, jsonGenerator, wktWriter);
+    }
+    return new String[]{out.toString(StandardCharsets.UTF_8.name()), wktWriter.toString()};
+  }
+
+  @Test
+  public void testCoordinateForms() throws Exception {
+    // integers, strings, extra dimensions and values beyond the precision all read as the plain form does
+    String[] plain = parse("{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiLineString\",\"coordinates\":"
+        + "[[[179.5,-0.00001,1000],[179.12345678,2,2000],[-179.5,3,3000]]]},\"properties\":{}}");
+    String[] forms = parse("{\"type\":\"Feature\",\"geometry\":{\"type\":\"MultiLineString\",\"coordinates\":"
+        + "[[[1.795E2,\"-0.00001\",1000,7],[179.12345678,2.0,2.0e3],[\"-179.5\",3,3000.0,8,9]]]},\"properties\":{}}");
+    assertEquals(plain[0], forms[0]);
+    assertEquals(plain[1], forms[1]);
+    assertEquals("MULTILINESTRING (( 179.5 -0, 179.1235 2, 180 2.6368), ( -180 2.6368, -179.5 3))", plain[1]);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"[1]", "[]", "[1,null]", "[1,[2]]", "[1,\"a\"]", "1"})
+  public void testInvalidCoordinate(String coordinate) {
+    assertThrows(IllegalArgumentException.class,
+        () -> parse("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":" + coordinate + "}}"));
+  }
+
 //  @Test
 //  public void testStopOnAntimeridian() throws Exception {
 //    ByteArrayOutputStream out = new ByteArrayOutputStream();
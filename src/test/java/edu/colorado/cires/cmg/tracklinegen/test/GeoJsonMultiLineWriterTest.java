@@ -0,0 +1,105 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class GeoJsonMultiLineWriterTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private String write(Consumer<JsonGenerator> writes) throws IOException {
+    StringWriter out = new StringWriter();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out)) {
+      jsonGenerator.writeStartArray();
+      writes.accept(jsonGenerator);
+      jsonGenerator.writeEndArray();
+    }
+    return out.toString();
+  }
+
+  private static DecimalFormat decimalFormat(int precision) {
+    StringBuilder sb = new StringBuilder("0.");
+    for (int i = 1; i <= precision; i++) {
+      sb.append("#");
+    }
+    return new DecimalFormat(sb.toString(), DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 3, 5, 7, 10})
+  public void testCoordinateTextMatchesDecimalFormat(int precision) throws Exception {
+    DecimalFormat format = decimalFormat(precision);
+    Random random = new Random(precision);
+    double[][] coordinates = new double[20000][];
+    for (int i = 0; i < coordinates.length; i++) {
+      coordinates[i] = new double[]{
+          (random.nextDouble() - 0.5) * 360D,
+          (random.nextDouble() - 0.5) * 180D,
+          1262304000000D + random.nextInt(Integer.MAX_VALUE)
+      };
+    }
+    coordinates[0] = new double[]{-0D, 180D, 0D};
+    coordinates[1] = new double[]{-0.000001, -179.999995, Double.NaN};
+    coordinates[2] = new double[]{1e300, Double.POSITIVE_INFINITY, 0.5};
+
+    String expected = write(jsonGenerator -> {
+      try {
+        for (double[] coordinate : coordinates) {
+          jsonGenerator.writeStartArray();
+          for (double value : coordinate) {
+            jsonGenerator.writeNumber(format.format(value));
+          }
+          jsonGenerator.writeEndArray();
+          jsonGenerator.writeStartArray();
+          jsonGenerator.writeNumber(format.format(coordinate[0]));
+          jsonGenerator.writeNumber(format.format(coordinate[1]));
+          jsonGenerator.writeEndArray();
+        }
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+
+    String primitive = write(jsonGenerator -> {
+      GeoJsonMultiLineWriter lineWriter = new GeoJsonMultiLineWriter(jsonGenerator, precision);
+      for (double[] coordinate : coordinates) {
+        lineWriter.writeCoordinate(coordinate[0], coordinate[1], coordinate[2]);
+        lineWriter.writeCoordinate(coordinate[0], coordinate[1]);
+      }
+    });
+    assertEquals(expected, primitive);
+
+    String boxed = write(jsonGenerator -> {
+      GeoJsonMultiLineWriter lineWriter = new GeoJsonMultiLineWriter(jsonGenerator, precision);
+      for (double[] coordinate : coordinates) {
+        lineWriter.writeCoordinate(Arrays.asList(coordinate[0], coordinate[1], coordinate[2]));
+        lineWriter.writeCoordinate(Arrays.asList(coordinate[0], coordinate[1]));
+      }
+    });
+    assertEquals(expected, boxed);
+  }
+
+  @Test
+  public void testVarargsCoordinate() throws Exception {
+    String json = write(jsonGenerator -> {
+      GeoJsonMultiLineWriter lineWriter = new GeoJsonMultiLineWriter(jsonGenerator, 4);
+      lineWriter.writeCoordinate(-157.880341, 21.313672, new double[0]);
+      lineWriter.writeCoordinate(-157.880341, 21.313672, 1.5, 2.25, -0.00004);
+    });
+    assertEquals("[[-157.8803,21.3137],[-157.8803,21.3137,1.5,2.25,-0]]", json);
+  }
+}
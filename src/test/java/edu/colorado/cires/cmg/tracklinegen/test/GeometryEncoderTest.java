@@ -0,0 +1,192 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineParser;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineProcessor;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometryEncoder;
+import edu.colorado.cires.cmg.tracklinegen.GeometryProperties;
+import edu.colorado.cires.cmg.tracklinegen.WkbGeometryEncoder;
+import edu.colorado.cires.cmg.tracklinegen.WktGeometryEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKTReader;
+
+public class GeometryEncoderTest {
+
+  private static final int PRECISION = 5;
+
+  private final ObjectMapper objectMapper = FnvSplittingTest.objectMapper();
+
+  private static final class Output {
+
+    private final String geoJson;
+    private final String wkt;
+
+    private Output(String geoJson, String wkt) {
+      this.geoJson = geoJson;
+      this.wkt = wkt;
+    }
+  }
+
+  private byte[] phase1(Consumer<GeoJsonMultiLineWriter> geometry, boolean writeEndArray) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out)) {
+      GeoJsonMultiLineWriter lineWriter = new GeoJsonMultiLineWriter(jsonGenerator, PRECISION);
+      geometry.accept(lineWriter);
+      lineWriter.finish(GeometryProperties.Builder.configure().withSimplifiedPointCount(1L).build(), writeEndArray);
+    }
+    return out.toByteArray();
+  }
+
+  private static void crossingLine(GeoJsonMultiLineWriter lineWriter) {
+    lineWriter.startLine();
+    lineWriter.writeCoordinate(178D, 10D, 1000D);
+    lineWriter.writeCoordinate(179.5D, 10.5D, 2000D);
+    lineWriter.writeCoordinate(-179.5D, 11D, 3000D);
+    lineWriter.writeCoordinate(-178.123456D, 11.5D, 4000D);
+    lineWriter.endLine();
+  }
+
+  private byte[] lines() throws Exception {
+    return phase1(lineWriter -> {
+      lineWriter.start();
+      crossingLine(lineWriter);
+      lineWriter.startLine();
+      lineWriter.writeCoordinate(-170D, -0.000001D, 5000D);
+      lineWriter.writeCoordinate(-169D, 1D, 6000D);
+      lineWriter.endLine();
+    }, true);
+  }
+
+  private byte[] collection() throws Exception {
+    return phase1(lineWriter -> {
+      lineWriter.startCollection();
+      lineWriter.startMultiLineString();
+      crossingLine(lineWriter);
+      lineWriter.endGeometry();
+      lineWriter.startMultiPoint();
+      lineWriter.writeCoordinate(10D, 10D, 7000D);
+      lineWriter.writeCoordinate(11.000001D, -12.5D, 8000D);
+      lineWriter.endGeometry();
+    }, true);
+  }
+
+  private byte[] point() throws Exception {
+    return phase1(lineWriter -> {
+      lineWriter.startPoint();
+      lineWriter.writeCoordinate(-179.999999D, 45.123456D, 1000D);
+    }, false);
+  }
+
+  private String parse(byte[] phase1, GeometryEncoder geometryEncoder) throws Exception {
+    ByteArrayOutputStream geoJson = new ByteArrayOutputStream();
+    try (
+        JsonParser jsonParser = objectMapper.getFactory().createParser(phase1);
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(geoJson)) {
+      new GeoJsonMultiLineParser(objectMapper, PRECISION, 0D).parse(jsonParser, jsonGenerator, geometryEncoder, null);
+    }
+    return geoJson.toString(StandardCharsets.UTF_8.name());
+  }
+
+  private Output parseWithWriter(byte[] phase1) throws Exception {
+    ByteArrayOutputStream geoJson = new ByteArrayOutputStream();
+    StringWriter wkt = new StringWriter();
+    try (
+        JsonParser jsonParser = objectMapper.getFactory().createParser(phase1);
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(geoJson)) {
+      new GeoJsonMultiLineParser(objectMapper, PRECISION, 0D).parse(jsonParser, jsonGenerator, wkt);
+    }
+    return new Output(geoJson.toString(StandardCharsets.UTF_8.name()), wkt.toString());
+  }
+
+  @Test
+  public void testWkt() throws Exception {
+    assertEquals("MULTILINESTRING (( 178 10, 179.5 10.5, 180 10.75), ( -180 10.75, -179.5 11, -178.12346 11.5),"
+        + "( -170 0, -169 1))", parseWithWriter(lines()).wkt);
+    assertEquals("GEOMETRYCOLLECTION (MULTILINESTRING (( 178 10, 179.5 10.5, 180 10.75),"
+        + " ( -180 10.75, -179.5 11, -178.12346 11.5)),MULTIPOINT ( 10 10, 11 -12.5))",
+        parseWithWriter(collection()).wkt);
+    assertEquals("POINT ( -180 45.12346 )", parseWithWriter(point()).wkt);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 7, 64, WktGeometryEncoder.DEFAULT_BUFFER_SIZE})
+  public void testBufferSize(int bufferSize) throws Exception {
+    for (byte[] phase1 : new byte[][]{lines(), collection(), point()}) {
+      Output expected = parseWithWriter(phase1);
+
+      ByteArrayOutputStream wkt = new ByteArrayOutputStream();
+      assertEquals(expected.geoJson, parse(phase1, new WktGeometryEncoder(wkt, bufferSize)));
+      assertEquals(expected.wkt, wkt.toString(StandardCharsets.UTF_8.name()));
+
+      StringWriter wktWriter = new StringWriter();
+      assertEquals(expected.geoJson, parse(phase1, new WktGeometryEncoder(wktWriter, bufferSize)));
+      assertEquals(expected.wkt, wktWriter.toString());
+    }
+  }
+
+  @Test
+  public void testNone() throws Exception {
+    for (byte[] phase1 : new byte[][]{lines(), collection(), point()}) {
+      assertEquals(parseWithWriter(phase1).geoJson, parse(phase1, GeometryEncoder.none()));
+    }
+  }
+
+  @Test
+  public void testWkb() throws Exception {
+    for (byte[] phase1 : new byte[][]{lines(), collection(), point()}) {
+      Geometry expected = new WKTReader().read(parseWithWriter(phase1).wkt);
+      ByteArrayOutputStream wkb = new ByteArrayOutputStream();
+      parse(phase1, new WkbGeometryEncoder(wkb, PRECISION));
+      Geometry actual = new WKBReader().read(wkb.toByteArray());
+      assertTrue(expected.equalsExact(actual), expected + " != " + actual);
+    }
+  }
+
+  @Test
+  public void testProcessor() throws Exception {
+    byte[] phase1 = collection();
+    Output expected = parseWithWriter(phase1);
+    ByteArrayOutputStream geoJson = new ByteArrayOutputStream();
+    ByteArrayOutputStream wkt = new ByteArrayOutputStream();
+    new GeoJsonMultiLineProcessor(objectMapper, PRECISION, 0D)
+        .process(new ByteArrayInputStream(phase1), geoJson, new WktGeometryEncoder(wkt), null);
+    assertEquals(expected.geoJson, geoJson.toString(StandardCharsets.UTF_8.name()));
+    assertEquals(expected.wkt, wkt.toString(StandardCharsets.UTF_8.name()));
+  }
+
+  @Test
+  public void testUnbalanced() {
+    WktGeometryEncoder encoder = new WktGeometryEncoder(new StringWriter());
+    assertThrows(IllegalStateException.class, encoder::endGeometry);
+    WkbGeometryEncoder wkbEncoder = new WkbGeometryEncoder(new ByteArrayOutputStream(), PRECISION);
+    assertThrows(IllegalStateException.class, () -> wkbEncoder.writeCoordinate(1D, 2D, new char[]{'1', '2'}, 1, 1));
+  }
+
+  @Test
+  public void testBreakOutsideLine() throws Exception {
+    for (GeometryEncoder encoder : new GeometryEncoder[]{
+        new WktGeometryEncoder(new StringWriter()), new WkbGeometryEncoder(new ByteArrayOutputStream(), PRECISION)}) {
+      encoder.startGeometry(GeometryEncoder.Type.MULTI_POINT);
+      encoder.writeCoordinate(179.5D, 10D, new char[]{'1', '2'}, 1, 1);
+      assertThrows(IllegalStateException.class, encoder::breakLine);
+      encoder.startGeometry(GeometryEncoder.Type.MULTI_LINE_STRING);
+      assertThrows(IllegalStateException.class, encoder::breakLine);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.colorado.cires.cmg.tracklinegen.NavTimestampParser;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class NavTimestampParserTest {
+
+  private static final DateTimeFormatter FNV_FORMAT = DateTimeFormatter.ofPattern("yyyy MM dd HH mm ss.SSSSSS");
+
+  private static LocalDateTime random(Random random) {
+    // runs of rows on the same day, as in a navigation file
+    return LocalDateTime.ofEpochSecond(random.nextInt(2000000000), random.nextInt(1000000) * 1000, ZoneOffset.UTC);
+  }
+
+  @Test
+  public void testFnv() {
+    NavTimestampParser parser = new NavTimestampParser();
+    Random random = new Random(1L);
+    LocalDateTime time = random(random);
+    for (int i = 0; i < 100000; i++) {
+      time = i % 100 == 0 ? random(random) : time.plusNanos(random.nextInt(60000000) * 1000L);
+      String text = FNV_FORMAT.format(time);
+      long expected = LocalDateTime.parse(text, FNV_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli();
+      assertEquals(expected, parser.parseFnv(text), text);
+      ByteBuffer buffer = ByteBuffer.wrap(("\t" + text + "\t").getBytes(StandardCharsets.US_ASCII));
+      assertEquals(expected, parser.parseFnv(buffer, 1, text.length() + 1), text);
+    }
+  }
+
+  @Test
+  public void testIso() {
+    NavTimestampParser parser = new NavTimestampParser();
+    Random random = new Random(2L);
+    for (int i = 0; i < 20000; i++) {
+      LocalDateTime time = random(random);
+      ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(37) - 18) * 1800);
+      String text = OffsetDateTime.of(time, offset).toString();
+      assertEquals(OffsetDateTime.parse(text).toInstant().toEpochMilli(), parser.parseIso(text), text);
+      String utc = time.toInstant(ZoneOffset.UTC).toString();
+      assertEquals(Instant.parse(utc).toEpochMilli(), parser.parseIso(utc), utc);
+    }
+    assertEquals(Instant.parse("2006-09-11T00:36:31.008Z").toEpochMilli(), parser.parseIso("2006-09-11 00:36:31.008"));
+    assertEquals(Instant.parse("2006-09-11T00:36:31Z").toEpochMilli(), parser.parseIso(" 2006-09-11T00:36:31 "));
+  }
+
+  @Test
+  public void testEpochSeconds() {
+    NavTimestampParser parser = new NavTimestampParser();
+    Random random = new Random(3L);
+    for (int i = 0; i < 20000; i++) {
+      String text = random.nextInt(2000000000) + "." + String.format("%06d", random.nextInt(1000000));
+      long expected = new BigDecimal(text).movePointRight(3).longValue();
+      assertEquals(expected, parser.parseEpochSeconds(text), text);
+    }
+    assertEquals(1343977598093L, parser.parseEpochSeconds("1343977598.093000"));
+    assertEquals(1343977598000L, parser.parseEpochSeconds("1343977598"));
+    assertEquals(-1500L, parser.parseEpochSeconds("-1.5"));
+  }
+
+  @Test
+  public void testLeapDay() {
+    NavTimestampParser parser = new NavTimestampParser();
+    assertEquals(Instant.parse("2000-02-29T12:00:00Z").toEpochMilli(), parser.parseFnv("2000 02 29 12 00 00.000000"));
+    assertThrows(IllegalArgumentException.class, () -> parser.parseFnv("1900 02 29 12 00 00.000000"));
+    // a cached day must not hide an invalid time
+    assertThrows(IllegalArgumentException.class, () -> parser.parseFnv("2000 02 29 24 00 00.000000"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "", "2012 08 03", "2012 08 03 07 06", "2012-08-03 07 06 38.0", "2012 13 03 07 06 38.0", "2012 08 03 07 60 38.0",
+      "2012 08 03 07 06 38.", "2012 08 03 07 06 38.0x", "2012 08 3 07 06 38.000000"
+  })
+  public void testInvalidFnv(String text) {
+    assertThrows(IllegalArgumentException.class, () -> new NavTimestampParser().parseFnv(text));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"2012-08-03T07:06:38+2", "2012-08-03T07:06:38X", "2012-08-03T07:06:38+19:00", "2012/08/03T07:06:38"})
+  public void testInvalidIso(String text) {
+    assertThrows(IllegalArgumentException.class, () -> new NavTimestampParser().parseIso(text));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "-", ".5", "12.", "1e9", "12345678901234567890"})
+  public void testInvalidEpochSeconds(String text) {
+    assertThrows(IllegalArgumentException.class, () -> new NavTimestampParser().parseEpochSeconds(text));
+  }
+}
@@ -0,0 +1,133 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.GEOMETRY_FACTORY;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.GEO_JSON_PRECISION;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.TOLERANCE;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.line;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.simplify;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.FixedPrecision;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationMode;
+import edu.colorado.cires.cmg.tracklinegen.SleeveSimplifier;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticLines;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticLines.Shape;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+
+public class OnlineSimplificationTest {
+
+  /**
+   * Kept points are input points in order, and every dropped point is near the segment between the kept points before
+   * and after it.
+   */
+  private void assertWithinSpanningSegments(Coordinate[] coordinates, Coordinate[] simplified, double tolerance) {
+    assertTrue(coordinates[0].equals2D(simplified[0]));
+    int next = 1;
+    for (int k = 1; k < simplified.length; k++) {
+      LineString segment = GEOMETRY_FACTORY.createLineString(new Coordinate[]{simplified[k - 1], simplified[k]});
+      while (!coordinates[next].equals2D(simplified[k])) {
+        Coordinate coordinate = coordinates[next];
+        double distance = segment.distance(GEOMETRY_FACTORY.createPoint(coordinate));
+        assertTrue(distance <= tolerance * (1D + 1e-9), () -> coordinate + " is " + distance + " from " + segment);
+        next++;
+      }
+      next++;
+    }
+    assertEquals(coordinates.length, next);
+  }
+
+  private void assertSleeveWithinTolerance(Coordinate[] coordinates, double tolerance) {
+    List<Coordinate> simplified = SleeveSimplifier.simplify(Arrays.asList(coordinates), tolerance);
+    assertWithinSpanningSegments(coordinates, simplified.toArray(new Coordinate[0]), tolerance);
+  }
+
+  @Test
+  public void testDefaultMode() {
+    assertEquals(SimplificationMode.BATCH, BaseRowListenerConfiguration.configure().build().getSimplificationMode());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {50, 1000, 100000})
+  public void testOnlineWithinTolerance(int batchSize) throws Exception {
+    List<DataRow> rows = SimplifiedSurvey.rows(5L);
+    JsonNode online = simplify(rows, SimplificationMode.ONLINE, batchSize, 0L);
+    // a single Douglas-Peucker pass over the whole line
+    JsonNode whole = simplify(rows, SimplificationMode.BATCH, rows.size() + 1, 0L);
+
+    LineString line = line(online);
+    FixedPrecision precision = new FixedPrecision(GEO_JSON_PRECISION);
+    Coordinate[] coordinates = rows.stream()
+        .map(row -> new Coordinate(precision.round(row.getLon()), precision.round(row.getLat())))
+        .toArray(Coordinate[]::new);
+    assertWithinSpanningSegments(coordinates, line.getCoordinates(), TOLERANCE);
+
+    long onlineCount = online.get("properties").get("simplifiedPointCount").asLong();
+    long wholeCount = whole.get("properties").get("simplifiedPointCount").asLong();
+    assertEquals(rows.size(), online.get("properties").get("unsimplifiedPointCount").asLong());
+    assertEquals(onlineCount, line.getNumPoints());
+    // at most one forced point at each batch boundary
+    long maxCount = 2L * wholeCount + 2L * rows.size() / batchSize;
+    assertTrue(onlineCount <= maxCount, () -> onlineCount + " online points, " + wholeCount + " Douglas-Peucker points");
+
+    assertEquals(online, simplify(rows, SimplificationMode.ONLINE, batchSize, 0L));
+  }
+
+  @Test
+  public void testSleeveKeepsCorners() {
+    List<Coordinate> coordinates = new ArrayList<>();
+    Random random = new Random(3);
+    for (int i = 0; i <= 100; i++) {
+      coordinates.add(new Coordinate(i * 0.001, random.nextGaussian() * 0.00001));
+    }
+    for (int i = 1; i <= 100; i++) {
+      coordinates.add(new Coordinate(0.1, i * 0.001 + random.nextGaussian() * 0.00001));
+    }
+    List<Coordinate> simplified = SleeveSimplifier.simplify(coordinates, 0.0001);
+    assertEquals(3, simplified.size());
+    assertEquals(coordinates.get(0), simplified.get(0));
+    assertEquals(coordinates.get(100), simplified.get(1));
+    assertEquals(coordinates.get(200), simplified.get(2));
+
+    assertEquals(Arrays.asList(coordinates.get(0), coordinates.get(1)),
+        SleeveSimplifier.simplify(coordinates.subList(0, 2), 0.0001));
+  }
+
+  @Test
+  public void testSleeveOutAndBack() {
+    // the return leg comes back within the tolerance of the first point before turning away
+    double[] x = {0D, 10D, 0.05, 0.05};
+    double[] y = {0D, 0D, 0D, 5D};
+    int[] kept = new int[x.length];
+    int count = SleeveSimplifier.simplify(x, y, x.length, 0.1, kept);
+    assertArrayEquals(new int[]{0, 1, 2, 3}, Arrays.copyOf(kept, count));
+
+    Coordinate[] coordinates = new Coordinate[x.length];
+    for (int i = 0; i < x.length; i++) {
+      coordinates[i] = new Coordinate(x[i], y[i]);
+    }
+    assertSleeveWithinTolerance(coordinates, 0.1);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Shape.class)
+  public void testSleeveWithinTolerance(Shape shape) {
+    for (long seed = 0; seed < 3; seed++) {
+      assertSleeveWithinTolerance(SyntheticLines.create(shape, 20000, seed), TOLERANCE);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.ParallelRowProcessor;
+import edu.colorado.cires.cmg.tracklinegen.RowListener;
+import edu.colorado.cires.cmg.tracklinegen.RowProcessor;
+import edu.colorado.cires.cmg.tracklinegen.SimplifiedPointCountExceededException;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GeoSimplifierProcessor;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GsBaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticTrackline;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+public class ParallelRowProcessorTest {
+
+  private static final int GEO_JSON_PRECISION = 5;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  private static class CountingListener implements RowListener<DataRow> {
+
+    private final int failAt;
+    private final RuntimeException failure;
+    private int rows;
+    private boolean started;
+    private boolean finished;
+
+    private CountingListener(int failAt, RuntimeException failure) {
+      this.failAt = failAt;
+      this.failure = failure;
+    }
+
+    @Override
+    public void start() {
+      started = true;
+    }
+
+    @Override
+    public void processRow(DataRow row) {
+      if (++rows == failAt) {
+        throw failure;
+      }
+    }
+
+    @Override
+    public void finish() {
+      finished = true;
+    }
+  }
+
+  private static List<DataRow> rows() {
+    List<DataRow> rows = new ArrayList<>();
+    SyntheticTrackline.productionMix(11L, 50000L).build().forEach(rows::add);
+    return rows;
+  }
+
+  private byte[][] simplify(List<DataRow> rows, Function<List<BaseRowListener<DataRow>>, RowProcessor<DataRow, BaseRowListener<DataRow>>> rowProcessor)
+      throws Exception {
+    double[] tolerances = {0.0001, 0.001, 0.01};
+    ByteArrayOutputStream[] outs = new ByteArrayOutputStream[tolerances.length];
+    JsonGenerator[] jsonGenerators = new JsonGenerator[tolerances.length];
+    List<BaseRowListener<DataRow>> listeners = new ArrayList<>();
+    for (int i = 0; i < tolerances.length; i++) {
+      outs[i] = new ByteArrayOutputStream();
+      jsonGenerators[i] = objectMapper.getFactory().createGenerator(outs[i]);
+      listeners.add(new BaseRowListener<>(BaseRowListenerConfiguration.configure()
+          .withGeometrySimplifier(new GeometrySimplifier(tolerances[i]))
+          .withLineWriter(new GeoJsonMultiLineWriter(jsonGenerators[i], GEO_JSON_PRECISION))
+          .withBatchSize(1000)
+          .withMsSplit(3600000L)
+          .withFilterRow(row -> true)
+          .withMaxAllowedSimplifiedPoints(0L)
+          .withMaxAllowedSpeedKnts(0D)
+          .withGeometryFactory(geometryFactory)
+          .withGeoJsonPrecision(GEO_JSON_PRECISION)
+          .withRetainPoints(i == 1)
+          .build()));
+    }
+    try (RowProcessor<DataRow, BaseRowListener<DataRow>> processor = rowProcessor.apply(listeners)) {
+      processor.start();
+      rows.forEach(processor::processRow);
+      processor.finish();
+    }
+    byte[][] results = new byte[tolerances.length][];
+    for (int i = 0; i < tolerances.length; i++) {
+      jsonGenerators[i].close();
+      results[i] = outs[i].toByteArray();
+    }
+    return results;
+  }
+
+  @ParameterizedTest
+  @CsvSource({"1,1", "100,2", "1024,16"})
+  public void testMatchesSequential(int batchSize, int capacity) throws Exception {
+    List<DataRow> rows = rows();
+    byte[][] expected = simplify(rows, RowProcessor::new);
+    byte[][] actual = simplify(rows, listeners -> new ParallelRowProcessor<>(listeners, batchSize, capacity));
+    for (int i = 0; i < expected.length; i++) {
+      assertTrue(expected[i].length > 0);
+      assertArrayEquals(expected[i], actual[i]);
+    }
+  }
+
+  @Test
+  public void testAllFailuresReported() {
+    IllegalStateException failure1 = new IllegalStateException("first");
+    SimplifiedPointCountExceededException failure2 = new SimplifiedPointCountExceededException("second");
+    CountingListener good = new CountingListener(-1, null);
+    CountingListener bad1 = new CountingListener(30000, failure1);
+    CountingListener bad2 = new CountingListener(10, failure2);
+    List<DataRow> rows = rows();
+
+    ParallelRowProcessor<DataRow, CountingListener> processor = new ParallelRowProcessor<>(Arrays.asList(good, bad1, bad2), 64, 2);
+    processor.start();
+    rows.forEach(processor::processRow);
+    IllegalStateException e = assertThrows(IllegalStateException.class, processor::finish);
+
+    // in the order of the listeners, whichever failed first
+    assertSame(failure1, e);
+    assertEquals(Arrays.asList(failure2), Arrays.asList(e.getSuppressed()));
+    assertEquals(rows.size(), good.rows);
+    assertTrue(good.finished);
+    assertEquals(30000, bad1.rows);
+    assertFalse(bad1.finished);
+    assertEquals(10, bad2.rows);
+    assertFalse(bad2.finished);
+  }
+
+  @Test
+  public void testCloseWithoutFinish() {
+    CountingListener listener1 = new CountingListener(-1, null);
+    CountingListener listener2 = new CountingListener(-1, null);
+    List<DataRow> rows = rows();
+    try (ParallelRowProcessor<DataRow, CountingListener> processor = new ParallelRowProcessor<>(Arrays.asList(listener1, listener2), 64, 2)) {
+      processor.start();
+      rows.subList(0, 1000).forEach(processor::processRow);
+    }
+    assertTrue(listener1.started);
+    assertFalse(listener1.finished);
+    assertFalse(listener2.finished);
+    // the last partial batch was never published
+    assertEquals(960, listener1.rows);
+    assertEquals(960, listener2.rows);
+  }
+
+  @Test
+  public void testTracklineProcessor() throws Exception {
+    Path actualDir = Paths.get("target/test-classes/parallel/actual");
+    Files.createDirectories(actualDir);
+    Path gsf = actualDir.resolve("geoSimplified.json");
+    GeoSimplifierProcessor tracklineProcessor = new GeoSimplifierProcessor(GEO_JSON_PRECISION, 0, 3600000, new GeometrySimplifier(0.0001), 3000,
+        Paths.get("src/test/resources/phase1/test1/data.txt"), objectMapper, gsf, 0, geometryFactory, row -> true, 60D) {
+      @Override
+      protected RowProcessor<DataRow, ?> createRowProcessor(List<GsBaseRowListener> listeners) {
+        // the listeners are declared for the GeoDataRow rows this processor reads as DataRow
+        @SuppressWarnings("unchecked")
+        List<RowListener<DataRow>> rowListeners = (List<RowListener<DataRow>>) (List<?>) listeners;
+        return new ParallelRowProcessor<>(rowListeners, 5, 2);
+      }
+    };
+
+    tracklineProcessor.process();
+
+    JsonNode expected = objectMapper.readTree(new File("src/test/resources/phase1/test1/expected.geojson"));
+    assertEquals(expected, objectMapper.readTree(gsf.toFile()));
+  }
+}
@@ -0,0 +1,344 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.PipelinedOutputStream;
+import edu.colorado.cires.cmg.tracklinegen.RowListener;
+import edu.colorado.cires.cmg.tracklinegen.TracklineProcessor;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GeoSimplifierProcessor;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticTrackline;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+public class PipelinedProcessingTest {
+
+  private static final int GEO_JSON_PRECISION = 5;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  private static class OutputContext implements Closeable {
+
+    private final JsonGenerator jsonGenerator;
+
+    private OutputContext(JsonGenerator jsonGenerator) {
+      this.jsonGenerator = jsonGenerator;
+    }
+
+    @Override
+    public void close() throws IOException {
+      jsonGenerator.close();
+    }
+  }
+
+  private static class IteratorProcessor extends TracklineProcessor<OutputContext, DataRow, RowListener<DataRow>> {
+
+    private final Iterator<DataRow> rows;
+    private final OutputContext context;
+    private final Function<OutputContext, RowListener<DataRow>> listener;
+
+    private IteratorProcessor(Iterator<DataRow> rows, OutputContext context, Function<OutputContext, RowListener<DataRow>> listener) {
+      this.rows = rows;
+      this.context = context;
+      this.listener = listener;
+    }
+
+    @Override
+    protected Iterator<DataRow> getRows(OutputContext context) {
+      return rows;
+    }
+
+    @Override
+    protected List<RowListener<DataRow>> createRowListeners(OutputContext context) {
+      return Collections.singletonList(listener.apply(context));
+    }
+
+    @Override
+    protected OutputContext createProcessingContext() {
+      return context;
+    }
+  }
+
+  private static class CountingListener implements RowListener<DataRow> {
+
+    private final int failAt;
+    private int rows;
+    private boolean finished;
+
+    private CountingListener(int failAt) {
+      this.failAt = failAt;
+    }
+
+    @Override
+    public void start() {
+
+    }
+
+    @Override
+    public void processRow(DataRow row) {
+      if (++rows == failAt) {
+        throw new IllegalStateException("Listener failed");
+      }
+    }
+
+    @Override
+    public void finish() {
+      finished = true;
+    }
+  }
+
+  private static Iterator<DataRow> rows(long count, RuntimeException failure) {
+    Iterator<DataRow> rows = SyntheticTrackline.productionMix(3L, Long.MAX_VALUE).build().iterator();
+    return new Iterator<DataRow>() {
+      private long read;
+
+      @Override
+      public boolean hasNext() {
+        return read < count || failure != null;
+      }
+
+      @Override
+      public DataRow next() {
+        if (read++ == count) {
+          throw failure;
+        }
+        return rows.next();
+      }
+    };
+  }
+
+  private RowListener<DataRow> simplifier(OutputContext context) {
+    return new BaseRowListener<>(BaseRowListenerConfiguration.configure()
+        .withGeometrySimplifier(new GeometrySimplifier(0.0001))
+        .withLineWriter(new GeoJsonMultiLineWriter(context.jsonGenerator, GEO_JSON_PRECISION))
+        .withBatchSize(1000)
+        .withMsSplit(3600000L)
+        .withFilterRow(row -> true)
+        .withMaxAllowedSimplifiedPoints(0L)
+        .withMaxAllowedSpeedKnts(0D)
+        .withGeometryFactory(geometryFactory)
+        .withGeoJsonPrecision(GEO_JSON_PRECISION)
+        .build());
+  }
+
+  private OutputContext context(OutputStream out) {
+    try {
+      return new OutputContext(objectMapper.getFactory().createGenerator(out));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({"1,1", "7,2", "1000,16"})
+  public void testPipelinedMatchesSequential(int batchSize, int capacity) throws Exception {
+    Path actualDir = Paths.get("target/test-classes/pipelined/actual");
+    Files.createDirectories(actualDir);
+    Path gsf = actualDir.resolve("geoSimplified-" + batchSize + ".json");
+    GeoSimplifierProcessor tracklineProcessor = new GeoSimplifierProcessor(GEO_JSON_PRECISION, 0, 3600000, new GeometrySimplifier(0.0001), 3000,
+        Paths.get("src/test/resources/phase1/test1/data.txt"), objectMapper, gsf, 0, geometryFactory, row -> true, 60D);
+
+    tracklineProcessor.processPipelined(batchSize, capacity);
+
+    JsonNode expected = objectMapper.readTree(new File("src/test/resources/phase1/test1/expected.geojson"));
+    assertEquals(expected, objectMapper.readTree(gsf.toFile()));
+  }
+
+  @Test
+  public void testPipelinedOutput() throws Exception {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new IteratorProcessor(rows(50000L, null), context(expected), this::simplifier).process();
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    new IteratorProcessor(rows(50000L, null), context(new PipelinedOutputStream(actual, 100, 2)), this::simplifier)
+        .processPipelined(64, 2);
+
+    assertTrue(expected.size() > 0);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+  }
+
+  @Test
+  public void testReaderFailure() {
+    IllegalStateException failure = new IllegalStateException("Unable to read row");
+    CountingListener listener = new CountingListener(-1);
+    IteratorProcessor tracklineProcessor = new IteratorProcessor(rows(1000L, failure), context(new ByteArrayOutputStream()), context -> listener);
+
+    assertSame(failure, assertThrows(IllegalStateException.class, () -> tracklineProcessor.processPipelined(64, 2)));
+    // the rows read before the failure are processed, but the listener does not finish
+    assertEquals(1000, listener.rows);
+    assertFalse(listener.finished);
+  }
+
+  @Test
+  public void testListenerFailureStopsReader() {
+    CountingListener listener = new CountingListener(5000);
+    // the reader would never run out of rows
+    IteratorProcessor tracklineProcessor = new IteratorProcessor(rows(Long.MAX_VALUE, null), context(new ByteArrayOutputStream()), context -> listener);
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, () -> tracklineProcessor.processPipelined(64, 2));
+    assertEquals("Listener failed", e.getMessage());
+    assertFalse(listener.finished);
+  }
+
+  @Test
+  public void testOutputFailure() {
+    AtomicInteger writes = new AtomicInteger();
+    AtomicBoolean closed = new AtomicBoolean();
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        if (writes.incrementAndGet() > 1000) {
+          throw new IOException("Disk full");
+        }
+      }
+
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    };
+    byte[] bytes = new byte[100000];
+    new Random(1L).nextBytes(bytes);
+    IOException e = assertThrows(IOException.class, () -> {
+      try (OutputStream out = new PipelinedOutputStream(failing, 256, 2)) {
+        for (byte b : bytes) {
+          out.write(b);
+        }
+      }
+    });
+    assertEquals("Disk full", e.getCause().getMessage());
+    assertTrue(closed.get());
+  }
+
+  @Test
+  public void testOutputChunks() throws Exception {
+    byte[] bytes = new byte[100000];
+    new Random(2L).nextBytes(bytes);
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    Random random = new Random(3L);
+    try (OutputStream out = new PipelinedOutputStream(actual, 1000, 4)) {
+      int offset = 0;
+      while (offset < bytes.length) {
+        int length = Math.min(random.nextInt(3000), bytes.length - offset);
+        if (length == 1) {
+          out.write(bytes[offset]);
+        } else {
+          out.write(bytes, offset, length);
+        }
+        if (random.nextInt(10) == 0) {
+          out.flush();
+        }
+        offset += length;
+      }
+    }
+    assertArrayEquals(bytes, actual.toByteArray());
+  }
+
+  @ParameterizedTest
+  @CsvSource({"6", "13", "16"})
+  public void testCloseWithSlowOutput(int capacity) {
+    // the queue holds 8 or 16 chunks, two more are held by the threads while the output is stalled
+    int chunkSize = 100;
+    int queued = capacity <= 8 ? 8 : 16;
+    byte[] bytes = new byte[chunkSize * (queued + 2)];
+    new Random(4L).nextBytes(bytes);
+    CountDownLatch stalled = new CountDownLatch(1);
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    OutputStream slow = new OutputStream() {
+      @Override
+      public void write(int b) {
+        actual.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        try {
+          stalled.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        actual.write(b, off, len);
+      }
+    };
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      Thread release = new Thread(() -> {
+        try {
+          Thread.sleep(200L);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        stalled.countDown();
+      });
+      release.start();
+      try (OutputStream out = new PipelinedOutputStream(slow, chunkSize, capacity)) {
+        out.write(bytes);
+      }
+      release.join();
+    });
+    assertArrayEquals(bytes, actual.toByteArray());
+  }
+
+  @ParameterizedTest
+  @CsvSource({"1", "1000"})
+  public void testOutputError(int chunks) {
+    // one chunk leaves the queue with room, a thousand fill it while the writer thread is gone
+    StackOverflowError error = new StackOverflowError();
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) {
+        throw error;
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        throw error;
+      }
+    };
+    byte[] chunk = new byte[100];
+    StackOverflowError thrown = assertTimeoutPreemptively(Duration.ofSeconds(10),
+        () -> assertThrows(StackOverflowError.class, () -> {
+          try (OutputStream out = new PipelinedOutputStream(failing, chunk.length, 2)) {
+            for (int i = 0; i < chunks; i++) {
+              out.write(chunk);
+            }
+          }
+        }));
+    assertSame(error, thrown);
+  }
+}
@@ -0,0 +1,73 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.GEOMETRY_FACTORY;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.GEO_JSON_PRECISION;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.TOLERANCE;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.line;
+import static edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey.simplify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.FixedPrecision;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationMode;
+import edu.colorado.cires.cmg.tracklinegen.SimplifiedPointCountExceededException;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SimplifiedSurvey;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+
+public class PointBudgetTest {
+
+  @ParameterizedTest
+  @ValueSource(ints = {100, 1000, 100000})
+  public void testBudgetRaisesTolerance(int batchSize) throws Exception {
+    List<DataRow> rows = SimplifiedSurvey.rows(9L);
+    long unlimited = simplify(rows, SimplificationMode.BATCH, rows.size() + 1, 0L)
+        .get("properties").get("simplifiedPointCount").asLong();
+    long budget = unlimited / 3L;
+
+    JsonNode geoJson = simplify(rows, SimplificationMode.BUDGET, batchSize, budget);
+    JsonNode properties = geoJson.get("properties");
+    long count = properties.get("simplifiedPointCount").asLong();
+    double tolerance = properties.get("simplificationTolerance").asDouble();
+    assertTrue(count <= budget, () -> count + " points for a budget of " + budget);
+    assertTrue(tolerance > TOLERANCE, () -> "tolerance " + tolerance);
+
+    // points dropped at a lower tolerance add up to less than the final tolerance
+    LineString line = line(geoJson);
+    assertEquals(count, line.getNumPoints());
+    FixedPrecision precision = new FixedPrecision(GEO_JSON_PRECISION);
+    for (DataRow row : rows) {
+      Coordinate coordinate = new Coordinate(precision.round(row.getLon()), precision.round(row.getLat()));
+      double distance = line.distance(GEOMETRY_FACTORY.createPoint(coordinate));
+      assertTrue(distance <= 2D * tolerance * (1D + 1e-9), () -> coordinate + " is " + distance + " from the simplified line");
+    }
+
+    assertEquals(geoJson, simplify(rows, SimplificationMode.BUDGET, batchSize, budget));
+  }
+
+  @Test
+  public void testWithinBudget() throws Exception {
+    List<DataRow> rows = SimplifiedSurvey.rows(9L);
+    JsonNode batch = simplify(rows, SimplificationMode.BATCH, rows.size() + 1, 0L);
+    assertFalse(batch.get("properties").has("simplificationTolerance"));
+
+    JsonNode budget = simplify(rows, SimplificationMode.BUDGET, rows.size() + 1, rows.size());
+    assertEquals(TOLERANCE, budget.get("properties").get("simplificationTolerance").asDouble(), 0D);
+    assertEquals(batch.get("geometry"), budget.get("geometry"));
+  }
+
+  @Test
+  public void testUnreachableBudget() {
+    List<DataRow> rows = SimplifiedSurvey.rows(9L);
+    // a line always keeps its end points
+    assertThrows(SimplifiedPointCountExceededException.class, () -> simplify(rows, SimplificationMode.BUDGET, 1000, 1L));
+  }
+}
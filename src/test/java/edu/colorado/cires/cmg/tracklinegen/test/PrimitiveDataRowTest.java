@@ -0,0 +1,181 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.MutableDataRow;
+import edu.colorado.cires.cmg.tracklinegen.TracklineProcessor;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GeoDataRow;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticTrackline;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+public class PrimitiveDataRowTest {
+
+  private static final int GEO_JSON_PRECISION = 5;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  private static class OutputContext implements Closeable {
+
+    private final JsonGenerator jsonGenerator;
+
+    private OutputContext(JsonGenerator jsonGenerator) {
+      this.jsonGenerator = jsonGenerator;
+    }
+
+    @Override
+    public void close() throws IOException {
+      jsonGenerator.close();
+    }
+  }
+
+  private class IteratorProcessor<D extends DataRow> extends TracklineProcessor<OutputContext, D, BaseRowListener<D>> {
+
+    private final Iterator<D> rows;
+    private final ByteArrayOutputStream out;
+    private final long msSplit;
+    private final Integer rowBatchSize;
+
+    private IteratorProcessor(Iterator<D> rows, ByteArrayOutputStream out, long msSplit) {
+      this(rows, out, msSplit, null);
+    }
+
+    private IteratorProcessor(Iterator<D> rows, ByteArrayOutputStream out, long msSplit, Integer rowBatchSize) {
+      this.rows = rows;
+      this.out = out;
+      this.msSplit = msSplit;
+      this.rowBatchSize = rowBatchSize;
+    }
+
+    @Override
+    protected Iterator<D> getRows(OutputContext context) {
+      return rows;
+    }
+
+    @Override
+    protected int getRowBatchSize() {
+      return rowBatchSize == null ? super.getRowBatchSize() : rowBatchSize;
+    }
+
+    @Override
+    protected List<BaseRowListener<D>> createRowListeners(OutputContext context) {
+      return Collections.singletonList(new BaseRowListener<>(BaseRowListenerConfiguration.<D>configure()
+          .withGeometrySimplifier(new GeometrySimplifier(0.0001))
+          .withLineWriter(new GeoJsonMultiLineWriter(context.jsonGenerator, GEO_JSON_PRECISION))
+          .withBatchSize(1000)
+          .withMsSplit(msSplit)
+          .withFilterRow(row -> row.getLat() > 0D)
+          .withMaxAllowedSimplifiedPoints(0L)
+          .withMaxAllowedSpeedKnts(0D)
+          .withGeometryFactory(geometryFactory)
+          .withGeoJsonPrecision(GEO_JSON_PRECISION)
+          .build()));
+    }
+
+    @Override
+    protected OutputContext createProcessingContext() {
+      try {
+        return new OutputContext(objectMapper.getFactory().createGenerator(out));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static List<DataRow> rows() {
+    List<DataRow> rows = new ArrayList<>();
+    SyntheticTrackline.productionMix(17L, 30000L).build().forEach(rows::add);
+    return rows;
+  }
+
+  /**
+   * Reuses one row, as a reader that allocates nothing per row would.
+   */
+  private static Iterator<MutableDataRow> flyweight(List<DataRow> rows, boolean timestamps) {
+    MutableDataRow row = new MutableDataRow();
+    Iterator<DataRow> iterator = rows.iterator();
+    return new Iterator<MutableDataRow>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public MutableDataRow next() {
+        DataRow next = iterator.next();
+        return timestamps
+            ? row.set(next.getTimestamp().toEpochMilli(), next.getLon(), next.getLat())
+            : row.set(next.getLon(), next.getLat());
+      }
+    };
+  }
+
+  @Test
+  public void testFlyweightRow() throws Exception {
+    List<DataRow> rows = rows();
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new IteratorProcessor<>(rows.iterator(), expected, 3600000L, TracklineProcessor.BATCHED_ROW_BATCH_SIZE).process();
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    new IteratorProcessor<>(flyweight(rows, true), actual, 3600000L, 1).process();
+
+    assertTrue(expected.size() > 0);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+    // rows are not batched unless the processor asks for it
+    ByteArrayOutputStream byDefault = new ByteArrayOutputStream();
+    new IteratorProcessor<>(flyweight(rows, true), byDefault, 3600000L).process();
+    assertArrayEquals(expected.toByteArray(), byDefault.toByteArray());
+  }
+
+  @Test
+  public void testNoTimestamp() throws Exception {
+    List<DataRow> rows = rows();
+    List<DataRow> untimed = new ArrayList<>();
+    rows.forEach(row -> untimed.add(new GeoDataRow(null, row.getLon(), row.getLat())));
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new IteratorProcessor<>(untimed.iterator(), expected, 0L, TracklineProcessor.BATCHED_ROW_BATCH_SIZE).process();
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    new IteratorProcessor<>(flyweight(rows, false), actual, 0L, 1).process();
+
+    assertTrue(expected.size() > 0);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+  }
+
+  @Test
+  public void testDataRowAccessors() {
+    MutableDataRow row = new MutableDataRow().set(1577836800123L, -150.5, 20.25);
+    assertEquals(Instant.parse("2020-01-01T00:00:00.123Z"), row.getTimestamp());
+    assertEquals(-150.5, row.getLon());
+    assertEquals(20.25, row.getLat());
+
+    MutableDataRow copy = row.copy();
+    row.set(10D, 11D);
+    assertNull(row.getTimestamp());
+    assertEquals(10D, row.getLon());
+    assertEquals(1577836800123L, copy.epochMillis());
+    assertEquals(-150.5, copy.lon());
+  }
+}
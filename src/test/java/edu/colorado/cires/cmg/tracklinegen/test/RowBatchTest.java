@@ -0,0 +1,123 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.RowBatch;
+import edu.colorado.cires.cmg.tracklinegen.RowListener;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationMode;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticTrackline;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+public class RowBatchTest {
+
+  private static final int GEO_JSON_PRECISION = 5;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  private static List<DataRow> rows() {
+    List<DataRow> rows = new ArrayList<>();
+    SyntheticTrackline.productionMix(5L, 40000L).build().forEach(rows::add);
+    return rows;
+  }
+
+  private byte[] simplify(List<DataRow> rows, SimplificationMode mode, int batchSize, int rowBatchSize) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(out)) {
+      BaseRowListener<DataRow> listener = new BaseRowListener<>(BaseRowListenerConfiguration.configure()
+          .withGeometrySimplifier(new GeometrySimplifier(0.0001))
+          .withLineWriter(new GeoJsonMultiLineWriter(jsonGenerator, GEO_JSON_PRECISION))
+          .withBatchSize(batchSize)
+          .withMsSplit(3600000L)
+          // some rows are not targets
+          .withFilterRow(row -> (row.getTimestamp().getEpochSecond() / 600) % 7 != 0)
+          .withMaxAllowedSimplifiedPoints(mode == SimplificationMode.BUDGET ? 3000L : 0L)
+          .withMaxAllowedSpeedKnts(0D)
+          .withGeometryFactory(geometryFactory)
+          .withGeoJsonPrecision(GEO_JSON_PRECISION)
+          .withRetainPoints(true)
+          .withSimplificationMode(mode)
+          .build());
+      listener.start();
+      if (rowBatchSize == 0) {
+        rows.forEach(listener::processRow);
+      } else {
+        RowBatch<DataRow> batch = new RowBatch<>(rowBatchSize);
+        for (DataRow row : rows) {
+          if (batch.add(row)) {
+            listener.processRows(batch);
+            batch.clear();
+          }
+        }
+        listener.processRows(batch);
+      }
+      listener.finish();
+    }
+    return out.toByteArray();
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "BATCH,100,1", "BATCH,100,7", "BATCH,1000,1024", "BATCH,5000,333",
+      "ONLINE,100,7", "ONLINE,1000,1024",
+      "BUDGET,100,7", "BUDGET,1000,1024"
+  })
+  public void testProcessRowsMatchesProcessRow(SimplificationMode mode, int batchSize, int rowBatchSize) throws Exception {
+    List<DataRow> rows = rows();
+    byte[] expected = simplify(rows, mode, batchSize, 0);
+    assertTrue(expected.length > 0);
+    assertArrayEquals(expected, simplify(rows, mode, batchSize, rowBatchSize));
+  }
+
+  @Test
+  public void testDefaultProcessRows() {
+    List<DataRow> processed = new ArrayList<>();
+    RowListener<DataRow> listener = new RowListener<DataRow>() {
+      @Override
+      public void start() {
+
+      }
+
+      @Override
+      public void processRow(DataRow row) {
+        processed.add(row);
+      }
+
+      @Override
+      public void finish() {
+
+      }
+    };
+    List<DataRow> rows = rows().subList(0, 3);
+    RowBatch<DataRow> batch = new RowBatch<>(4);
+    assertTrue(batch.isEmpty());
+    assertFalse(batch.add(rows.get(0)));
+    assertFalse(batch.add(rows.get(1)));
+    assertFalse(batch.add(rows.get(2)));
+    listener.processRows(batch);
+    assertEquals(rows, processed);
+    assertThrows(IndexOutOfBoundsException.class, () -> batch.get(3));
+
+    batch.clear();
+    assertEquals(0, batch.size());
+    assertEquals(4, batch.capacity());
+  }
+}
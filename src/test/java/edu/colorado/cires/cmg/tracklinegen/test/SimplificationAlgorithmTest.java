@@ -0,0 +1,235 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import edu.colorado.cires.cmg.tracklinegen.DouglasPeuckerAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.GeometryFactoryFactory;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.HullDouglasPeuckerAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.ParallelDouglasPeuckerAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.VisvalingamWhyattAlgorithm;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticLines;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticLines.Shape;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.locationtech.jts.simplify.VWSimplifier;
+
+public class SimplificationAlgorithmTest {
+
+  private static final double TOLERANCE = 0.0001;
+
+  private final GeometryFactory geometryFactory = GeometryFactoryFactory.create();
+
+  private static void assertCoordinatesEqual(Coordinate[] expected, Coordinate[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertTrue(expected[i].equals3D(actual[i]), expected[i] + " != " + actual[i] + " at " + i);
+    }
+  }
+
+  private static Coordinate[] withRepeats(Coordinate[] coordinates, long seed) {
+    // repeated and exactly collinear points, as rounded input often has
+    Random random = new Random(seed);
+    Coordinate[] result = Arrays.copyOf(coordinates, coordinates.length);
+    for (int i = 1; i < result.length - 1; i++) {
+      int kind = random.nextInt(20);
+      if (kind == 0) {
+        result[i] = new Coordinate(result[i - 1].getX(), result[i - 1].getY(), result[i].getZ());
+      } else if (kind == 1) {
+        result[i + 1] = new Coordinate(2D * result[i].getX() - result[i - 1].getX(), 2D * result[i].getY() - result[i - 1].getY(),
+            result[i + 1].getZ());
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testDefaultIsJtsDouglasPeucker() {
+    Coordinate[] coordinates = SyntheticLines.create(Shape.RANDOM_WALK, 20000, 1L);
+    GeometrySimplifier simplifier = new GeometrySimplifier(TOLERANCE);
+    assertTrue(simplifier.getSimplificationAlgorithm() instanceof DouglasPeuckerAlgorithm);
+
+    LineString expected = (LineString) DouglasPeuckerSimplifier.simplify(geometryFactory.createLineString(coordinates), TOLERANCE);
+    assertCoordinatesEqual(expected.getCoordinates(), simplifier.simplifyGeometry(Arrays.asList(coordinates)).getCoordinates());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Shape.class)
+  public void testDouglasPeuckerIndicesMatchJts(Shape shape) {
+    DouglasPeuckerAlgorithm algorithm = new DouglasPeuckerAlgorithm();
+    for (long seed = 0; seed < 3; seed++) {
+      Coordinate[] coordinates = withRepeats(SyntheticLines.create(shape, 20000, seed), seed);
+      double[] x = new double[coordinates.length];
+      double[] y = new double[coordinates.length];
+      double[] xy = new double[coordinates.length * 2];
+      for (int i = 0; i < coordinates.length; i++) {
+        x[i] = coordinates[i].getX();
+        y[i] = coordinates[i].getY();
+        xy[2 * i] = x[i];
+        xy[2 * i + 1] = y[i];
+      }
+      for (double tolerance : new double[]{0D, 0.00001, TOLERANCE, 0.01}) {
+        Coordinate[] expected = algorithm.simplify(coordinates, tolerance);
+        int[] kept = new int[coordinates.length];
+        int count = algorithm.simplify(x, y, coordinates.length, tolerance, kept);
+        assertEquals(expected.length, count);
+        for (int i = 0; i < count; i++) {
+          assertTrue(expected[i].equals3D(coordinates[kept[i]]), expected[i] + " != " + coordinates[kept[i]] + " at " + i);
+        }
+        int[] packedKept = new int[coordinates.length];
+        assertEquals(count, algorithm.simplifyPacked(xy, coordinates.length, tolerance, packedKept));
+        assertArrayEquals(kept, packedKept);
+      }
+    }
+  }
+
+  @Test
+  public void testDouglasPeuckerIndicesWithoutGarbage() {
+    // allocation counting is a HotSpot extension
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+    DouglasPeuckerAlgorithm algorithm = new DouglasPeuckerAlgorithm();
+    Coordinate[] coordinates = SyntheticLines.create(Shape.LAWNMOWER, 100000, 1L);
+    double[] x = new double[coordinates.length];
+    double[] y = new double[coordinates.length];
+    for (int i = 0; i < coordinates.length; i++) {
+      x[i] = coordinates[i].getX();
+      y[i] = coordinates[i].getY();
+    }
+    int[] kept = new int[coordinates.length];
+    int count = algorithm.simplify(x, y, coordinates.length, TOLERANCE, kept);
+    long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    for (int i = 0; i < 20; i++) {
+      assertEquals(count, algorithm.simplify(x, y, coordinates.length, TOLERANCE, kept));
+    }
+    long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+    // a margin for what the JVM itself allocates on this thread, garbage per call would be megabytes
+    assertTrue(allocated < 64L * 1024L, () -> allocated + " bytes allocated");
+  }
+
+  @ParameterizedTest
+  @EnumSource(Shape.class)
+  public void testParallelDouglasPeuckerMatchesSequential(Shape shape) {
+    DouglasPeuckerAlgorithm sequential = new DouglasPeuckerAlgorithm();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      // a small threshold so that nearly every section is split up and scanned on the pool
+      ParallelDouglasPeuckerAlgorithm parallel = new ParallelDouglasPeuckerAlgorithm(pool, 64);
+      for (long seed = 0; seed < 3; seed++) {
+        Coordinate[] coordinates = withRepeats(SyntheticLines.create(shape, 20000, seed), seed);
+        double[] x = new double[coordinates.length];
+        double[] y = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++) {
+          x[i] = coordinates[i].getX();
+          y[i] = coordinates[i].getY();
+        }
+        for (double tolerance : new double[]{0D, 0.00001, TOLERANCE, 0.01}) {
+          int[] expected = new int[coordinates.length];
+          int expectedCount = sequential.simplify(x, y, coordinates.length, tolerance, expected);
+          for (int run = 0; run < 3; run++) {
+            int[] kept = new int[coordinates.length];
+            assertEquals(expectedCount, parallel.simplify(x, y, coordinates.length, tolerance, kept));
+            assertArrayEquals(expected, kept);
+          }
+          assertCoordinatesEqual(sequential.simplify(coordinates, tolerance), parallel.simplify(coordinates, tolerance));
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelDouglasPeuckerShortLines() {
+    ParallelDouglasPeuckerAlgorithm parallel = new ParallelDouglasPeuckerAlgorithm(ForkJoinPool.commonPool(), 0);
+    assertEquals(3, parallel.getParallelThreshold());
+    Coordinate[] line = {new Coordinate(0, 0), new Coordinate(1, 1), new Coordinate(2, 0)};
+    assertCoordinatesEqual(new DouglasPeuckerAlgorithm().simplify(line, 0.5), parallel.simplify(line, 0.5));
+    assertCoordinatesEqual(new DouglasPeuckerAlgorithm().simplify(line, 2D), parallel.simplify(line, 2D));
+    assertEquals(0, parallel.simplify(new double[0], new double[0], 0, TOLERANCE, new int[2]));
+  }
+
+  @ParameterizedTest
+  @EnumSource(Shape.class)
+  public void testVisvalingamWhyattMatchesJts(Shape shape) {
+    SimplificationAlgorithm algorithm = new VisvalingamWhyattAlgorithm();
+    for (long seed = 0; seed < 5; seed++) {
+      Coordinate[] coordinates = withRepeats(SyntheticLines.create(shape, 3000, seed), seed);
+      for (double tolerance : new double[]{0D, 0.00001, TOLERANCE, 0.01}) {
+        LineString expected = (LineString) VWSimplifier.simplify(geometryFactory.createLineString(coordinates), tolerance);
+        assertCoordinatesEqual(expected.getCoordinates(), algorithm.simplify(coordinates, tolerance));
+      }
+    }
+
+    Coordinate[] same = {new Coordinate(1D, 2D, 3D), new Coordinate(1D, 2D, 4D), new Coordinate(1D, 2D, 5D)};
+    assertCoordinatesEqual(new Coordinate[]{new Coordinate(1D, 2D, 3D), new Coordinate(1D, 2D, 3D)}, algorithm.simplify(same, TOLERANCE));
+  }
+
+  @ParameterizedTest
+  @EnumSource(Shape.class)
+  public void testHullDouglasPeuckerWithinTolerance(Shape shape) {
+    SimplificationAlgorithm algorithm = new HullDouglasPeuckerAlgorithm();
+    for (long seed = 0; seed < 3; seed++) {
+      Coordinate[] coordinates = withRepeats(SyntheticLines.create(shape, 20000, seed), seed);
+      Coordinate[] simplified = algorithm.simplify(coordinates, TOLERANCE);
+
+      assertTrue(coordinates[0].equals3D(simplified[0]));
+      assertTrue(coordinates[coordinates.length - 1].equals3D(simplified[simplified.length - 1]));
+      // kept points are input points in order, and every input point is near the simplified line between them
+      int next = 0;
+      for (int k = 1; k < simplified.length; k++) {
+        LineString segment = geometryFactory.createLineString(new Coordinate[]{simplified[k - 1], simplified[k]});
+        while (!coordinates[next].equals3D(simplified[k])) {
+          double distance = segment.distance(geometryFactory.createPoint(coordinates[next]));
+          assertTrue(distance <= TOLERANCE * (1D + 1e-9), coordinates[next] + " is " + distance + " from the simplified line");
+          next++;
+        }
+      }
+      assertEquals(coordinates.length - 1, next);
+
+      int jtsCount = DouglasPeuckerSimplifier.simplify(geometryFactory.createLineString(coordinates), TOLERANCE).getNumPoints();
+      assertTrue(simplified.length <= jtsCount * 1.25 + 2, () -> simplified.length + " points, JTS " + jtsCount);
+    }
+  }
+
+  @Test
+  public void testHullDouglasPeuckerClosedAndShortLines() {
+    SimplificationAlgorithm algorithm = new HullDouglasPeuckerAlgorithm();
+    Coordinate a = new Coordinate(0D, 0D, 0D);
+    Coordinate b = new Coordinate(1D, 0D, 1D);
+    assertCoordinatesEqual(new Coordinate[]{a, b}, algorithm.simplify(new Coordinate[]{a, b}, TOLERANCE));
+
+    // out and back along the same line: the far end is on the line through the end points but must be kept
+    Coordinate[] outAndBack = {a, new Coordinate(0.5, 0D, 1D), new Coordinate(1D, 0D, 2D), new Coordinate(0.5, 0D, 3D),
+        new Coordinate(0D, 0D, 4D)};
+    assertCoordinatesEqual(new Coordinate[]{outAndBack[0], outAndBack[2], outAndBack[4]}, algorithm.simplify(outAndBack, TOLERANCE));
+
+    Coordinate[] overshoot = {a, new Coordinate(1.5, 0D, 1D), new Coordinate(1D, 0D, 2D)};
+    assertCoordinatesEqual(overshoot, algorithm.simplify(overshoot, TOLERANCE));
+
+    Coordinate[] jitter = {a, new Coordinate(0.00005, 0D, 1D), new Coordinate(0D, 0.00005, 2D), new Coordinate(0D, 0D, 3D)};
+    assertCoordinatesEqual(new Coordinate[]{jitter[0], jitter[3]}, algorithm.simplify(jitter, TOLERANCE));
+  }
+
+  @Test
+  public void testSelectedAlgorithmIsUsed() {
+    Coordinate[] coordinates = SyntheticLines.create(Shape.LAWNMOWER, 10000, 2L);
+    SimplificationAlgorithm algorithm = new VisvalingamWhyattAlgorithm();
+    GeometrySimplifier simplifier = new GeometrySimplifier(TOLERANCE, algorithm);
+    assertArrayEquals(algorithm.simplify(coordinates, TOLERANCE), simplifier.simplifyGeometry(Arrays.asList(coordinates)).getCoordinates());
+  }
+}
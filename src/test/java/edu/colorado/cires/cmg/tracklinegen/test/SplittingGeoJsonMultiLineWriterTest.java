@@ -0,0 +1,227 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListener;
+import edu.colorado.cires.cmg.tracklinegen.BaseRowListenerConfiguration;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.FnvCruiseReader;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineProcessor;
+import edu.colorado.cires.cmg.tracklinegen.GeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.GeodeticDistanceCalculator;
+import edu.colorado.cires.cmg.tracklinegen.GeometryEncoder;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.SimplificationMode;
+import edu.colorado.cires.cmg.tracklinegen.SplittingGeoJsonMultiLineWriter;
+import edu.colorado.cires.cmg.tracklinegen.ValidationException;
+import edu.colorado.cires.cmg.tracklinegen.ValidationRuntimeException;
+import edu.colorado.cires.cmg.tracklinegen.WkbGeometryEncoder;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticTrackline;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+public class SplittingGeoJsonMultiLineWriterTest {
+
+  private static final int GEO_JSON_PRECISION = 5;
+
+  private final ObjectMapper objectMapper = FnvSplittingTest.objectMapper();
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  private static final class Output {
+
+    private final String geoJson;
+    private final String wkt;
+
+    private Output(String geoJson, String wkt) {
+      this.geoJson = geoJson;
+      this.wkt = wkt;
+    }
+  }
+
+  /**
+   * The legs of the production mix, starting near the antimeridian so that it is crossed early and often.
+   */
+  private static List<DataRow> synthetic(long points) {
+    List<DataRow> rows = new ArrayList<>();
+    SyntheticTrackline.Builder.configure()
+        .withSeed(11L)
+        .withStart(Instant.parse("2020-01-01T00:00:00Z"), 179.9D, 20D)
+        .withMaxPoints(points)
+        .withRepeat(true)
+        .withAntimeridianCrossings(8, 3D, 9D, 1D)
+        .withLawnmower(4, 2D, 0.25D, 6D, 2D)
+        .withTimeGap(Duration.ofHours(3))
+        .withStation(Duration.ofHours(6), 0.1D, 8D)
+        .withDistanceGap(40D, 180D, Duration.ofHours(5))
+        .withTransit(Duration.ofHours(2), 10D, 80D, 1D)
+        .build()
+        .forEach(rows::add);
+    return rows;
+  }
+
+  private static List<DataRow> cruise() {
+    List<DataRow> rows = new ArrayList<>();
+    try (FnvCruiseReader reader = FnvCruiseReader.configure().withDirectory(Paths.get("src/test/resources/fnv_am/KM0625_2")).build()) {
+      reader.forEachRemaining(rows::add);
+    }
+    return rows;
+  }
+
+  private void simplify(List<DataRow> rows, GeoJsonMultiLineWriter lineWriter, boolean retainPoints, SimplificationMode mode) {
+    BaseRowListener<DataRow> listener = new BaseRowListener<>(BaseRowListenerConfiguration.configure()
+        .withGeometrySimplifier(new GeometrySimplifier(0.0001))
+        .withLineWriter(lineWriter)
+        .withBatchSize(1000)
+        .withMsSplit(900000L)
+        .withNmSplit(900000L)
+        .withFilterRow(row -> true)
+        // the speed is checked by phase 2
+        .withMaxAllowedSpeedKnts(0D)
+        .withGeometryFactory(geometryFactory)
+        .withGeoJsonPrecision(GEO_JSON_PRECISION)
+        .withRetainPoints(retainPoints)
+        .withSimplificationMode(mode)
+        .build());
+    listener.start();
+    rows.forEach(listener::processRow);
+    listener.finish();
+  }
+
+  private Output twoPhases(List<DataRow> rows, boolean retainPoints, SimplificationMode mode, double maxAllowedSpeedKnts,
+      Map<String, Object> additionalProperties) throws Exception {
+    ByteArrayOutputStream phase1 = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(phase1)) {
+      simplify(rows, new GeoJsonMultiLineWriter(jsonGenerator, GEO_JSON_PRECISION), retainPoints, mode);
+    }
+    ByteArrayOutputStream geoJson = new ByteArrayOutputStream();
+    ByteArrayOutputStream wkt = new ByteArrayOutputStream();
+    new GeoJsonMultiLineProcessor(objectMapper, GEO_JSON_PRECISION, maxAllowedSpeedKnts)
+        .process(new ByteArrayInputStream(phase1.toByteArray()), geoJson, wkt, additionalProperties);
+    return new Output(geoJson.toString(StandardCharsets.UTF_8.name()), wkt.toString(StandardCharsets.UTF_8.name()));
+  }
+
+  private Output fused(List<DataRow> rows, boolean retainPoints, SimplificationMode mode, double maxAllowedSpeedKnts,
+      Map<String, Object> additionalProperties) throws Exception {
+    ByteArrayOutputStream geoJson = new ByteArrayOutputStream();
+    ByteArrayOutputStream wkt = new ByteArrayOutputStream();
+    try (
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(geoJson);
+        Writer wktWriter = new OutputStreamWriter(wkt, StandardCharsets.UTF_8)) {
+      simplify(rows, new SplittingGeoJsonMultiLineWriter(jsonGenerator, wktWriter, GEO_JSON_PRECISION, maxAllowedSpeedKnts,
+          new GeodeticDistanceCalculator(), additionalProperties), retainPoints, mode);
+    }
+    return new Output(geoJson.toString(StandardCharsets.UTF_8.name()), wkt.toString(StandardCharsets.UTF_8.name()));
+  }
+
+  private void assertSame(List<DataRow> rows, boolean retainPoints, SimplificationMode mode, double maxAllowedSpeedKnts,
+      Map<String, Object> additionalProperties) throws Exception {
+    Output expected = twoPhases(rows, retainPoints, mode, maxAllowedSpeedKnts, additionalProperties);
+    Output actual = fused(rows, retainPoints, mode, maxAllowedSpeedKnts, additionalProperties);
+    assertEquals(expected.geoJson, actual.geoJson);
+    assertEquals(expected.wkt, actual.wkt);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"false,BATCH", "true,BATCH", "false,ONLINE", "true,ONLINE"})
+  public void testSynthetic(boolean retainPoints, SimplificationMode mode) throws Exception {
+    List<DataRow> rows = synthetic(60000L);
+    assertSame(rows, retainPoints, mode, 0D, null);
+    assertTrue(fused(rows, retainPoints, mode, 0D, null).wkt.contains("), ("));
+  }
+
+  @Test
+  public void testCruise() throws Exception {
+    assertSame(cruise(), false, SimplificationMode.BATCH, 60D, Collections.singletonMap("platform", "Kilo Moana"));
+  }
+
+  @Test
+  public void testPointAndEmpty() throws Exception {
+    List<DataRow> rows = synthetic(1L);
+    assertSame(rows, false, SimplificationMode.BATCH, 0D, null);
+    assertTrue(fused(rows, false, SimplificationMode.BATCH, 0D, null).wkt.startsWith("POINT ("));
+    assertSame(Collections.emptyList(), false, SimplificationMode.BATCH, 0D, null);
+  }
+
+  @Test
+  public void testNegativeZero() throws Exception {
+    Function<Double, DataRow> row = lon -> new DataRow() {
+      @Override
+      public Instant getTimestamp() {
+        return Instant.ofEpochSecond(lon.longValue() * 1000L + 100000L);
+      }
+
+      @Override
+      public Double getLon() {
+        return lon;
+      }
+
+      @Override
+      public Double getLat() {
+        return -0.000001;
+      }
+    };
+    List<DataRow> rows = new ArrayList<>();
+    for (double lon : new double[]{-0.000001, 0.5, 1D}) {
+      rows.add(row.apply(lon));
+    }
+    assertSame(rows, false, SimplificationMode.BATCH, 0D, null);
+  }
+
+  @ParameterizedTest
+  @CsvSource({"false", "true"})
+  public void testGeometryEncoder(boolean retainPoints) throws Exception {
+    List<DataRow> rows = synthetic(20000L);
+    ByteArrayOutputStream phase1 = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(phase1)) {
+      simplify(rows, new GeoJsonMultiLineWriter(jsonGenerator, GEO_JSON_PRECISION), retainPoints, SimplificationMode.BATCH);
+    }
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new GeoJsonMultiLineProcessor(objectMapper, GEO_JSON_PRECISION, 0D)
+        .process(new ByteArrayInputStream(phase1.toByteArray()), new ByteArrayOutputStream(),
+            new WkbGeometryEncoder(expected, GEO_JSON_PRECISION), null);
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(new ByteArrayOutputStream())) {
+      simplify(rows, new SplittingGeoJsonMultiLineWriter(jsonGenerator, new WkbGeometryEncoder(actual, GEO_JSON_PRECISION),
+          GEO_JSON_PRECISION, 0D, new GeodeticDistanceCalculator(), null), retainPoints, SimplificationMode.BATCH);
+    }
+    assertTrue(expected.size() > 0);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+
+    ByteArrayOutputStream geoJson = new ByteArrayOutputStream();
+    try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(geoJson)) {
+      simplify(rows, new SplittingGeoJsonMultiLineWriter(jsonGenerator, GeometryEncoder.none(), GEO_JSON_PRECISION, 0D,
+          new GeodeticDistanceCalculator(), null), retainPoints, SimplificationMode.BATCH);
+    }
+    assertEquals(twoPhases(rows, retainPoints, SimplificationMode.BATCH, 0D, null).geoJson,
+        geoJson.toString(StandardCharsets.UTF_8.name()));
+  }
+
+  @Test
+  public void testSpeed() throws Exception {
+    List<DataRow> rows = synthetic(20000L);
+    assertThrows(ValidationException.class, () -> twoPhases(rows, false, SimplificationMode.BATCH, 1D, null));
+    assertThrows(ValidationRuntimeException.class, () -> fused(rows, false, SimplificationMode.BATCH, 1D, null));
+  }
+}
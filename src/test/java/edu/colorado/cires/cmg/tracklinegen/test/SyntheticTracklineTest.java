@@ -0,0 +1,115 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.colorado.cires.cmg.tracklinegen.AntimeridianUtils;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.FnvFileWriter;
+import edu.colorado.cires.cmg.tracklinegen.synthetic.SyntheticTrackline;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+public class SyntheticTracklineTest {
+
+  private static List<DataRow> rows(SyntheticTrackline trackline) {
+    List<DataRow> rows = new ArrayList<>();
+    trackline.forEach(rows::add);
+    return rows;
+  }
+
+  private static void assertRowsEqual(List<DataRow> expected, List<DataRow> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+      assertEquals(expected.get(i).getLon(), actual.get(i).getLon());
+      assertEquals(expected.get(i).getLat(), actual.get(i).getLat());
+    }
+  }
+
+  @Test
+  public void testDeterministic() {
+    List<DataRow> first = rows(SyntheticTrackline.productionMix(7L, 200000L).build());
+    List<DataRow> second = rows(SyntheticTrackline.productionMix(7L, 200000L).build());
+    List<DataRow> other = rows(SyntheticTrackline.productionMix(8L, 200000L).build());
+
+    assertEquals(200000, first.size());
+    assertRowsEqual(first, second);
+    assertNotEquals(first.get(100).getLon(), other.get(100).getLon());
+  }
+
+  @Test
+  public void testFeatures() throws Exception {
+    List<DataRow> rows = rows(SyntheticTrackline.productionMix(1L, 1000000L).build());
+
+    boolean on180 = false;
+    boolean crossed = false;
+    boolean timeGap = false;
+    boolean distanceGap = false;
+    boolean tenHz = false;
+    for (int i = 1; i < rows.size(); i++) {
+      DataRow last = rows.get(i - 1);
+      DataRow row = rows.get(i);
+      long ms = row.getTimestamp().toEpochMilli() - last.getTimestamp().toEpochMilli();
+      assertTrue(ms > 0, "time must increase");
+      on180 |= Math.abs(row.getLon()) == 180D;
+      crossed |= Math.abs(row.getLon() - last.getLon()) > 180D;
+      timeGap |= ms >= Duration.ofHours(3).toMillis();
+      tenHz |= ms == 100L;
+      Coordinate c1 = new Coordinate(last.getLon(), last.getLat(), last.getTimestamp().toEpochMilli());
+      Coordinate c2 = new Coordinate(row.getLon(), row.getLat(), row.getTimestamp().toEpochMilli());
+      double m = AntimeridianUtils.getDistance(c1, c2);
+      distanceGap |= m > 30D * 1852D;
+      // gaps and jumps stay plausible so the usual speed check can be left on
+      AntimeridianUtils.getSpeed(60D, c1, c2, m);
+    }
+    assertTrue(on180);
+    assertTrue(crossed);
+    assertTrue(timeGap);
+    assertTrue(distanceGap);
+    assertTrue(tenHz);
+  }
+
+  @Test
+  public void testFnvFiles() throws IOException {
+    Path dir = Files.createTempDirectory("synthetic-fnv");
+    try {
+      SyntheticTrackline trackline = SyntheticTrackline.productionMix(3L, 25000L).build();
+      List<Path> files = FnvFileWriter.write(trackline.iterator(), dir, "synthetic", 10000L);
+      assertEquals(3, files.size());
+
+      List<String> lines;
+      try (Stream<String> stream = files.stream().flatMap(file -> {
+        try {
+          return Files.lines(file);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      })) {
+        lines = stream.collect(Collectors.toList());
+      }
+      List<DataRow> expected = rows(trackline);
+      assertEquals(expected.size(), lines.size());
+      for (int i = 0; i < lines.size(); i++) {
+        String[] tokens = lines.get(i).split("\t");
+        assertEquals(14, tokens.length);
+        assertEquals(expected.get(i).getTimestamp(), Instant.ofEpochMilli(Math.round(Double.parseDouble(tokens[1]) * 1000D)));
+        assertEquals(expected.get(i).getLon(), Double.parseDouble(tokens[2]), 1e-10);
+        assertEquals(expected.get(i).getLat(), Double.parseDouble(tokens[3]), 1e-10);
+      }
+    } finally {
+      FileUtils.deleteQuietly(dir.toFile());
+    }
+  }
+}
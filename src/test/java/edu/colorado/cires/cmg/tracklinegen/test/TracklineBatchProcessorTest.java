@@ -0,0 +1,246 @@
+package edu.colorado.cires.cmg.tracklinegen.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.colorado.cires.cmg.tracklinegen.DataRow;
+import edu.colorado.cires.cmg.tracklinegen.GeometrySimplifier;
+import edu.colorado.cires.cmg.tracklinegen.RowListener;
+import edu.colorado.cires.cmg.tracklinegen.SimplifiedPointCountExceededException;
+import edu.colorado.cires.cmg.tracklinegen.TracklineBatchProcessor;
+import edu.colorado.cires.cmg.tracklinegen.TracklineJob;
+import edu.colorado.cires.cmg.tracklinegen.TracklineProcessor;
+import edu.colorado.cires.cmg.tracklinegen.geometrySimplifier.GeoSimplifierProcessor;
+import java.io.Closeable;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+public class TracklineBatchProcessorTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+  private final GeometrySimplifier geometrySimplifier = new GeometrySimplifier(0.0001);
+
+  private static class RecordingProcessor extends TracklineProcessor<Closeable, DataRow, RowListener<DataRow>> {
+
+    private final String name;
+    private final List<String> started;
+    private final AtomicInteger running;
+    private final AtomicInteger maxRunning;
+
+    private RecordingProcessor(String name, List<String> started, AtomicInteger running, AtomicInteger maxRunning) {
+      this.name = name;
+      this.started = started;
+      this.running = running;
+      this.maxRunning = maxRunning;
+    }
+
+    @Override
+    protected Iterator<DataRow> getRows(Closeable context) {
+      started.add(name);
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(50L);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      return Collections.emptyIterator();
+    }
+
+    @Override
+    protected List<RowListener<DataRow>> createRowListeners(Closeable context) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    protected Closeable createProcessingContext() {
+      return () -> {
+      };
+    }
+  }
+
+  private static class FailingProcessor extends TracklineProcessor<Closeable, DataRow, RowListener<DataRow>> {
+
+    private final Throwable failure;
+
+    private FailingProcessor(Throwable failure) {
+      this.failure = failure;
+    }
+
+    @Override
+    protected Iterator<DataRow> getRows(Closeable context) {
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      throw (RuntimeException) failure;
+    }
+
+    @Override
+    protected List<RowListener<DataRow>> createRowListeners(Closeable context) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    protected Closeable createProcessingContext() {
+      return () -> {
+      };
+    }
+  }
+
+  private GeoSimplifierProcessor cruise(Path gsf, long maxCount) {
+    return new GeoSimplifierProcessor(5, 0, 3600000, geometrySimplifier, 3000, Paths.get("src/test/resources/phase1/test1/data.txt"),
+        objectMapper, gsf, maxCount, geometryFactory, row -> true, 60D);
+  }
+
+  @Test
+  public void testSharedInstances() throws Exception {
+    Path actualDir = Paths.get("target/test-classes/batch/actual");
+    Files.createDirectories(actualDir);
+    List<TracklineJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 16; i++) {
+      jobs.add(new TracklineJob("cruise-" + i, cruise(actualDir.resolve("cruise-" + i + ".json"), 0L), i % 5));
+    }
+    try (TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(4).build()) {
+      assertEquals(Collections.emptyMap(), batchProcessor.process(jobs));
+    }
+    JsonNode expected = objectMapper.readTree(new File("src/test/resources/phase1/test1/expected.geojson"));
+    for (int i = 0; i < 16; i++) {
+      assertEquals(expected, objectMapper.readTree(actualDir.resolve("cruise-" + i + ".json").toFile()));
+    }
+  }
+
+  @Test
+  public void testFailureIsolation() throws Exception {
+    Path actualDir = Paths.get("target/test-classes/batch/failure");
+    Files.createDirectories(actualDir);
+    TracklineJob good1 = new TracklineJob("good-1", cruise(actualDir.resolve("good-1.json"), 0L), 1L);
+    TracklineJob bad = new TracklineJob("bad", cruise(actualDir.resolve("bad.json"), 1L), 2L);
+    TracklineJob good2 = new TracklineJob("good-2", cruise(actualDir.resolve("good-2.json"), 0L), 3L);
+    try (TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(2).build()) {
+      List<CompletableFuture<Void>> futures = batchProcessor.submit(Arrays.asList(good1, bad, good2));
+      ExecutionException e = assertThrows(ExecutionException.class, () -> futures.get(1).get());
+      assertTrue(e.getCause() instanceof SimplifiedPointCountExceededException);
+      futures.get(0).get();
+      futures.get(2).get();
+
+      Map<TracklineJob, Throwable> failures = batchProcessor.process(Arrays.asList(good1, bad));
+      assertEquals(Collections.singleton(bad), failures.keySet());
+      assertSame(SimplifiedPointCountExceededException.class, failures.get(bad).getClass());
+    }
+    JsonNode expected = objectMapper.readTree(new File("src/test/resources/phase1/test1/expected.geojson"));
+    assertEquals(expected, objectMapper.readTree(actualDir.resolve("good-1.json").toFile()));
+    assertEquals(expected, objectMapper.readTree(actualDir.resolve("good-2.json").toFile()));
+  }
+
+  @Test
+  public void testCancelledJob() throws Exception {
+    CancellationException cancelled = new CancellationException("Cancelled");
+    IllegalStateException failed = new IllegalStateException("Failed");
+    TracklineJob cancelledJob = new TracklineJob("cancelled", new FailingProcessor(cancelled), 2L);
+    TracklineJob failedJob = new TracklineJob("failed", new FailingProcessor(failed), 1L);
+    try (TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(1).build()) {
+      Map<TracklineJob, Throwable> failures = batchProcessor.process(Arrays.asList(cancelledJob, failedJob));
+      assertEquals(Arrays.asList(cancelledJob, failedJob), new ArrayList<>(failures.keySet()));
+      assertSame(cancelled, failures.get(cancelledJob));
+      assertSame(failed, failures.get(failedJob));
+    }
+  }
+
+  @Test
+  public void testError() throws Exception {
+    StackOverflowError error = new StackOverflowError();
+    TracklineJob job = new TracklineJob("error", new FailingProcessor(error), 1L);
+    try (TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(1).build()) {
+      assertSame(error,
+          assertThrows(StackOverflowError.class, () -> batchProcessor.process(Collections.singletonList(job))));
+    }
+  }
+
+  @Test
+  public void testLargestFirst() throws Exception {
+    List<String> started = new CopyOnWriteArrayList<>();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<TracklineJob> jobs = new ArrayList<>();
+    long[] weights = {1L, 5L, 3L, 5L, 4L};
+    for (int i = 0; i < weights.length; i++) {
+      jobs.add(new TracklineJob("job-" + i, new RecordingProcessor("job-" + i, started, running, maxRunning), weights[i]));
+    }
+    try (TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(1).build()) {
+      assertEquals(Collections.emptyMap(), batchProcessor.process(jobs));
+    }
+    assertEquals(Arrays.asList("job-1", "job-3", "job-4", "job-2", "job-0"), started);
+  }
+
+  @Test
+  public void testMaxWeight() throws Exception {
+    List<String> started = new CopyOnWriteArrayList<>();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<TracklineJob> heavy = new ArrayList<>();
+    List<TracklineJob> light = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      heavy.add(new TracklineJob("heavy-" + i, new RecordingProcessor("heavy-" + i, started, running, maxRunning), 6L));
+      light.add(new TracklineJob("light-" + i, new RecordingProcessor("light-" + i, started, running, maxRunning), 2L));
+    }
+    // a job heavier than the maximum still runs, on its own
+    TracklineJob huge = new TracklineJob("huge", new RecordingProcessor("huge", started, running, maxRunning), 100L);
+    try (TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(4).withMaxWeight(10L).build()) {
+      assertEquals(Collections.emptyMap(), batchProcessor.process(heavy));
+      assertEquals(1, maxRunning.get());
+      assertEquals(Collections.emptyMap(), batchProcessor.process(light));
+      assertTrue(maxRunning.get() > 1);
+      assertEquals(Collections.emptyMap(), batchProcessor.process(Collections.singletonList(huge)));
+    }
+    assertEquals(9, started.size());
+  }
+
+  @Test
+  public void testClosed() throws Exception {
+    TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(1).build();
+    batchProcessor.close();
+    assertThrows(IllegalStateException.class, () -> batchProcessor.submit(Collections.emptyList()));
+  }
+
+  @Test
+  public void testCloseInterrupted() {
+    List<String> started = new CopyOnWriteArrayList<>();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<TracklineJob> jobs = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      jobs.add(new TracklineJob("job-" + i, new RecordingProcessor("job-" + i, started, running, maxRunning), 1L));
+    }
+    TracklineBatchProcessor batchProcessor = TracklineBatchProcessor.configure().withThreads(1).build();
+    List<CompletableFuture<Void>> futures = batchProcessor.submit(jobs);
+    Thread.currentThread().interrupt();
+    batchProcessor.close();
+    assertTrue(Thread.interrupted());
+    // the running job finishes, the queued ones never start
+    futures.get(0).join();
+    assertTrue(futures.get(1).isCancelled());
+    assertTrue(futures.get(2).isCancelled());
+    assertEquals(Collections.singletonList("job-0"), started);
+  }
+}